@@ -39,15 +39,29 @@ repositories {
     mavenCentral()
 }
 
+sourceSets {
+    create("jmh") {
+        compileClasspath += sourceSets.main.get().output
+        runtimeClasspath += sourceSets.main.get().output
+    }
+}
+
+val jmhImplementation: Configuration by configurations.getting {
+    extendsFrom(configurations.implementation.get())
+}
+
 dependencies {
     // Other
     implementation("com.fasterxml.jackson.module:jackson-module-paranamer:2.13.0")
+    // JsonFactory and JsonGenerator are part of AuditLogItemJsonSerializer's public API
+    api("com.fasterxml.jackson.core:jackson-core:2.13.0")
     api("javax.xml.bind:jaxb-api:2.3.1")
     implementation("io.sentry:sentry-logback:1.7.28")
 
     implementation("io.vavr:vavr:0.10.3")
     implementation("javax.inject:javax.inject:1")
     implementation("com.google.guava:guava:30.1-jre")
+    compileOnly("io.micrometer:micrometer-core:1.7.5")
     errorprone("com.google.errorprone:error_prone_core:2.9.0")
 
     // GraphQL
@@ -61,10 +75,15 @@ dependencies {
 
     testImplementation("org.spockframework:spock-spring:2.0-groovy-3.0")
     testImplementation("com.github.tomakehurst:wiremock-standalone:2.27.1")
+    testImplementation("io.micrometer:micrometer-core:1.7.5")
 
     // Spring
     testImplementation("org.springframework.boot:spring-boot-starter-test:2.4.3")
     testImplementation("org.springframework.boot:spring-boot-starter-web:2.5.5")
+
+    // Benchmarks
+    jmhImplementation("org.openjdk.jmh:jmh-core:1.33")
+    "jmhAnnotationProcessor"("org.openjdk.jmh:jmh-generator-annprocess:1.33")
 }
 
 java {
@@ -80,6 +99,20 @@ tasks.withType<JavaCompile> {
     options.errorprone.disable("UnusedVariable", "UnnecessaryParentheses")
 }
 
+tasks.named<JavaCompile>("compileJmhJava") {
+    options.errorprone.isEnabled.set(false)
+}
+
+tasks.register<JavaExec>("jmh") {
+    group = "verification"
+    description = "Runs JMH benchmarks, e.g. ./gradlew jmh -Pjmh.includes=AuditLogAnonymizer"
+    classpath = sourceSets["jmh"].runtimeClasspath
+    mainClass.set("org.openjdk.jmh.Main")
+    args("-prof", "gc", "-rf", "json", "-rff", "$buildDir/reports/jmh/results.json")
+    project.findProperty("jmh.includes")?.let { args(it) }
+    doFirst { file("$buildDir/reports/jmh").mkdirs() }
+}
+
 tasks.withType<Test> {
     maxParallelForks = 1
     testLogging {
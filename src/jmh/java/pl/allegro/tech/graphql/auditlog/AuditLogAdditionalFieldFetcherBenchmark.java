@@ -0,0 +1,75 @@
+package pl.allegro.tech.graphql.auditlog;
+
+import graphql.ExecutionResult;
+import graphql.GraphQL;
+import java.time.Clock;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of {@link AuditLogAdditionalFieldFetcher}. The query leaves out {@code id} of every node,
+ * which is configured as an additional field, so it is fetched for the root and for every item of
+ * the {@code children} lists, 111 objects with the default shape.
+ * Fetcher parameters only exist inside an execution, hence it is measured through the engine;
+ * compare against the run without additional fields to get its share.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuditLogAdditionalFieldFetcherBenchmark {
+
+  @Param({"8"})
+  int width;
+
+  @Param({"3"})
+  int depth;
+
+  @Param({"10"})
+  int listSize;
+
+  @Param({"false", "true"})
+  boolean additionalFields;
+
+  @Param({"0", "1000"})
+  long idFetcherCost;
+
+  private GraphQL graphQL;
+  private String query;
+
+  @Setup
+  public void setUp() {
+    SyntheticSchema schema = new SyntheticSchema(width, depth, listSize);
+    List<FieldSetup> fieldSetups = additionalFields
+        ? List.of(new FieldSetup("*", SyntheticSchema.ID_FIELD))
+        : List.of();
+    AuditLogInstrumentation instrumentation = new AuditLogInstrumentationBuilder(
+        Clock.systemUTC(),
+        new CountingAuditLogSender(),
+        new AnonymousUserProvider(),
+        new AuditLogAnonymizer(new DefaultAnonymizedFieldsSetupPreconditions(List.of())),
+        new AuditLogAdditionalFieldFetcher(
+            new DefaultAdditionalFieldsSetupPreconditions(fieldSetups)))
+        .build();
+    graphQL = schema.graphQL(instrumentation, idFetcherCost);
+    query = schema.query(false);
+  }
+
+  @Benchmark
+  public ExecutionResult execute() {
+    return graphQL.execute(query);
+  }
+}
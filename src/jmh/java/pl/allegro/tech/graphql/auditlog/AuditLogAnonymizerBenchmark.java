@@ -0,0 +1,69 @@
+package pl.allegro.tech.graphql.auditlog;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pl.allegro.tech.graphql.auditlog.model.UserId;
+
+/**
+ * Anonymization of a prebuilt audit log item with a growing number of configured rules, only one
+ * of which matches.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuditLogAnonymizerBenchmark {
+
+  @Param({"8"})
+  int width;
+
+  @Param({"3"})
+  int depth;
+
+  @Param({"10"})
+  int listSize;
+
+  @Param({"1", "500"})
+  int rules;
+
+  private AuditLogAnonymizer anonymizer;
+  private AuditLogItem auditLogItem;
+
+  @Setup
+  public void setUp() {
+    List<FieldSetup> fieldSetups = new ArrayList<>(rules);
+    fieldSetups.add(new FieldSetup("f0", "*"));
+    for (int rule = 1; rule < rules; rule++) {
+      fieldSetups.add(new FieldSetup("unused" + rule, "Unused" + rule));
+    }
+    anonymizer = new AuditLogAnonymizer(new DefaultAnonymizedFieldsSetupPreconditions(fieldSetups));
+    auditLogItem = new AuditLogItem(
+        "id",
+        List.of(new AuditLogItem.Operation(AuditLogItem.OperationType.QUERY, "root", Map.of())),
+        List.of(new SyntheticSchema(width, depth, listSize).resultData()),
+        List.of(),
+        UserId.ANONYMOUS,
+        Instant.EPOCH);
+  }
+
+  @Benchmark
+  public AuditLogItem anonymize() {
+    return anonymizer.anonymizeActionLogItem(auditLogItem);
+  }
+}
@@ -0,0 +1,87 @@
+package pl.allegro.tech.graphql.auditlog;
+
+import graphql.ExecutionResult;
+import graphql.GraphQL;
+import java.time.Clock;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * End-to-end overhead of {@link AuditLogInstrumentation}: the same query over a synthetic schema
+ * executed by a plain engine, by an engine auditing it and by an engine whose
+ * {@link AuditLogOperationFilter} excludes it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuditLogInstrumentationBenchmark {
+
+  @Param({"4", "16"})
+  int width;
+
+  @Param({"2", "4"})
+  int depth;
+
+  @Param({"10"})
+  int listSize;
+
+  @Param({"none", "audited", "unaudited"})
+  String instrumentation;
+
+  private GraphQL graphQL;
+  private String query;
+
+  @Setup
+  public void setUp() {
+    SyntheticSchema schema = new SyntheticSchema(width, depth, listSize);
+    graphQL = schema.graphQL(instrumentation(), 0);
+    query = schema.query(true);
+  }
+
+  private AuditLogInstrumentation instrumentation() {
+    switch (instrumentation) {
+      case "none":
+        return null;
+      case "audited":
+        return auditLogInstrumentation(AuditLogOperationFilter.allOperations());
+      case "unaudited":
+        return auditLogInstrumentation(
+            AuditLogOperationFilter.allOperations().denyRootFields("root"));
+      default:
+        throw new IllegalArgumentException("Unknown instrumentation " + instrumentation);
+    }
+  }
+
+  private static AuditLogInstrumentation auditLogInstrumentation(
+      AuditLogOperationFilter operationFilter) {
+    return new AuditLogInstrumentationBuilder(
+        Clock.systemUTC(),
+        new CountingAuditLogSender(),
+        new AnonymousUserProvider(),
+        new AuditLogAnonymizer(new DefaultAnonymizedFieldsSetupPreconditions(
+            List.of(new FieldSetup("f0", "*")))),
+        new AuditLogAdditionalFieldFetcher(new DefaultAdditionalFieldsSetupPreconditions(
+            List.of())))
+        .withOperationFilter(operationFilter)
+        .build();
+  }
+
+  @Benchmark
+  public ExecutionResult execute() {
+    return graphQL.execute(query);
+  }
+}
@@ -0,0 +1,72 @@
+package pl.allegro.tech.graphql.auditlog;
+
+import graphql.execution.ResultPath;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Registration and lookup of result paths for a list of objects, the way the instrumentation does
+ * it for {@code items[i].id}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuditLogInstrumentationStateBenchmark {
+
+  @Param({"1000", "10000", "100000"})
+  int listSize;
+
+  private ResultPath itemsPath;
+  private ResultPath[] itemPaths;
+  private ResultPath[] idPaths;
+  private AuditLogInstrumentationState registeredState;
+
+  @Setup
+  public void setUp() {
+    itemsPath = ResultPath.rootPath().segment("items");
+    itemPaths = new ResultPath[listSize];
+    idPaths = new ResultPath[listSize];
+    for (int item = 0; item < listSize; item++) {
+      itemPaths[item] = itemsPath.segment(item);
+      idPaths[item] = itemPaths[item].segment("id");
+    }
+    registeredState = register();
+  }
+
+  @Benchmark
+  public AuditLogInstrumentationState register() {
+    AuditLogInstrumentationState state = new AuditLogInstrumentationState();
+    state.registerField(itemsPath, "ArrayList", "items");
+    PathNode items = state.registerArray(itemsPath, listSize);
+    for (int item = 0; item < listSize; item++) {
+      items.itemForWrite(item).registerTypeName("Item");
+      state.registerField(itemPaths[item], "Item", "items");
+      state.registerField(idPaths[item], "String", "id");
+    }
+    return state;
+  }
+
+  @Benchmark
+  public void lookup(Blackhole blackhole) {
+    PathNode items = registeredState.root().field("items");
+    for (int item = 0; item < listSize; item++) {
+      PathNode id = items.item(item).field("id");
+      blackhole.consume(id.typeName());
+      blackhole.consume(id.originalFieldName());
+    }
+  }
+}
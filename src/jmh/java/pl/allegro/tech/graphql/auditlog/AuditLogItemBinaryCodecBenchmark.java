@@ -0,0 +1,86 @@
+package pl.allegro.tech.graphql.auditlog;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pl.allegro.tech.graphql.auditlog.model.UserId;
+
+/**
+ * {@link AuditLogItemBinaryCodec} compared with {@link AuditLogItemJsonSerializer}. Besides the
+ * speed, the encoded sizes of the item are printed when the benchmark is set up.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuditLogItemBinaryCodecBenchmark {
+
+  @Param({"8"})
+  int width;
+
+  @Param({"3"})
+  int depth;
+
+  @Param({"10"})
+  int listSize;
+
+  private AuditLogItem auditLogItem;
+  private AuditLogItemBinaryCodec codec;
+  private AuditLogItemJsonSerializer serializer;
+  private ByteArrayOutputStream buffer;
+  private byte[] encoded;
+
+  @Setup
+  public void setUp() {
+    auditLogItem = new AuditLogItem(
+        "id",
+        List.of(new AuditLogItem.Operation(
+            AuditLogItem.OperationType.QUERY, "root", Map.of("id", "12345"))),
+        List.of(new SyntheticSchema(width, depth, listSize).resultData()),
+        List.of(),
+        UserId.ANONYMOUS,
+        Instant.EPOCH);
+    codec = new AuditLogItemBinaryCodec();
+    serializer = new AuditLogItemJsonSerializer();
+    buffer = new ByteArrayOutputStream(64 * 1024);
+    encoded = codec.encode(auditLogItem);
+    System.out.printf(
+        "binary: %d bytes, JSON: %d bytes%n",
+        encoded.length,
+        serializer.writeAsString(auditLogItem).getBytes(StandardCharsets.UTF_8).length);
+  }
+
+  @Benchmark
+  public byte[] binaryEncode() {
+    return codec.encode(auditLogItem);
+  }
+
+  @Benchmark
+  public int jsonWrite() throws IOException {
+    buffer.reset();
+    serializer.write(auditLogItem, buffer);
+    return buffer.size();
+  }
+
+  @Benchmark
+  public AuditLogItem binaryDecode() {
+    return codec.decode(encoded);
+  }
+}
@@ -0,0 +1,88 @@
+package pl.allegro.tech.graphql.auditlog;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pl.allegro.tech.graphql.auditlog.model.UserId;
+
+/**
+ * {@link AuditLogItemJsonSerializer} compared with the reflection based {@link ObjectMapper}
+ * mapping users write for the same item (field visibility, {@link Instant} as string).
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuditLogItemJsonSerializerBenchmark {
+
+  @Param({"8"})
+  int width;
+
+  @Param({"3"})
+  int depth;
+
+  @Param({"10"})
+  int listSize;
+
+  private AuditLogItem auditLogItem;
+  private AuditLogItemJsonSerializer serializer;
+  private ObjectMapper objectMapper;
+  private ByteArrayOutputStream buffer;
+
+  @Setup
+  public void setUp() {
+    auditLogItem = new AuditLogItem(
+        "id",
+        List.of(new AuditLogItem.Operation(
+            AuditLogItem.OperationType.QUERY, "root", Map.of("id", "12345"))),
+        List.of(new SyntheticSchema(width, depth, listSize).resultData()),
+        List.of(),
+        UserId.ANONYMOUS,
+        Instant.EPOCH);
+    serializer = new AuditLogItemJsonSerializer();
+    objectMapper = new ObjectMapper()
+        .setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY)
+        .registerModule(
+            new SimpleModule().addSerializer(Instant.class, ToStringSerializer.instance));
+    buffer = new ByteArrayOutputStream(64 * 1024);
+  }
+
+  @Benchmark
+  public String serializerToString() {
+    return serializer.writeAsString(auditLogItem);
+  }
+
+  @Benchmark
+  public int serializerToReusableBuffer() throws IOException {
+    buffer.reset();
+    serializer.write(auditLogItem, buffer);
+    return buffer.size();
+  }
+
+  @Benchmark
+  public String objectMapperToString() throws JsonProcessingException {
+    return objectMapper.writeValueAsString(auditLogItem);
+  }
+}
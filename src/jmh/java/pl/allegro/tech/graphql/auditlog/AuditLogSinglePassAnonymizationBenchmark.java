@@ -0,0 +1,82 @@
+package pl.allegro.tech.graphql.auditlog;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import pl.allegro.tech.graphql.auditlog.AuditLogResultDataAssembler.AssembledResultData;
+import pl.allegro.tech.graphql.auditlog.model.UserId;
+
+/**
+ * Raw and anonymized audit log items of a large response: built in one traversal of the result
+ * versus building the raw item and copying it with {@link AuditLogAnonymizer}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuditLogSinglePassAnonymizationBenchmark {
+
+  @Param({"8"})
+  int width;
+
+  @Param({"3"})
+  int depth;
+
+  @Param({"10", "100"})
+  int listSize;
+
+  private Map<String, Object> data;
+  private PathNode pathTree;
+  private AuditLogAnonymizer anonymizer;
+  private AuditLogResultDataAssembler singlePassAssembler;
+
+  @Setup
+  public void setUp() {
+    Map<String, Object> rootData = new SyntheticSchema(width, depth, listSize).data();
+    data = Map.of("root", rootData);
+    pathTree = SyntheticSchema.pathTree(rootData);
+    anonymizer = new AuditLogAnonymizer(
+        new DefaultAnonymizedFieldsSetupPreconditions(List.of(new FieldSetup("f0", "*"))));
+    singlePassAssembler = AuditLogResultDataAssembler.withAnonymized(anonymizer);
+  }
+
+  @Benchmark
+  public void twoPasses(Blackhole blackhole) {
+    AuditLogItem item = item(AuditLogResultDataAssembler.raw().assemble(data, pathTree));
+    blackhole.consume(item);
+    blackhole.consume(anonymizer.anonymizeActionLogItem(item));
+  }
+
+  @Benchmark
+  public void singlePass(Blackhole blackhole) {
+    AssembledResultData resultData = singlePassAssembler.assemble(data, pathTree);
+    AuditLogItem item = item(resultData);
+    blackhole.consume(item);
+    blackhole.consume(anonymizer.anonymizedActionLogItem(item, resultData.anonymized()));
+  }
+
+  private static AuditLogItem item(AssembledResultData resultData) {
+    return new AuditLogItem(
+        "id",
+        List.of(new AuditLogItem.Operation(AuditLogItem.OperationType.QUERY, "root", Map.of())),
+        resultData.raw(),
+        List.of(),
+        UserId.ANONYMOUS,
+        Instant.EPOCH);
+  }
+}
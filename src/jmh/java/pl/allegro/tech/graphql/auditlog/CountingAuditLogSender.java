@@ -0,0 +1,29 @@
+package pl.allegro.tech.graphql.auditlog;
+
+/**
+ * Sender keeping only the number of received items, so that benchmarks measure building audit
+ * log items and not the logging backend.
+ */
+final class CountingAuditLogSender implements AuditLogSender {
+
+  private long sent;
+  private long sentAnonymized;
+
+  @Override
+  public void send(AuditLogItem auditLogItem) {
+    sent++;
+  }
+
+  @Override
+  public void sendAnonymized(AuditLogItem auditLogItem) {
+    sentAnonymized++;
+  }
+
+  long sent() {
+    return sent;
+  }
+
+  long sentAnonymized() {
+    return sentAnonymized;
+  }
+}
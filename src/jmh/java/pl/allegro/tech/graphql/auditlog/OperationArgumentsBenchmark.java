@@ -0,0 +1,87 @@
+package pl.allegro.tech.graphql.auditlog;
+
+import graphql.language.Document;
+import graphql.language.Field;
+import graphql.language.OperationDefinition;
+import graphql.parser.Parser;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Capturing arguments of mutations with a large input object, the way the instrumentation does it
+ * for every root field of a request. Run with {@code -prof gc} to compare allocation per operation
+ * of inputs passed as a variable and as a literal.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OperationArgumentsBenchmark {
+
+  @Param({"10", "1000"})
+  int inputFields;
+
+  @Param({"1", "8"})
+  int rootFields;
+
+  @Param({"false", "true"})
+  boolean literal;
+
+  private Map<String, Object> variables;
+  private OperationDefinition operation;
+  private List<Field> fields;
+
+  @Setup
+  public void setUp() {
+    Map<String, Object> input = new LinkedHashMap<>();
+    StringBuilder inputLiteral = new StringBuilder("{ ");
+    for (int field = 0; field < inputFields; field++) {
+      input.put("f" + field, "value" + field);
+      inputLiteral.append('f').append(field).append(": \"value").append(field).append("\" ");
+    }
+    inputLiteral.append('}');
+    variables = new HashMap<>();
+    StringBuilder query = new StringBuilder("mutation Save");
+    if (!literal) {
+      query.append("($input: Input)");
+      variables.put("input", input);
+    }
+    query.append(" { ");
+    for (int field = 0; field < rootFields; field++) {
+      query.append("save").append(field).append(": save(input: ")
+          .append(literal ? inputLiteral : "$input").append(") ");
+    }
+    Document document = new Parser().parseDocument(query.append('}').toString());
+    operation = document.getDefinitionsOfType(OperationDefinition.class).get(0);
+    fields = operation.getSelectionSet().getSelections().stream()
+        .map(it -> (Field) it)
+        .collect(Collectors.toList());
+  }
+
+  @Benchmark
+  public void captureArguments(Blackhole blackhole) {
+    AuditLogInstrumentationState state = new AuditLogInstrumentationState();
+    state.registerVariables(variables);
+    for (Field field : fields) {
+      blackhole.consume(OperationArguments.of(field, state.registeredVariables(), operation));
+    }
+  }
+}
@@ -0,0 +1,169 @@
+package pl.allegro.tech.graphql.auditlog;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import pl.allegro.tech.graphql.auditlog.model.ResultData;
+import pl.allegro.tech.graphql.auditlog.model.UserId;
+
+/**
+ * Hand-off of items from concurrent producer threads to two sender threads through
+ * {@link RingBufferAuditLogSender} and through a {@link LinkedBlockingQueue} baseline. Every
+ * operation lets all producers send their share of items and waits until the sink received them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RingBufferAuditLogSenderBenchmark {
+
+  private static final int SENDER_THREADS = 2;
+
+  @Param({"1", "4", "16", "64"})
+  int producers;
+
+  private static final String QUEUE_BASELINE = "linkedBlockingQueue";
+
+  // a wait strategy of the ring buffer or the queue baseline, which has no wait strategy to vary
+  @Param({"YIELDING", "BLOCKING", QUEUE_BASELINE})
+  String handoff;
+
+  @Param({"1000"})
+  int itemsPerProducer;
+
+  private final LongAdder received = new LongAdder();
+  private AuditLogItem auditLogItem;
+  private AuditLogSender sender;
+  private AutoCloseable closeable;
+  private ExecutorService producerPool;
+  private CyclicBarrier start;
+  private List<Runnable> producerTasks;
+
+  @Setup
+  public void setUp() {
+    auditLogItem = new AuditLogItem(
+        "id",
+        List.of(new AuditLogItem.Operation(AuditLogItem.OperationType.QUERY, "root", Map.of())),
+        List.of(new ResultData.ScalarResultData("root", "String", "value")),
+        List.of(),
+        UserId.ANONYMOUS,
+        Instant.EPOCH);
+    AuditLogSender sink = new AuditLogSender() {
+      @Override
+      public void send(AuditLogItem item) {
+        received.increment();
+      }
+    };
+    if (handoff.equals(QUEUE_BASELINE)) {
+      QueueAuditLogSender queue = new QueueAuditLogSender(sink);
+      sender = queue;
+      closeable = queue;
+    } else {
+      RingBufferAuditLogSender ringBuffer = new RingBufferAuditLogSender(
+          sink, 1024, SENDER_THREADS, RingBufferAuditLogSender.WaitStrategy.valueOf(handoff));
+      sender = ringBuffer;
+      closeable = ringBuffer;
+    }
+    producerPool = Executors.newFixedThreadPool(producers);
+    start = new CyclicBarrier(producers + 1);
+    producerTasks = new ArrayList<>(producers);
+    for (int i = 0; i < producers; i++) {
+      producerTasks.add(() -> {
+        await(start);
+        for (int item = 0; item < itemsPerProducer; item++) {
+          sender.send(auditLogItem);
+        }
+      });
+    }
+  }
+
+  @TearDown
+  public void tearDown() throws Exception {
+    producerPool.shutdownNow();
+    closeable.close();
+  }
+
+  @Benchmark
+  public long handoff() throws Exception {
+    final long expected = received.sum() + (long) producers * itemsPerProducer;
+    List<Future<?>> futures = new ArrayList<>(producers);
+    for (Runnable task : producerTasks) {
+      futures.add(producerPool.submit(task));
+    }
+    await(start);
+    for (Future<?> future : futures) {
+      future.get();
+    }
+    while (received.sum() < expected) {
+      Thread.onSpinWait();
+    }
+    return expected;
+  }
+
+  private static void await(CyclicBarrier barrier) {
+    try {
+      barrier.await();
+    } catch (Exception e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Baseline hand-off through an unbounded {@link LinkedBlockingQueue}.
+   */
+  private static final class QueueAuditLogSender implements AuditLogSender, AutoCloseable {
+
+    private final BlockingQueue<AuditLogItem> queue = new LinkedBlockingQueue<>();
+    private final List<Thread> workers = new ArrayList<>();
+
+    private QueueAuditLogSender(AuditLogSender delegate) {
+      for (int i = 0; i < SENDER_THREADS; i++) {
+        Thread worker = new Thread(() -> {
+          try {
+            while (true) {
+              delegate.send(queue.take());
+            }
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+        });
+        worker.setDaemon(true);
+        worker.start();
+        workers.add(worker);
+      }
+    }
+
+    @Override
+    public void send(AuditLogItem auditLogItem) {
+      queue.add(auditLogItem);
+    }
+
+    @Override
+    public void close() {
+      workers.forEach(Thread::interrupt);
+    }
+  }
+}
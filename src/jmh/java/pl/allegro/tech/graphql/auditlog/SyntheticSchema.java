@@ -0,0 +1,177 @@
+package pl.allegro.tech.graphql.auditlog;
+
+import static graphql.schema.idl.TypeRuntimeWiring.newTypeWiring;
+
+import graphql.GraphQL;
+import graphql.execution.instrumentation.Instrumentation;
+import graphql.schema.DataFetcher;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.idl.RuntimeWiring;
+import graphql.schema.idl.SchemaGenerator;
+import graphql.schema.idl.SchemaParser;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.openjdk.jmh.infra.Blackhole;
+import pl.allegro.tech.graphql.auditlog.model.ResultData;
+
+/**
+ * Generated schema, data and query of a configurable shape. Every {@code Node<level>} type has an
+ * {@code id}, {@code width} string fields and, above the deepest level, a list of
+ * {@code listSize} children of the next level.
+ */
+final class SyntheticSchema {
+
+  static final String ID_FIELD = "id";
+
+  private final int width;
+  private final int depth;
+  private final int listSize;
+
+  SyntheticSchema(int width, int depth, int listSize) {
+    this.width = width;
+    this.depth = depth;
+    this.listSize = listSize;
+  }
+
+  String sdl() {
+    StringBuilder sdl = new StringBuilder("type Query {\n  root: Node0\n}\n");
+    for (int level = 0; level < depth; level++) {
+      sdl.append("type Node").append(level).append(" {\n  id: ID\n");
+      for (int field = 0; field < width; field++) {
+        sdl.append("  f").append(field).append(": String\n");
+      }
+      if (level < depth - 1) {
+        sdl.append("  children: [Node").append(level + 1).append("]\n");
+      }
+      sdl.append("}\n");
+    }
+    return sdl.toString();
+  }
+
+  /**
+   * Query selecting every field, optionally without {@code id} so that it can be fetched as an
+   * additional field.
+   */
+  String query(boolean selectId) {
+    StringBuilder query = new StringBuilder("query Synthetic { root ");
+    appendSelection(query, 0, selectId);
+    return query.append(" }").toString();
+  }
+
+  private void appendSelection(StringBuilder query, int level, boolean selectId) {
+    query.append("{ ");
+    if (selectId) {
+      query.append("id ");
+    }
+    for (int field = 0; field < width; field++) {
+      query.append('f').append(field).append(' ');
+    }
+    if (level < depth - 1) {
+      query.append("children ");
+      appendSelection(query, level + 1, selectId);
+    }
+    query.append("} ");
+  }
+
+  Map<String, Object> data() {
+    return node(0, "0");
+  }
+
+  private Map<String, Object> node(int level, String id) {
+    Map<String, Object> node = new LinkedHashMap<>();
+    node.put(ID_FIELD, id);
+    for (int field = 0; field < width; field++) {
+      node.put("f" + field, "value-" + id + "-" + field);
+    }
+    if (level < depth - 1) {
+      List<Map<String, Object>> children = new ArrayList<>(listSize);
+      for (int item = 0; item < listSize; item++) {
+        children.add(node(level + 1, id + "." + item));
+      }
+      node.put("children", children);
+    }
+    return node;
+  }
+
+  /**
+   * Result path tree the instrumentation registers while executing {@link #query(boolean)} over
+   * {@code data}.
+   */
+  static PathNode pathTree(Map<String, Object> data) {
+    PathNode root = PathNode.root();
+    PathNode node = root.fieldForWrite("root");
+    node.registerOriginalFieldName("root");
+    registerValue(node, data);
+    return root;
+  }
+
+  private static void registerValue(PathNode node, Object value) {
+    node.registerTypeName(value == null ? "null" : value.getClass().getSimpleName());
+    if (value instanceof Map) {
+      for (Map.Entry<?, ?> field : ((Map<?, ?>) value).entrySet()) {
+        PathNode fieldNode = node.fieldForWrite((String) field.getKey());
+        fieldNode.registerOriginalFieldName((String) field.getKey());
+        registerValue(fieldNode, field.getValue());
+      }
+    } else if (value instanceof List) {
+      List<?> items = (List<?>) value;
+      node.ensureItemCapacity(items.size());
+      for (int item = 0; item < items.size(); item++) {
+        registerValue(node.itemForWrite(item), items.get(item));
+      }
+    }
+  }
+
+  /**
+   * Create the engine. The {@code id} fetcher burns {@code idFetcherCost} JMH tokens to simulate
+   * a slow backend call.
+   */
+  GraphQL graphQL(Instrumentation instrumentation, long idFetcherCost) {
+    Map<String, Object> data = data();
+    DataFetcher<Object> idFetcher = environment -> {
+      if (idFetcherCost > 0) {
+        Blackhole.consumeCPU(idFetcherCost);
+      }
+      return ((Map<?, ?>) environment.getSource()).get(ID_FIELD);
+    };
+    RuntimeWiring.Builder wiring = RuntimeWiring.newRuntimeWiring()
+        .type(newTypeWiring("Query").dataFetcher("root", environment -> data));
+    for (int level = 0; level < depth; level++) {
+      wiring.type(newTypeWiring("Node" + level).dataFetcher(ID_FIELD, idFetcher));
+    }
+    GraphQLSchema schema = new SchemaGenerator()
+        .makeExecutableSchema(new SchemaParser().parse(sdl()), wiring.build());
+    GraphQL.Builder builder = GraphQL.newGraphQL(schema);
+    if (instrumentation != null) {
+      builder.instrumentation(instrumentation);
+    }
+    return builder.build();
+  }
+
+  /**
+   * Result data tree with the same shape as the result of {@link #query(boolean)}.
+   */
+  ResultData resultData() {
+    return resultData("root", 0, "0");
+  }
+
+  private ResultData resultData(String name, int level, String id) {
+    List<ResultData> fields = new ArrayList<>(width + 2);
+    fields.add(new ResultData.ScalarResultData(ID_FIELD, "String", id));
+    for (int field = 0; field < width; field++) {
+      fields.add(new ResultData.ScalarResultData(
+          "f" + field, "String", "value-" + id + "-" + field));
+    }
+    if (level < depth - 1) {
+      List<ResultData> children = IntStream.range(0, listSize)
+          .mapToObj(item -> resultData("children", level + 1, id + "." + item))
+          .collect(Collectors.toList());
+      fields.add(new ResultData.ArrayResultData("children", children));
+    }
+    return new ResultData.ObjectResultData(name, "Node" + level, fields);
+  }
+}
@@ -0,0 +1,58 @@
+package pl.allegro.tech.graphql.auditlog;
+
+import static graphql.execution.instrumentation.dataloader.DataLoaderDispatcherInstrumentationState.EMPTY_DATALOADER_REGISTRY;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import org.dataloader.BatchLoader;
+import org.dataloader.DataLoader;
+import org.dataloader.DataLoaderOptions;
+import org.dataloader.DataLoaderRegistry;
+
+/**
+ * Additional fields of a request loaded with {@link AuditLogAdditionalFieldBatchLoader}s. Sources
+ * are queued in a {@link DataLoader} per object and field. When the request has its own
+ * {@link DataLoaderRegistry} the loaders are registered there, so they are dispatched together
+ * with the application's data loaders; whatever is still queued is dispatched when execution
+ * completes.
+ */
+class AdditionalFieldBatches {
+
+  private static final String NAME_PREFIX = "auditLogAdditionalField:";
+  private static final DataLoaderOptions OPTIONS = DataLoaderOptions.newOptions()
+      .setCachingEnabled(false);
+
+  private final Map<String, DataLoader<Object, Object>> dataLoaders = new ConcurrentHashMap<>();
+  private final DataLoaderRegistry registry;
+
+  AdditionalFieldBatches(DataLoaderRegistry registry) {
+    this.registry = registry == EMPTY_DATALOADER_REGISTRY ? null : registry;
+  }
+
+  CompletableFuture<Object> load(
+      String objectName,
+      String fieldName,
+      AuditLogAdditionalFieldBatchLoader batchLoader,
+      Object source) {
+    return dataLoaders
+        .computeIfAbsent(objectName + "." + fieldName, name -> dataLoader(name, batchLoader))
+        .load(source);
+  }
+
+  private DataLoader<Object, Object> dataLoader(
+      String name, AuditLogAdditionalFieldBatchLoader batchLoader) {
+    BatchLoader<Object, Object> loader = batchLoader::load;
+    DataLoader<Object, Object> dataLoader = DataLoader.newDataLoader(loader, OPTIONS);
+    if (registry != null) {
+      registry.register(NAME_PREFIX + name, dataLoader);
+    }
+    return dataLoader;
+  }
+
+  void dispatch() {
+    for (DataLoader<Object, Object> dataLoader : dataLoaders.values()) {
+      dataLoader.dispatch();
+    }
+  }
+}
@@ -0,0 +1,110 @@
+package pl.allegro.tech.graphql.auditlog;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+/**
+ * How additional fields are fetched: the executor running their data fetchers, batch loaders
+ * replacing data fetchers of some fields, the key of memoized fetches and the deadlines they
+ * have to meet. A fetch has to
+ * complete within the field timeout and before the request timeout elapses since the request
+ * started, otherwise it is cancelled and replaced by
+ * {@link pl.allegro.tech.graphql.auditlog.model.ResultData.TimeoutResultData}.
+ */
+class AdditionalFieldFetchOptions {
+
+  static final long NO_TIMEOUT = Long.MAX_VALUE;
+
+  private final Executor executor;
+  private final long fieldTimeoutNanos;
+  private final long requestTimeoutNanos;
+  private final Map<String, Map<String, AuditLogAdditionalFieldBatchLoader>> batchLoaders;
+  private final Function<Object, Object> memoKeyExtractor;
+  private final AuditLogMetrics metrics;
+
+  AdditionalFieldFetchOptions(
+      Executor executor,
+      Duration fieldTimeout,
+      Duration requestTimeout,
+      Map<String, Map<String, AuditLogAdditionalFieldBatchLoader>> batchLoaders,
+      Function<Object, Object> memoKeyExtractor,
+      AuditLogMetrics metrics) {
+    this.executor = requireNonNull(executor);
+    this.fieldTimeoutNanos = toNanos(fieldTimeout);
+    this.requestTimeoutNanos = toNanos(requestTimeout);
+    this.batchLoaders = Map.copyOf(batchLoaders);
+    this.memoKeyExtractor = memoKeyExtractor;
+    this.metrics = requireNonNull(metrics);
+  }
+
+  static AdditionalFieldFetchOptions direct() {
+    return new AdditionalFieldFetchOptions(
+        AuditLogAdditionalFieldFetcher.directExecutor(), null, null, Map.of(), null,
+        AuditLogMetrics.noop());
+  }
+
+  private static long toNanos(Duration timeout) {
+    if (timeout == null) {
+      return NO_TIMEOUT;
+    }
+    checkArgument(!timeout.isNegative(), "Timeout can't be negative.");
+    return timeout.toNanos();
+  }
+
+  Executor executor() {
+    return executor;
+  }
+
+  boolean hasBatchLoaders() {
+    return !batchLoaders.isEmpty();
+  }
+
+  /**
+   * Batch loader of the field.
+   *
+   * @return {@link AuditLogAdditionalFieldBatchLoader} or {@code null} when the field is fetched
+   *     with its data fetcher
+   */
+  AuditLogAdditionalFieldBatchLoader batchLoader(String objectName, String fieldName) {
+    Map<String, AuditLogAdditionalFieldBatchLoader> objectBatchLoaders =
+        batchLoaders.get(objectName);
+    return objectBatchLoaders == null ? null : objectBatchLoaders.get(fieldName);
+  }
+
+  /**
+   * Key under which the fetch of a field of the source is memoized.
+   *
+   * @return key or {@code null} when the fetch is not memoized
+   */
+  Object memoKey(Object source) {
+    return memoKeyExtractor == null || source == null ? null : memoKeyExtractor.apply(source);
+  }
+
+  boolean hasRequestTimeout() {
+    return requestTimeoutNanos != NO_TIMEOUT;
+  }
+
+  /**
+   * Time left for a fetch starting now.
+   *
+   * @param requestStartNanos {@link System#nanoTime()} when the request started, ignored without
+   *     request timeout
+   * @return nanoseconds left or {@link #NO_TIMEOUT}
+   */
+  long timeoutNanos(long requestStartNanos) {
+    if (!hasRequestTimeout()) {
+      return fieldTimeoutNanos;
+    }
+    long requestLeft = requestTimeoutNanos - (System.nanoTime() - requestStartNanos);
+    return Math.max(0, Math.min(fieldTimeoutNanos, requestLeft));
+  }
+
+  void timedOut() {
+    metrics.recordAdditionalFieldTimeout();
+  }
+}
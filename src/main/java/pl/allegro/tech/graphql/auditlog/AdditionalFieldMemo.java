@@ -0,0 +1,104 @@
+package pl.allegro.tech.graphql.auditlog;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import pl.allegro.tech.graphql.auditlog.model.ResultData;
+
+/**
+ * Additional fields fetched during a request, keyed by object type, field and source key, so a
+ * source appearing under several paths is fetched once and its future is shared by all of them.
+ */
+class AdditionalFieldMemo {
+
+  private final Map<Key, CompletableFuture<ResultData>> resultData = new ConcurrentHashMap<>();
+
+  /**
+   * Future of the field, fetching it unless a fetch with the same key has already started.
+   */
+  CompletableFuture<ResultData> resultData(
+      String objectName,
+      String fieldName,
+      Object sourceKey,
+      Supplier<CompletableFuture<ResultData>> fetch) {
+    Key key = new Key(objectName, fieldName, sourceKey);
+    CompletableFuture<ResultData> existing = resultData.get(key);
+    if (existing != null) {
+      return existing;
+    }
+    // the fetch is started outside of the map, so a slow data fetcher does not block other keys
+    CompletableFuture<ResultData> memoized = new CompletableFuture<>();
+    existing = resultData.putIfAbsent(key, memoized);
+    if (existing != null) {
+      return existing;
+    }
+    fetch.get().whenComplete((value, error) -> {
+      if (error == null) {
+        memoized.complete(value);
+      } else {
+        memoized.completeExceptionally(error);
+      }
+    });
+    return memoized;
+  }
+
+  /**
+   * Source key comparing sources by identity.
+   */
+  static Object identityKey(Object source) {
+    return new IdentityKey(source);
+  }
+
+  private static final class Key {
+
+    private final String objectName;
+    private final String fieldName;
+    private final Object sourceKey;
+
+    private Key(String objectName, String fieldName, Object sourceKey) {
+      this.objectName = objectName;
+      this.fieldName = fieldName;
+      this.sourceKey = sourceKey;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key that = (Key) o;
+      return objectName.equals(that.objectName)
+          && fieldName.equals(that.fieldName)
+          && sourceKey.equals(that.sourceKey);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(objectName, fieldName, sourceKey);
+    }
+  }
+
+  private static final class IdentityKey {
+
+    private final Object source;
+
+    private IdentityKey(Object source) {
+      this.source = source;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof IdentityKey && ((IdentityKey) o).source == source;
+    }
+
+    @Override
+    public int hashCode() {
+      return System.identityHashCode(source);
+    }
+  }
+}
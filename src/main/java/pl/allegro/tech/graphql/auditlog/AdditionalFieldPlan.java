@@ -0,0 +1,129 @@
+package pl.allegro.tech.graphql.auditlog;
+
+import static java.lang.String.format;
+import static java.util.Objects.requireNonNull;
+
+import graphql.schema.DataFetcher;
+import graphql.schema.GraphQLCodeRegistry;
+import graphql.schema.GraphQLFieldDefinition;
+import graphql.schema.GraphQLNamedType;
+import graphql.schema.GraphQLObjectType;
+import graphql.schema.GraphQLScalarType;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.GraphQLType;
+import graphql.schema.GraphQLTypeUtil;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Additional fields of every object type of a schema with their definitions, scalar types and
+ * data fetchers, resolved once when the instrumentation is built instead of on every completed
+ * object. Compiling the plan fails fast when an additional field is not a scalar.
+ */
+class AdditionalFieldPlan {
+
+  private final GraphQLSchema schema;
+  private final Map<String, List<PlannedField>> objectFields;
+
+  private AdditionalFieldPlan(GraphQLSchema schema, Map<String, List<PlannedField>> objectFields) {
+    this.schema = schema;
+    this.objectFields = objectFields;
+  }
+
+  static AdditionalFieldPlan compile(
+      GraphQLSchema schema, AdditionalFieldsSetupPreconditions additionalFieldsSetupChecker) {
+    requireNonNull(schema);
+    GraphQLCodeRegistry codeRegistry = schema.getCodeRegistry();
+    Map<String, List<PlannedField>> objectFields = new HashMap<>();
+    for (GraphQLNamedType type : schema.getAllTypesAsList()) {
+      if (!(type instanceof GraphQLObjectType) || type.getName().startsWith("__")) {
+        continue;
+      }
+      GraphQLObjectType objectType = (GraphQLObjectType) type;
+      List<PlannedField> fields = new ArrayList<>();
+      for (GraphQLFieldDefinition definition : objectType.getFieldDefinitions()) {
+        if (!additionalFieldsSetupChecker.shouldBeAdditional(
+            objectType.getName(), definition.getName())) {
+          continue;
+        }
+        GraphQLType unwrappedType = GraphQLTypeUtil.unwrapAll(definition.getType());
+        if (!(unwrappedType instanceof GraphQLScalarType)) {
+          throw new IllegalStateException(
+              format("Only scalar types are supported as additional action log field. "
+                      + "%s:%s has %s type %s", objectType.getName(), definition.getName(),
+                  unwrappedType.getClass().getSimpleName(),
+                  GraphQLTypeUtil.simplePrint(definition.getType())));
+        }
+        fields.add(new PlannedField(
+            objectType,
+            definition,
+            (GraphQLScalarType) unwrappedType,
+            codeRegistry.getDataFetcher(objectType, definition)));
+      }
+      if (!fields.isEmpty()) {
+        objectFields.put(objectType.getName(), List.copyOf(fields));
+      }
+    }
+    return new AdditionalFieldPlan(schema, Map.copyOf(objectFields));
+  }
+
+  /**
+   * Whether the plan was compiled for the schema, other schemas resolve fields at request time.
+   */
+  boolean covers(GraphQLSchema executionSchema) {
+    return schema == executionSchema;
+  }
+
+  List<PlannedField> fields(String objectName) {
+    return objectFields.getOrDefault(objectName, List.of());
+  }
+
+  /**
+   * Additional field of an object type. Fields resolved at request time have no scalar type nor
+   * data fetcher, those are looked up when the field is fetched.
+   */
+  static class PlannedField {
+
+    private final GraphQLObjectType objectType;
+    private final GraphQLFieldDefinition definition;
+    private final GraphQLScalarType scalarType;
+    private final DataFetcher<?> dataFetcher;
+
+    PlannedField(
+        GraphQLObjectType objectType,
+        GraphQLFieldDefinition definition,
+        GraphQLScalarType scalarType,
+        DataFetcher<?> dataFetcher) {
+      this.objectType = objectType;
+      this.definition = definition;
+      this.scalarType = scalarType;
+      this.dataFetcher = dataFetcher;
+    }
+
+    static PlannedField unplanned(GraphQLObjectType objectType, String fieldName) {
+      return new PlannedField(objectType, objectType.getFieldDefinition(fieldName), null, null);
+    }
+
+    GraphQLObjectType objectType() {
+      return objectType;
+    }
+
+    String fieldName() {
+      return definition.getName();
+    }
+
+    GraphQLFieldDefinition definition() {
+      return definition;
+    }
+
+    GraphQLScalarType scalarType() {
+      return scalarType;
+    }
+
+    DataFetcher<?> dataFetcher() {
+      return dataFetcher;
+    }
+  }
+}
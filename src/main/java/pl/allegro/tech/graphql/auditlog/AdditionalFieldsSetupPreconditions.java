@@ -1,5 +1,9 @@
 package pl.allegro.tech.graphql.auditlog;
 
+/**
+ * Decides which fields are fetched as additional fields. Answers are cached together with the
+ * analysis of query documents, so they must not change over time.
+ */
 public interface AdditionalFieldsSetupPreconditions {
   boolean shouldBeAdditional(String objectName, String fieldName);
 }
@@ -0,0 +1,21 @@
+package pl.allegro.tech.graphql.auditlog;
+
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Loads an additional field of many objects in one call, instead of calling the field's data
+ * fetcher once per object. Sources are the objects whose field is loaded, collected during the
+ * request.
+ */
+@FunctionalInterface
+public interface AuditLogAdditionalFieldBatchLoader {
+
+  /**
+   * Load field values of the sources.
+   *
+   * @param sources objects the field is loaded for
+   * @return field values in the order of sources
+   */
+  CompletionStage<List<Object>> load(List<Object> sources);
+}
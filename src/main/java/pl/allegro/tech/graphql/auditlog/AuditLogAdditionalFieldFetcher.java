@@ -3,27 +3,45 @@ package pl.allegro.tech.graphql.auditlog;
 import static java.lang.String.format;
 import static java.util.Objects.requireNonNull;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import graphql.TypeResolutionEnvironment;
 import graphql.execution.FetchedValue;
+import graphql.execution.ResultPath;
 import graphql.execution.instrumentation.parameters.InstrumentationFieldCompleteParameters;
 import graphql.language.Field;
 import graphql.language.InlineFragment;
+import graphql.language.Selection;
+import graphql.language.SelectionSet;
 import graphql.schema.DataFetcher;
 import graphql.schema.DataFetchingEnvironment;
 import graphql.schema.DataFetchingEnvironmentImpl;
 import graphql.schema.GraphQLFieldDefinition;
-import graphql.schema.GraphQLNamedOutputType;
+import graphql.schema.GraphQLList;
 import graphql.schema.GraphQLObjectType;
 import graphql.schema.GraphQLOutputType;
 import graphql.schema.GraphQLScalarType;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.GraphQLType;
 import graphql.schema.GraphQLTypeUtil;
 import graphql.schema.GraphQLUnionType;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import pl.allegro.tech.graphql.auditlog.AdditionalFieldPlan.PlannedField;
 import pl.allegro.tech.graphql.auditlog.model.ResultData;
 
 public class AuditLogAdditionalFieldFetcher {
@@ -31,149 +49,345 @@ public class AuditLogAdditionalFieldFetcher {
   private static final Logger logger =
       LoggerFactory.getLogger(AuditLogAdditionalFieldFetcher.class);
 
+  private static final Executor DIRECT_EXECUTOR = Runnable::run;
+
+  private static final int SELECTION_ANALYSIS_CACHE_SIZE = 10_000;
+
   private final AdditionalFieldsSetupPreconditions additionalFieldsSetupChecker;
+  private final AdditionalFieldPlan plan;
+  // keyed by identity of field nodes, entries go away with the parsed document they belong to
+  private final Cache<Field, SelectionAnalysis> selectionAnalyses = CacheBuilder.newBuilder()
+      .weakKeys()
+      .maximumSize(SELECTION_ANALYSIS_CACHE_SIZE)
+      .build();
 
   public AuditLogAdditionalFieldFetcher(
       AdditionalFieldsSetupPreconditions additionalFieldsSetupChecker) {
+    this(additionalFieldsSetupChecker, null);
+  }
+
+  private AuditLogAdditionalFieldFetcher(
+      AdditionalFieldsSetupPreconditions additionalFieldsSetupChecker, AdditionalFieldPlan plan) {
     this.additionalFieldsSetupChecker = requireNonNull(additionalFieldsSetupChecker);
+    this.plan = plan;
   }
 
+  /**
+   * Fetcher with additional fields of the schema resolved upfront.
+   *
+   * @throws IllegalStateException when an additional field of the schema is not a scalar
+   */
+  AuditLogAdditionalFieldFetcher withPlan(GraphQLSchema schema) {
+    return new AuditLogAdditionalFieldFetcher(
+        additionalFieldsSetupChecker,
+        AdditionalFieldPlan.compile(schema, additionalFieldsSetupChecker));
+  }
 
-  List<AdditionalField> objectAdditionalFields(InstrumentationFieldCompleteParameters parameters) {
+  /**
+   * Executor running data fetchers of additional fields on the calling thread.
+   */
+  static Executor directExecutor() {
+    return DIRECT_EXECUTOR;
+  }
 
-    if (extractObjectType(parameters)) {
-      return fieldSetups(parameters)
-          .stream()
-          .filter(
-              it -> additionalFieldsSetupChecker
-                  .shouldBeAdditional(it.objectName(), it.fieldName()))
-          .flatMap(
-              it -> objectAdditionalFields(parameters, it.objectName(), it.fieldName()).stream())
-          .collect(Collectors.toList());
-    } else {
+  /**
+   * Executor starting a virtual thread per additional field fetch when the runtime supports
+   * virtual threads, {@link #directExecutor()} otherwise. Created on first use and shared by all
+   * instrumentations.
+   */
+  static Executor defaultExecutor() {
+    return DefaultExecutorHolder.EXECUTOR;
+  }
+
+  List<AdditionalField> objectAdditionalFields(
+      InstrumentationFieldCompleteParameters parameters,
+      AdditionalFieldFetchOptions options,
+      AuditLogInstrumentationState instrumentationState) {
+    GraphQLType type = GraphQLTypeUtil.unwrapNonNull(parameters.getField().getType());
+    if (type instanceof GraphQLList) {
+      // list items are handled by listItemAdditionalFields
       return List.of();
     }
+    return additionalFields(
+        parameters,
+        parameters.getExecutionStepInfo().getPath(),
+        ((FetchedValue) parameters.getFetchedValue()).getFetchedValue(),
+        type,
+        options,
+        instrumentationState);
   }
 
-  private Optional<AdditionalField> objectAdditionalFields(
-      InstrumentationFieldCompleteParameters parameters, String objectName, String fieldName) {
-    return extractObjectType(parameters, objectName, fieldName)
-        .filter(it -> !queryContainsAdditionalField(parameters, objectName, fieldName))
-        .map(
-            objectType -> {
-              GraphQLOutputType fieldDefinitionType =
-                  objectType.getFieldDefinition(fieldName).getType();
-              Object fieldValue = fetchField(fieldName, objectType, parameters);
-              List<String> path = getObjectPath(parameters);
-              CompletableFuture<ResultData> resultData =
-                  toResultData(fieldDefinitionType, fieldName, fieldValue);
-              return new AdditionalField(path, resultData);
-            });
-  }
-
-  private List<FieldSetup> fieldSetups(InstrumentationFieldCompleteParameters parameters) {
-    return parameters
-        .getExecutionStrategyParameters()
-        .getField()
-        .getSingleField()
-        .getSelectionSet()
-        .getSelections()
-        .stream()
-        .filter(it -> it instanceof InlineFragment)
-        .map(it -> (InlineFragment) it)
-        .flatMap(
-            it -> {
-              var objectName = it.getTypeCondition().getName();
-              return fieldSetupStream(it, objectName);
-            }).collect(Collectors.toList());
+  /**
+   * Additional fields of the first {@code maxItems} items of a completed list, each fetched
+   * with the item as its source. Items of a nested list are handled when the nested list
+   * completes.
+   */
+  List<AdditionalField> listItemAdditionalFields(
+      InstrumentationFieldCompleteParameters parameters,
+      Iterable<?> items,
+      int maxItems,
+      AdditionalFieldFetchOptions options,
+      AuditLogInstrumentationState instrumentationState) {
+    GraphQLType listType =
+        GraphQLTypeUtil.unwrapNonNull(parameters.getExecutionStepInfo().getType());
+    if (!(listType instanceof GraphQLList)) {
+      return List.of();
+    }
+    GraphQLType itemType =
+        GraphQLTypeUtil.unwrapNonNull(((GraphQLList) listType).getWrappedType());
+    if (itemType instanceof GraphQLList) {
+      return List.of();
+    }
+    ResultPath path = parameters.getExecutionStepInfo().getPath();
+    List<AdditionalField> additionalFields = new ArrayList<>();
+    int index = 0;
+    for (Object item : items) {
+      if (index == maxItems) {
+        break;
+      }
+      additionalFields.addAll(additionalFields(
+          parameters, path.segment(index++), item, itemType, options, instrumentationState));
+    }
+    return additionalFields;
   }
 
-  private Stream<FieldSetup> fieldSetupStream(InlineFragment it, String objectName) {
-    return it.getSelectionSet()
-        .getSelections()
-        .stream()
-        .filter(selection -> selection instanceof Field)
-        .map(field -> (Field) field)
-        .map(Field::getName)
-        .map(fieldName -> new FieldSetup(objectName, fieldName));
+  private List<AdditionalField> additionalFields(
+      InstrumentationFieldCompleteParameters parameters,
+      ResultPath path,
+      Object source,
+      GraphQLType type,
+      AdditionalFieldFetchOptions options,
+      AuditLogInstrumentationState instrumentationState) {
+    List<PlannedField> candidates = selectionAnalysis(parameters, type).candidates;
+    if (candidates.isEmpty()) {
+      return List.of();
+    }
+    // candidates of a union cover every selected member, only the source's own type applies
+    String runtimeTypeName = type instanceof GraphQLUnionType
+        ? runtimeTypeName(parameters, (GraphQLUnionType) type, source)
+        : null;
+    List<AdditionalField> additionalFields = new ArrayList<>(candidates.size());
+    for (PlannedField candidate : candidates) {
+      if (runtimeTypeName == null
+          || runtimeTypeName.equals(candidate.objectType().getName())) {
+        additionalFields.add(objectAdditionalField(
+            parameters, path, source, candidate, options, instrumentationState));
+      }
+    }
+    return additionalFields;
   }
 
-  private List<String> getObjectPath(InstrumentationFieldCompleteParameters parameters) {
-    return parameters.getTypeInfo().getPath().toList().stream()
-        .map(String::valueOf)
-        .collect(Collectors.toList());
+  /**
+   * Object type of the union member, resolved with the union's type resolver the way execution
+   * resolves it.
+   *
+   * @return name of the object type, empty when the source is {@code null}
+   */
+  private static String runtimeTypeName(
+      InstrumentationFieldCompleteParameters parameters, GraphQLUnionType type, Object source) {
+    if (source == null) {
+      return "";
+    }
+    GraphQLSchema schema = parameters.getExecutionContext().getGraphQLSchema();
+    TypeResolutionEnvironment environment = new TypeResolutionEnvironment(
+        source,
+        parameters.getExecutionStepInfo().getArguments(),
+        parameters.getExecutionStrategyParameters().getField(),
+        type,
+        schema,
+        parameters.getExecutionContext().getContext());
+    GraphQLObjectType objectType =
+        schema.getCodeRegistry().getTypeResolver(type).getType(environment);
+    return objectType == null ? "" : objectType.getName();
   }
 
-  private boolean extractObjectType(
-      InstrumentationFieldCompleteParameters parameters) {
-    GraphQLOutputType type = parameters.getField().getType();
-    if (type instanceof GraphQLUnionType) {
-      return true;
-    } else if (type instanceof GraphQLObjectType) {
-      return true;
+  /**
+   * Additional fields missing in the selection of the completed field. They depend only on the
+   * field node of the query document and its type, so the analysis is cached per field node and
+   * repeated executions of a preparsed document pay for it once. The analysis of a union field
+   * holds candidates of every selected member, as the member differs between executions.
+   */
+  private SelectionAnalysis selectionAnalysis(
+      InstrumentationFieldCompleteParameters parameters, GraphQLType type) {
+    Field field = parameters.getExecutionStrategyParameters().getField().getSingleField();
+    SelectionAnalysis analysis = selectionAnalyses.getIfPresent(field);
+    if (analysis == null || analysis.type != type) {
+      boolean planned =
+          plan != null && plan.covers(parameters.getExecutionContext().getGraphQLSchema());
+      analysis = new SelectionAnalysis(type, additionalFieldCandidates(type, field, planned));
+      selectionAnalyses.put(field, analysis);
     }
+    return analysis;
+  }
 
-    return false;
+  private List<PlannedField> additionalFieldCandidates(
+      GraphQLType type, Field field, boolean planned) {
+    return candidateObjectTypes(type, field)
+        .flatMap(objectType -> plannedFields(objectType, planned))
+        .filter(it -> !queryContainsAdditionalField(
+            field, it.objectType().getName(), it.fieldName()))
+        .collect(Collectors.toUnmodifiableList());
   }
 
-  private Optional<GraphQLObjectType> extractObjectType(
-      InstrumentationFieldCompleteParameters parameters, String objectName, String fieldName) {
-    GraphQLOutputType type = parameters.getField().getType();
+  private AdditionalField objectAdditionalField(
+      InstrumentationFieldCompleteParameters parameters,
+      ResultPath path,
+      Object source,
+      PlannedField field,
+      AdditionalFieldFetchOptions options,
+      AuditLogInstrumentationState instrumentationState) {
+    Object memoKey = options.memoKey(source);
+    CompletableFuture<ResultData> resultData = memoKey == null
+        ? resultData(parameters, source, field, options, instrumentationState)
+        : instrumentationState.additionalFieldMemo().resultData(
+            field.objectType().getName(),
+            field.fieldName(),
+            memoKey,
+            () -> resultData(parameters, source, field, options, instrumentationState));
+    return new AdditionalField(path, resultData);
+  }
+
+  private CompletableFuture<ResultData> resultData(
+      InstrumentationFieldCompleteParameters parameters,
+      Object source,
+      PlannedField field,
+      AdditionalFieldFetchOptions options,
+      AuditLogInstrumentationState instrumentationState) {
+    String fieldName = field.fieldName();
+    AtomicReference<CompletableFuture<?>> pendingValue = new AtomicReference<>();
+    AtomicReference<Future<?>> runningFetch = new AtomicReference<>();
+    AuditLogAdditionalFieldBatchLoader batchLoader =
+        options.batchLoader(field.objectType().getName(), fieldName);
+    CompletableFuture<Object> fetch = batchLoader == null
+        // the environment is built on the execution thread, only the data fetcher runs on the
+        // executor
+        ? submitFetch(fieldFetch(field, parameters, source), options.executor(), runningFetch)
+        : batchedFetch(field, batchLoader, source, instrumentationState);
+    CompletableFuture<ResultData> resultData = fetch
+        .thenCompose(fieldValue -> {
+          if (fieldValue instanceof CompletableFuture) {
+            pendingValue.set((CompletableFuture<?>) fieldValue);
+          }
+          return toResultData(field, fieldValue);
+        });
+    long timeoutNanos = options.timeoutNanos(instrumentationState.startNanos());
+    if (timeoutNanos != AdditionalFieldFetchOptions.NO_TIMEOUT) {
+      ResultData timeout = new ResultData.TimeoutResultData(fieldName);
+      resultData
+          .completeOnTimeout(timeout, timeoutNanos, TimeUnit.NANOSECONDS)
+          .thenAccept(value -> {
+            if (value == timeout) {
+              // nothing waits for the fetch any more, a data fetcher running on an executor
+              // service is interrupted, on other executors it runs to completion unobserved
+              fetch.cancel(true);
+              Future<?> running = runningFetch.get();
+              if (running != null) {
+                running.cancel(true);
+              }
+              CompletableFuture<?> pending = pendingValue.get();
+              if (pending != null) {
+                pending.cancel(true);
+              }
+              options.timedOut();
+            }
+          });
+    }
+    return resultData;
+  }
+
+  /**
+   * Run the fetch on the executor. {@link CompletableFuture#cancel(boolean)} does not interrupt
+   * the running task, so fetches submitted to an {@link ExecutorService} expose its
+   * {@link Future} to be cancelled on timeout.
+   */
+  private static CompletableFuture<Object> submitFetch(
+      Supplier<Object> fetch, Executor executor, AtomicReference<Future<?>> runningFetch) {
+    if (!(executor instanceof ExecutorService)) {
+      return CompletableFuture.supplyAsync(fetch, executor);
+    }
+    CompletableFuture<Object> result = new CompletableFuture<>();
+    runningFetch.set(((ExecutorService) executor).submit(() -> {
+      try {
+        result.complete(fetch.get());
+      } catch (RuntimeException e) {
+        result.completeExceptionally(e);
+      }
+    }));
+    return result;
+  }
+
+  private Stream<PlannedField> plannedFields(GraphQLObjectType objectType, boolean planned) {
+    if (planned) {
+      return plan.fields(objectType.getName()).stream();
+    }
+    return objectType.getFieldDefinitions().stream()
+        .map(GraphQLFieldDefinition::getName)
+        .filter(fieldName ->
+            additionalFieldsSetupChecker.shouldBeAdditional(objectType.getName(), fieldName))
+        .map(fieldName -> PlannedField.unplanned(objectType, fieldName));
+  }
+
+  private Stream<GraphQLObjectType> candidateObjectTypes(GraphQLType type, Field field) {
     if (type instanceof GraphQLUnionType) {
+      // only union members the query explicitly selects with an inline fragment are considered,
+      // the member a source resolves to is picked per execution
       return ((GraphQLUnionType) type).getTypes().stream()
-          .filter(it1 -> it1.getName().equals(objectName))
-          .findAny()
           .filter(it -> it instanceof GraphQLObjectType)
-          .map(it -> (GraphQLObjectType) it);
+          .map(it -> (GraphQLObjectType) it)
+          .filter(it -> inlineFragments(field)
+              .anyMatch(fragment -> fragment.getTypeCondition().getName().equals(it.getName())));
     } else if (type instanceof GraphQLObjectType) {
-      if (((GraphQLObjectType) type).getName().equals(objectName)) {
-        return Optional.of((GraphQLObjectType) type);
-      }
+      return Stream.of((GraphQLObjectType) type);
     }
-    return Optional.empty();
+    return Stream.empty();
   }
 
   private boolean queryContainsAdditionalField(
-      InstrumentationFieldCompleteParameters parameters, String objectName, String fieldName) {
-    return parameters
-        .getExecutionStrategyParameters()
-        .getField()
-        .getSingleField()
-        .getSelectionSet()
-        .getSelections()
-        .stream()
-        .filter(it -> it instanceof InlineFragment)
-        .map(it -> (InlineFragment) it)
+      Field field, String objectName, String fieldName) {
+    Stream<Selection> fragmentSelections = inlineFragments(field)
         .filter(it -> it.getTypeCondition().getName().equals(objectName))
-        .findAny()
-        .stream()
-        .flatMap(it -> it.getSelectionSet().getSelections().stream())
+        .flatMap(it -> it.getSelectionSet().getSelections().stream());
+    return Stream.concat(selections(field), fragmentSelections)
         .filter(it -> it instanceof Field)
         .map(it -> (Field) it)
         .anyMatch(it -> it.getName().equals(fieldName));
   }
 
-  private CompletableFuture<ResultData> toResultData(
-      GraphQLOutputType fieldDefinition, String fieldName, Object fieldValue) {
+  private Stream<InlineFragment> inlineFragments(Field field) {
+    return selections(field)
+        .filter(it -> it instanceof InlineFragment)
+        .map(it -> (InlineFragment) it)
+        .filter(it -> it.getTypeCondition() != null);
+  }
+
+  private Stream<Selection> selections(Field field) {
+    SelectionSet selectionSet = field.getSelectionSet();
+    return selectionSet == null ? Stream.empty() : selectionSet.getSelections().stream();
+  }
+
+  private CompletableFuture<ResultData> toResultData(PlannedField field, Object fieldValue) {
     if (fieldValue instanceof CompletableFuture) {
       return ((CompletableFuture<Object>) fieldValue)
-          .thenApply(value -> getSyncResultData(fieldDefinition, fieldName, value));
+          .thenApply(value -> getSyncResultData(field, value));
     } else {
-      return CompletableFuture.completedFuture(
-          getSyncResultData(fieldDefinition, fieldName, fieldValue));
+      return CompletableFuture.completedFuture(getSyncResultData(field, fieldValue));
     }
   }
 
-  private ResultData getSyncResultData(
-      GraphQLOutputType fieldDefinition, String fieldName, Object value) {
+  private ResultData getSyncResultData(PlannedField field, Object value) {
+    String fieldName = field.fieldName();
     if (value == null || (value instanceof Optional && ((Optional) value).isEmpty())) {
       return new ResultData.NullResultData(fieldName);
     }
     Object unwrappedValue = (value instanceof Optional) ? ((Optional<?>) value).get() : value;
-    if (GraphQLTypeUtil.unwrapAll(fieldDefinition) instanceof GraphQLScalarType) {
+    GraphQLOutputType fieldDefinition = field.definition().getType();
+    GraphQLType unwrappedType = field.scalarType() != null
+        ? field.scalarType()
+        : GraphQLTypeUtil.unwrapAll(fieldDefinition);
+    if (unwrappedType instanceof GraphQLScalarType) {
       String typeName = unwrappedValue.getClass().getSimpleName();
       Object graphQLValue =
-          ((GraphQLScalarType) fieldDefinition).getCoercing().serialize(unwrappedValue);
+          ((GraphQLScalarType) unwrappedType).getCoercing().serialize(unwrappedValue);
       return new ResultData.ScalarResultData(fieldName, typeName, String.valueOf(graphQLValue));
     }
     throw new IllegalStateException(
@@ -182,63 +396,100 @@ public class AuditLogAdditionalFieldFetcher {
             fieldDefinition.getClass().getSimpleName()));
   }
 
-  private Object fetchField(
-      String fieldName,
-      GraphQLNamedOutputType object,
-      InstrumentationFieldCompleteParameters parameters) {
-    if (object instanceof GraphQLObjectType) {
-      GraphQLFieldDefinition fieldDefinition = ((GraphQLObjectType) object)
-          .getFieldDefinition(fieldName);
-      DataFetcher<?> dataFetcher =
-          parameters
-              .getExecutionContext()
-              .getGraphQLSchema()
-              .getCodeRegistry()
-              .getDataFetcher((GraphQLObjectType) object, fieldDefinition);
-      Object fetchedValue = ((FetchedValue) parameters.getFetchedValue()).getFetchedValue();
-      DataFetchingEnvironment environment =
-          DataFetchingEnvironmentImpl.newDataFetchingEnvironment(parameters.getExecutionContext())
-              .source(fetchedValue)
-              .fieldType(fieldDefinition.getType())
-              .parentType(fieldDefinition.getType())
-              .build();
+  private Supplier<Object> fieldFetch(
+      PlannedField field, InstrumentationFieldCompleteParameters parameters, Object source) {
+    GraphQLObjectType objectType = field.objectType();
+    GraphQLFieldDefinition fieldDefinition = field.definition();
+    DataFetcher<?> dataFetcher = field.dataFetcher() != null
+        ? field.dataFetcher()
+        : parameters
+            .getExecutionContext()
+            .getGraphQLSchema()
+            .getCodeRegistry()
+            .getDataFetcher(objectType, fieldDefinition);
+    if (source == null) {
+      return () -> null;
+    }
+    DataFetchingEnvironment environment =
+        DataFetchingEnvironmentImpl.newDataFetchingEnvironment(parameters.getExecutionContext())
+            .source(source)
+            .fieldType(fieldDefinition.getType())
+            .parentType(fieldDefinition.getType())
+            .build();
+    return () -> {
       try {
-        if (fetchedValue == null) {
-          return null;
-        } else {
-          return dataFetcher.get(environment);
-        }
+        return dataFetcher.get(environment);
       } catch (Exception ex) {
         logger.warn(
             format("An error occurred when fetching action log additional field %s:%s",
-                object.getName(),
-                fieldName
+                objectType.getName(),
+                field.fieldName()
             ),
             ex);
         return null;
       }
+    };
+  }
+
+  private CompletableFuture<Object> batchedFetch(
+      PlannedField field,
+      AuditLogAdditionalFieldBatchLoader batchLoader,
+      Object source,
+      AuditLogInstrumentationState instrumentationState) {
+    if (source == null) {
+      return CompletableFuture.completedFuture(null);
+    }
+    String objectName = field.objectType().getName();
+    return instrumentationState.additionalFieldBatches()
+        .load(objectName, field.fieldName(), batchLoader, source)
+        .exceptionally(ex -> {
+          logger.warn(
+              format("An error occurred when batch loading action log additional field %s:%s",
+                  objectName,
+                  field.fieldName()
+              ),
+              ex);
+          return null;
+        });
+  }
+
+  private static class DefaultExecutorHolder {
+
+    private static final Executor EXECUTOR = createDefaultExecutor();
+
+    private static Executor createDefaultExecutor() {
+      try {
+        Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        return (Executor) factory.invoke(null);
+      } catch (ReflectiveOperationException e) {
+        return DIRECT_EXECUTOR;
+      }
+    }
+  }
+
+  private static class SelectionAnalysis {
+
+    private final GraphQLType type;
+    private final List<PlannedField> candidates;
+
+    private SelectionAnalysis(GraphQLType type, List<PlannedField> candidates) {
+      this.type = type;
+      this.candidates = candidates;
     }
-    throw new IllegalStateException(
-        String.format("Unsupported object type %s for field %s:%s",
-            object.getClass().getSimpleName(),
-            object.getName(),
-            fieldName
-        )
-    );
   }
 
   static class AdditionalField {
 
-    private final List<String> path;
+    private final ResultPath path;
     private final CompletableFuture<ResultData> resultData;
 
-    public AdditionalField(List<String> path,
+    public AdditionalField(ResultPath path,
         CompletableFuture<ResultData> resultData) {
       this.path = path;
       this.resultData = resultData;
     }
 
-    public List<String> path() {
+    public ResultPath path() {
       return path;
     }
 
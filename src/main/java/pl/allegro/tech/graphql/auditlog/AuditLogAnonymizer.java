@@ -3,14 +3,18 @@ package pl.allegro.tech.graphql.auditlog;
 import static java.lang.String.format;
 import static java.util.Objects.requireNonNull;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.UUID;
-import java.util.stream.Collectors;
 import pl.allegro.tech.graphql.auditlog.model.ResultData;
 import pl.allegro.tech.graphql.auditlog.model.ResultData.ArrayResultData;
 import pl.allegro.tech.graphql.auditlog.model.ResultData.ObjectResultData;
 
 public class AuditLogAnonymizer {
 
+  static final String NO_PARENT = "uselessParentName";
+
   private final AnonymizedFieldsSetupPreconditions anonymizedFieldsSetupChecker;
 
   public AuditLogAnonymizer(AnonymizedFieldsSetupPreconditions anonymizedFieldsSetupChecker) {
@@ -18,11 +22,11 @@ public class AuditLogAnonymizer {
   }
 
   AuditLogItem anonymizeActionLogItem(AuditLogItem actionLogItem) {
-    var resultData =
-        actionLogItem.resultData().stream()
-            .map(this::resultDataItemValue)
-            .collect(Collectors.toList());
+    List<? extends ResultData> resultData = anonymizedList(actionLogItem.resultData(), NO_PARENT);
+    return anonymizedActionLogItem(actionLogItem, Collections.unmodifiableList(resultData));
+  }
 
+  AuditLogItem anonymizedActionLogItem(AuditLogItem actionLogItem, List<ResultData> resultData) {
     return new AuditLogItem(
         UUID.randomUUID().toString(),
         actionLogItem.operations(),
@@ -33,28 +37,52 @@ public class AuditLogAnonymizer {
     );
   }
 
+  boolean shouldAnonymize(String name, String parentName) {
+    return anonymizedFieldsSetupChecker.shouldAnonymize(name, parentName);
+  }
+
+  ResultData anonymize(ResultData resultData, String parentName) {
+    return resultDataItemValue(resultData, parentName);
+  }
+
+  /**
+   * Anonymize the node. Untouched subtrees are returned as they are, so only nodes on the paths
+   * to anonymized fields are copied. Lazy nodes stay lazy and are anonymized when read.
+   */
   private ResultData resultDataItemValue(ResultData resultData, String parentName) {
 
-    if (anonymizedFieldsSetupChecker.shouldAnonymize(resultData.getName(), parentName)) {
+    if (shouldAnonymize(resultData.getName(), parentName)) {
       return resultData.anonymize();
     }
-    if (resultData instanceof ResultData.ObjectResultData) {
-      var fields =
-          ((ObjectResultData) resultData).getFields().stream()
-              .map(it -> resultDataItemValue(it, ((ObjectResultData) resultData).getTypeName()))
-              .collect(Collectors.toList());
-      return new ResultData.ObjectResultData(
-          resultData.getName(), ((ObjectResultData) resultData).getTypeName(), fields);
+    if (resultData instanceof LazyResultData.LazyObjectResultData) {
+      ObjectResultData objectResultData = (ObjectResultData) resultData;
+      return new LazyResultData.LazyObjectResultData(
+          resultData.getName(),
+          objectResultData.getTypeName(),
+          () -> anonymizedList(objectResultData.getFields(), objectResultData.getTypeName()));
+    } else if (resultData instanceof LazyResultData.LazyArrayResultData) {
+      return ((LazyResultData.LazyArrayResultData) resultData).map(this::resultDataItemValue);
+    } else if (resultData instanceof ResultData.ObjectResultData) {
+      ObjectResultData objectResultData = (ObjectResultData) resultData;
+      List<? extends ResultData> fields = objectResultData.getFields();
+      List<? extends ResultData> anonymizedFields =
+          anonymizedList(fields, objectResultData.getTypeName());
+      return anonymizedFields == fields
+          ? resultData
+          : new ResultData.ObjectResultData(
+              resultData.getName(), objectResultData.getTypeName(), anonymizedFields);
     } else if (resultData instanceof ResultData.ScalarResultData
         || resultData instanceof ResultData.NullResultData
-        || resultData instanceof ResultData.IntrospectionResultData) {
+        || resultData instanceof ResultData.IntrospectionResultData
+        || resultData instanceof ResultData.TruncatedResultData
+        || resultData instanceof ResultData.TimeoutResultData) {
       return resultData;
     } else if (resultData instanceof ResultData.ArrayResultData) {
-      return new ResultData.ArrayResultData(
-          resultData.getName(),
-          ((ArrayResultData) resultData).getItems().stream()
-              .map(this::resultDataItemValue)
-              .collect(Collectors.toList()));
+      List<? extends ResultData> items = ((ArrayResultData) resultData).getItems();
+      List<? extends ResultData> anonymizedItems = anonymizedList(items, NO_PARENT);
+      return anonymizedItems == items
+          ? resultData
+          : new ResultData.ArrayResultData(resultData.getName(), anonymizedItems);
     } else {
       throw new IllegalStateException(
           format(
@@ -65,6 +93,25 @@ public class AuditLogAnonymizer {
   }
 
   private ResultData resultDataItemValue(ResultData resultData) {
-    return resultDataItemValue(resultData, "uselessParentName");
+    return resultDataItemValue(resultData, NO_PARENT);
+  }
+
+  /**
+   * Anonymize every element, returning the same list instance when no element changed.
+   */
+  private List<? extends ResultData> anonymizedList(
+      List<? extends ResultData> resultData, String parentName) {
+    List<ResultData> anonymized = null;
+    for (int i = 0; i < resultData.size(); i++) {
+      ResultData item = resultData.get(i);
+      ResultData anonymizedItem = resultDataItemValue(item, parentName);
+      if (anonymized == null && anonymizedItem != item) {
+        anonymized = new ArrayList<>(resultData.subList(0, i));
+      }
+      if (anonymized != null) {
+        anonymized.add(anonymizedItem);
+      }
+    }
+    return anonymized == null ? resultData : anonymized;
   }
 }
@@ -0,0 +1,234 @@
+package pl.allegro.tech.graphql.auditlog;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Moves audit log work (item construction, anonymization and sending) off the GraphQL response
+ * path. Tasks are put on a bounded queue drained by a fixed pool of daemon worker threads; when
+ * the queue is full the configured {@link OverflowPolicy} decides what happens.
+ */
+public class AuditLogAsyncDispatcher implements AuditLogDispatcher, AutoCloseable {
+
+  private static final Logger logger = LoggerFactory.getLogger(AuditLogAsyncDispatcher.class);
+
+  private static final long POLL_INTERVAL_MILLIS = 100;
+
+  private final BlockingQueue<Runnable> queue;
+  private final OverflowPolicy overflowPolicy;
+  private final Duration blockTimeout;
+  private final List<Thread> workers;
+  private volatile boolean closed;
+  private volatile AuditLogMetrics metrics = AuditLogMetrics.noop();
+
+  private final LongAdder submitted = new LongAdder();
+  private final LongAdder completed = new LongAdder();
+  private final LongAdder failed = new LongAdder();
+  private final LongAdder droppedNewest = new LongAdder();
+  private final LongAdder droppedOldest = new LongAdder();
+  private final LongAdder timedOut = new LongAdder();
+  private final LongAdder callerRuns = new LongAdder();
+
+  /**
+   * Create dispatcher and start its workers.
+   *
+   * @param queueCapacity maximum number of pending audit log tasks
+   * @param workerThreads number of threads draining the queue
+   * @param overflowPolicy {@link OverflowPolicy} applied when the queue is full
+   * @param blockTimeout how long {@link OverflowPolicy#BLOCK_WITH_TIMEOUT} waits for free space
+   */
+  public AuditLogAsyncDispatcher(
+      int queueCapacity,
+      int workerThreads,
+      OverflowPolicy overflowPolicy,
+      Duration blockTimeout) {
+    checkArgument(queueCapacity > 0, "Queue capacity has to be positive.");
+    checkArgument(workerThreads > 0, "Number of worker threads has to be positive.");
+    this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    this.overflowPolicy = requireNonNull(overflowPolicy);
+    this.blockTimeout = requireNonNull(blockTimeout);
+    this.workers = new ArrayList<>(workerThreads);
+    ThreadFactory threadFactory = new ThreadFactoryBuilder()
+        .setNameFormat("audit-log-worker-%d")
+        .setDaemon(true)
+        .build();
+    for (int i = 0; i < workerThreads; i++) {
+      Thread worker = threadFactory.newThread(this::drain);
+      workers.add(worker);
+      worker.start();
+    }
+  }
+
+  @Override
+  public void dispatch(Runnable task) {
+    submitted.increment();
+    if (closed) {
+      runInCaller(task);
+      return;
+    }
+    enqueue(task);
+    if (closed) {
+      // close() may have drained the queue for the last time before the task got there
+      runRemaining();
+    }
+  }
+
+  private void enqueue(Runnable task) {
+    if (queue.offer(task)) {
+      return;
+    }
+    switch (overflowPolicy) {
+      case DROP_NEWEST:
+        droppedNewest.increment();
+        metrics.recordDropped();
+        break;
+      case DROP_OLDEST:
+        enqueueDroppingOldest(task);
+        break;
+      case BLOCK_WITH_TIMEOUT:
+        enqueueWithTimeout(task);
+        break;
+      case CALLER_RUNS:
+        runInCaller(task);
+        break;
+      default:
+        throw new IllegalStateException("Unknown overflow policy " + overflowPolicy);
+    }
+  }
+
+  private void enqueueDroppingOldest(Runnable task) {
+    while (!queue.offer(task)) {
+      if (queue.poll() != null) {
+        droppedOldest.increment();
+        metrics.recordDropped();
+      }
+    }
+  }
+
+  private void enqueueWithTimeout(Runnable task) {
+    try {
+      if (!queue.offer(task, blockTimeout.toNanos(), TimeUnit.NANOSECONDS)) {
+        timedOut.increment();
+        metrics.recordDropped();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      timedOut.increment();
+      metrics.recordDropped();
+    }
+  }
+
+  @Override
+  public void registerMetrics(AuditLogMetrics metrics) {
+    this.metrics = requireNonNull(metrics);
+    metrics.registerQueueDepth(queue::size);
+  }
+
+  private void runInCaller(Runnable task) {
+    callerRuns.increment();
+    run(task);
+  }
+
+  private void drain() {
+    while (!closed || !queue.isEmpty()) {
+      try {
+        Runnable task = queue.poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        if (task != null) {
+          run(task);
+        }
+      } catch (InterruptedException e) {
+        // workers stop only once closed with an empty queue
+      }
+    }
+  }
+
+  private void runRemaining() {
+    Runnable task;
+    while ((task = queue.poll()) != null) {
+      run(task);
+    }
+  }
+
+  private void run(Runnable task) {
+    try {
+      task.run();
+      completed.increment();
+    } catch (Exception e) {
+      failed.increment();
+      logger.error("Error on processing audit log task", e);
+    }
+  }
+
+  /**
+   * Stop accepting new tasks and wait until workers drain the queue. Tasks enqueued while closing
+   * are run on the closing thread, tasks dispatched after closing on the dispatching thread.
+   */
+  @Override
+  public void close() {
+    closed = true;
+    for (Thread worker : workers) {
+      try {
+        worker.join();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+    }
+    runRemaining();
+  }
+
+  public int queueSize() {
+    return queue.size();
+  }
+
+  public long submittedCount() {
+    return submitted.sum();
+  }
+
+  public long completedCount() {
+    return completed.sum();
+  }
+
+  public long failedCount() {
+    return failed.sum();
+  }
+
+  public long droppedNewestCount() {
+    return droppedNewest.sum();
+  }
+
+  public long droppedOldestCount() {
+    return droppedOldest.sum();
+  }
+
+  public long timedOutCount() {
+    return timedOut.sum();
+  }
+
+  public long callerRunsCount() {
+    return callerRuns.sum();
+  }
+
+  public enum OverflowPolicy {
+    /** Discard the task that did not fit into the queue. */
+    DROP_NEWEST,
+    /** Discard the oldest pending task to make room for the new one. */
+    DROP_OLDEST,
+    /** Wait up to the configured timeout for free space, then discard the task. */
+    BLOCK_WITH_TIMEOUT,
+    /** Run the task on the thread that completes the GraphQL request. */
+    CALLER_RUNS
+  }
+}
@@ -0,0 +1,144 @@
+package pl.allegro.tech.graphql.auditlog;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import graphql.execution.ResultPath;
+
+/**
+ * Bounds on the captured part of the execution result. Fields nested deeper than the maximum
+ * depth and list items past the maximum count are neither registered during execution nor
+ * converted into {@link pl.allegro.tech.graphql.auditlog.model.ResultData}. The node and byte
+ * budgets stop building the result data of an audit log item once spent. Omitted values are
+ * replaced by {@link pl.allegro.tech.graphql.auditlog.model.ResultData.TruncatedResultData}
+ * recording how many fields or items were left out.
+ */
+public class AuditLogCaptureLimits {
+
+  private int maxDepth = Integer.MAX_VALUE;
+  private int maxListItems = Integer.MAX_VALUE;
+  private long maxNodes = Long.MAX_VALUE;
+  private long maxBytes = Long.MAX_VALUE;
+
+  private AuditLogCaptureLimits() {}
+
+  /**
+   * Capture the whole execution result.
+   *
+   * @return {@link AuditLogCaptureLimits}
+   */
+  public static AuditLogCaptureLimits unlimited() {
+    return new AuditLogCaptureLimits();
+  }
+
+  /**
+   * Capture fields nested at most the given number of levels, root fields being at level 1.
+   * Deeper objects and lists are replaced by truncation markers.
+   *
+   * @param maxDepth maximum depth of captured fields
+   * @return {@link AuditLogCaptureLimits}
+   */
+  public AuditLogCaptureLimits withMaxDepth(int maxDepth) {
+    checkArgument(maxDepth > 0, "Max depth has to be positive.");
+    this.maxDepth = maxDepth;
+    return this;
+  }
+
+  /**
+   * Capture at most the given number of items of every list.
+   *
+   * @param maxListItems maximum number of captured items per list
+   * @return {@link AuditLogCaptureLimits}
+   */
+  public AuditLogCaptureLimits withMaxListItems(int maxListItems) {
+    checkArgument(maxListItems >= 0, "Max list items can't be negative.");
+    this.maxListItems = maxListItems;
+    return this;
+  }
+
+  /**
+   * Stop building result data of an audit log item after the given number of nodes.
+   *
+   * @param maxNodes maximum number of result data nodes per item
+   * @return {@link AuditLogCaptureLimits}
+   */
+  public AuditLogCaptureLimits withMaxNodes(long maxNodes) {
+    checkArgument(maxNodes > 0, "Max nodes has to be positive.");
+    this.maxNodes = maxNodes;
+    return this;
+  }
+
+  /**
+   * Stop building result data of an audit log item after the given estimated size, see
+   * {@link AuditLogItemSizeEstimator}.
+   *
+   * @param maxBytes maximum estimated size of result data per item
+   * @return {@link AuditLogCaptureLimits}
+   */
+  public AuditLogCaptureLimits withMaxBytes(long maxBytes) {
+    checkArgument(maxBytes > 0, "Max bytes has to be positive.");
+    this.maxBytes = maxBytes;
+    return this;
+  }
+
+  int maxDepth() {
+    return maxDepth;
+  }
+
+  int maxListItems() {
+    return maxListItems;
+  }
+
+  boolean isUnlimited() {
+    return maxDepth == Integer.MAX_VALUE && maxListItems == Integer.MAX_VALUE
+        && maxNodes == Long.MAX_VALUE && maxBytes == Long.MAX_VALUE;
+  }
+
+  /**
+   * Whether the value at the path is within the depth and list item limits.
+   */
+  boolean isCaptured(ResultPath path) {
+    if (maxDepth == Integer.MAX_VALUE && maxListItems == Integer.MAX_VALUE) {
+      return true;
+    }
+    int depth = 0;
+    for (ResultPath current = path; !current.isRootPath(); current = current.getParent()) {
+      if (!current.isListSegment()) {
+        depth++;
+      } else if (current.getSegmentIndex() >= maxListItems) {
+        return false;
+      }
+    }
+    return depth <= maxDepth;
+  }
+
+  Budget budget() {
+    return new Budget(maxNodes, maxBytes);
+  }
+
+  /**
+   * Nodes and bytes left for the result data of a single audit log item.
+   */
+  static class Budget {
+
+    private long nodes;
+    private long bytes;
+
+    private Budget(long nodes, long bytes) {
+      this.nodes = nodes;
+      this.bytes = bytes;
+    }
+
+    static Budget unlimited() {
+      return new Budget(Long.MAX_VALUE, Long.MAX_VALUE);
+    }
+
+    boolean isExhausted() {
+      return nodes <= 0 || bytes <= 0;
+    }
+
+    void consume(long size) {
+      nodes--;
+      bytes -= size;
+    }
+  }
+}
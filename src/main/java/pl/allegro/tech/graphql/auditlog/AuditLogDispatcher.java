@@ -0,0 +1,16 @@
+package pl.allegro.tech.graphql.auditlog;
+
+interface AuditLogDispatcher {
+
+  void dispatch(Runnable task);
+
+  /**
+   * Report queue depth and dropped tasks to the instrumentation's metrics.
+   */
+  default void registerMetrics(AuditLogMetrics metrics) {
+  }
+
+  static AuditLogDispatcher direct() {
+    return Runnable::run;
+  }
+}
@@ -10,33 +10,27 @@ import graphql.execution.FetchedValue;
 import graphql.execution.instrumentation.InstrumentationContext;
 import graphql.execution.instrumentation.InstrumentationState;
 import graphql.execution.instrumentation.SimpleInstrumentation;
+import graphql.execution.instrumentation.SimpleInstrumentationContext;
 import graphql.execution.instrumentation.parameters.InstrumentationCreateStateParameters;
+import graphql.execution.instrumentation.parameters.InstrumentationExecuteOperationParameters;
 import graphql.execution.instrumentation.parameters.InstrumentationExecutionParameters;
 import graphql.execution.instrumentation.parameters.InstrumentationFieldCompleteParameters;
 import graphql.execution.instrumentation.parameters.InstrumentationFieldFetchParameters;
-import graphql.language.Argument;
-import graphql.language.BooleanValue;
-import graphql.language.EnumValue;
-import graphql.language.IntValue;
-import graphql.language.StringValue;
-import graphql.language.Value;
-import graphql.language.VariableReference;
 import graphql.schema.DataFetcher;
-import io.vavr.collection.LinkedHashMap;
-import io.vavr.control.Option;
 import java.time.Clock;
-import java.util.ArrayList;
+import java.time.Instant;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import pl.allegro.tech.graphql.auditlog.AuditLogItem.OperationType;
+import pl.allegro.tech.graphql.auditlog.AuditLogMetrics.Stage;
+import pl.allegro.tech.graphql.auditlog.AuditLogResultDataAssembler.AssembledResultData;
 import pl.allegro.tech.graphql.auditlog.model.ResultData;
 import pl.allegro.tech.graphql.auditlog.model.UserId;
 
@@ -49,8 +43,17 @@ public class AuditLogInstrumentation extends SimpleInstrumentation {
   private final AuditLogSender actionLogSender;
   private final AuditLogAdditionalFieldFetcher
       actionLogAdditionalFieldFetcher;
+  private final AdditionalFieldFetchOptions additionalFieldFetchOptions;
   private final AuditLogAnonymizer actionLogAnonymizer;
   private final UserProvider userProvider;
+  private final AuditLogDispatcher auditLogDispatcher;
+  private final AuditLogSamplingPolicy samplingPolicy;
+  private final AuditLogOperationFilter operationFilter;
+  private final AuditLogCaptureLimits captureLimits;
+  private final AuditLogResultDataAssembler resultDataAssembler;
+  private final boolean lazyResultData;
+  private final AuditLogMetrics metrics;
+  private final boolean timed;
 
   public AuditLogInstrumentation(
       Clock clock,
@@ -58,24 +61,97 @@ public class AuditLogInstrumentation extends SimpleInstrumentation {
       UserProvider userProvider,
       AuditLogAnonymizer actionLogAnonymizer,
       AuditLogAdditionalFieldFetcher actionLogAdditionalFieldFetcher
+  ) {
+    this(
+        clock,
+        actionLogSender,
+        userProvider,
+        actionLogAnonymizer,
+        actionLogAdditionalFieldFetcher,
+        AdditionalFieldFetchOptions.direct(),
+        AuditLogDispatcher.direct(),
+        AuditLogSamplingPolicy.always(),
+        AuditLogOperationFilter.allOperations(),
+        false,
+        false,
+        AuditLogCaptureLimits.unlimited(),
+        AuditLogMetrics.noop());
+  }
+
+  AuditLogInstrumentation(
+      Clock clock,
+      AuditLogSender actionLogSender,
+      UserProvider userProvider,
+      AuditLogAnonymizer actionLogAnonymizer,
+      AuditLogAdditionalFieldFetcher actionLogAdditionalFieldFetcher,
+      AdditionalFieldFetchOptions additionalFieldFetchOptions,
+      AuditLogDispatcher auditLogDispatcher,
+      AuditLogSamplingPolicy samplingPolicy,
+      AuditLogOperationFilter operationFilter,
+      boolean singlePassAnonymization,
+      boolean lazyResultData,
+      AuditLogCaptureLimits captureLimits,
+      AuditLogMetrics metrics
   ) {
     this.clock = requireNonNull(clock);
     this.actionLogSender = requireNonNull(actionLogSender);
     this.userProvider = requireNonNull(userProvider);
     this.actionLogAdditionalFieldFetcher = requireNonNull(actionLogAdditionalFieldFetcher);
+    this.additionalFieldFetchOptions = requireNonNull(additionalFieldFetchOptions);
     this.actionLogAnonymizer = requireNonNull(actionLogAnonymizer);
+    this.auditLogDispatcher = requireNonNull(auditLogDispatcher);
+    this.samplingPolicy = requireNonNull(samplingPolicy);
+    this.operationFilter = requireNonNull(operationFilter);
+    this.captureLimits = requireNonNull(captureLimits);
+    this.resultDataAssembler = resultDataAssembler(
+        actionLogAnonymizer, singlePassAnonymization, lazyResultData, captureLimits);
+    this.lazyResultData = lazyResultData;
+    this.metrics = requireNonNull(metrics);
+    this.timed = metrics != AuditLogMetrics.noop();
+    auditLogDispatcher.registerMetrics(metrics);
+  }
+
+  private static AuditLogResultDataAssembler resultDataAssembler(
+      AuditLogAnonymizer anonymizer,
+      boolean singlePassAnonymization,
+      boolean lazyResultData,
+      AuditLogCaptureLimits captureLimits) {
+    AuditLogResultDataAssembler assembler;
+    if (lazyResultData) {
+      assembler = AuditLogResultDataAssembler.lazy();
+    } else if (singlePassAnonymization) {
+      assembler = AuditLogResultDataAssembler.withAnonymized(anonymizer);
+    } else {
+      assembler = AuditLogResultDataAssembler.raw();
+    }
+    return captureLimits.isUnlimited() ? assembler : assembler.withCaptureLimits(captureLimits);
   }
 
   @Override
   public InstrumentationState createState(InstrumentationCreateStateParameters parameters) {
-    return new AuditLogInstrumentationState();
+    try {
+      if (!samplingPolicy.shouldSample(parameters.getExecutionInput())) {
+        return AuditLogInstrumentationState.DISABLED;
+      }
+    } catch (Exception e) {
+      logger.error("Error on sampling audit log", e);
+    }
+    return additionalFieldFetchOptions.hasRequestTimeout()
+        ? new AuditLogInstrumentationState(System.nanoTime())
+        : new AuditLogInstrumentationState();
+  }
+
+  private static boolean isEnabled(InstrumentationState instrumentationState) {
+    return ((AuditLogInstrumentationState) instrumentationState).isEnabled();
   }
 
   @Override
   public ExecutionInput instrumentExecutionInput(
       ExecutionInput executionInput, InstrumentationExecutionParameters parameters) {
-    registerVariablesInState(executionInput, parameters);
-    return super.instrumentExecutionInput(executionInput, parameters);
+    if (isEnabled(parameters.getInstrumentationState())) {
+      registerVariablesInState(executionInput, parameters);
+    }
+    return executionInput;
   }
 
   private void registerVariablesInState(
@@ -83,135 +159,168 @@ public class AuditLogInstrumentation extends SimpleInstrumentation {
     try {
       AuditLogInstrumentationState instrumentationState = parameters.getInstrumentationState();
       instrumentationState.registerVariables(executionInput.getVariables());
+      if (additionalFieldFetchOptions.hasBatchLoaders()) {
+        instrumentationState.registerDataLoaderRegistry(executionInput.getDataLoaderRegistry());
+      }
     } catch (Exception e) {
       logger.error("Error on collecting audit log", e);
     }
   }
 
+  @Override
+  public InstrumentationContext<ExecutionResult> beginExecuteOperation(
+      InstrumentationExecuteOperationParameters parameters) {
+    AuditLogInstrumentationState instrumentationState = parameters.getInstrumentationState();
+    if (instrumentationState.isEnabled()) {
+      classifyOperation(parameters, instrumentationState);
+    }
+    return SimpleInstrumentationContext.noOp();
+  }
+
+  private void classifyOperation(
+      InstrumentationExecuteOperationParameters parameters,
+      AuditLogInstrumentationState instrumentationState) {
+    try {
+      if (!operationFilter.shouldAudit(
+          parameters.getExecutionContext().getOperationDefinition())) {
+        instrumentationState.disable();
+      }
+    } catch (Exception e) {
+      logger.error("Error on classifying operation for audit log", e);
+    }
+  }
+
   @Override
   public DataFetcher<?> instrumentDataFetcher(
       DataFetcher<?> dataFetcher, InstrumentationFieldFetchParameters parameters) {
-    registerActionInState(parameters);
+    if (isEnabled(parameters.getInstrumentationState())) {
+      registerActionInState(parameters);
+    }
     return dataFetcher;
   }
 
   private void registerActionInState(InstrumentationFieldFetchParameters parameters) {
+    long startTime = startTime();
     try {
       AuditLogInstrumentationState instrumentationState = parameters.getInstrumentationState();
       String outputType =
           InstrumentationUtil.extractObjectTypeFromFieldParameters(parameters).getName();
       String actionName = parameters.getField().getName();
       if (outputType.equals("Query") || outputType.equals("Mutation")) {
-        Map<String, Object> variables = instrumentationState.registeredVariables();
-        Map<String, Object> arguments =
-            parameters.getEnvironment().getMergedField().getSingleField().getArguments().stream()
-                .collect(
-                    Collectors.toMap(
-                        Argument::getName, argument -> argumentValue(argument, variables)));
+        Map<String, Object> arguments = OperationArguments.of(
+            parameters.getEnvironment().getMergedField().getSingleField(),
+            instrumentationState.registeredVariables(),
+            parameters.getExecutionContext().getOperationDefinition());
         OperationType operationType = OperationType.valueOf(outputType.toUpperCase());
         instrumentationState.registerAction(operationType, actionName, arguments);
       }
+      recordLatency(Stage.REGISTER_ACTION, startTime);
     } catch (Exception e) {
+      metrics.recordError(Stage.REGISTER_ACTION);
       logger.error("Error on collecting action log", e);
     }
   }
 
-  private Object argumentValue(Argument argument, Map<String, Object> variables) {
-    return extractNativeValue(argument.getValue(), variables)
-        .orElseGet(Optional::empty);
-  }
-
-  private Optional<Object> extractNativeValue(Value value, Map<String, Object> variables) {
-    if (value instanceof StringValue) {
-      return Optional.of(((StringValue) value).getValue());
-    } else if (value instanceof EnumValue) {
-      return Optional.of(((EnumValue) value).getName());
-    } else if (value instanceof IntValue) {
-      return Optional.of(((IntValue) value).getValue());
-    } else if (value instanceof BooleanValue) {
-      return Optional.of(((BooleanValue) value).isValue());
-    } else if (value instanceof VariableReference) {
-      String variableName = ((VariableReference) value).getName();
-      if (variables.containsKey(variableName) && variables.get(variableName) == null) {
-        return Optional.empty();
-      } else if (Optional.ofNullable(variables.get(variableName)).isPresent()) {
-        return Optional.of(variables.get(variableName));
-      } else {
-        throw new IllegalStateException(format("Can't find variable with name %s", variableName));
-      }
-    } else {
-      logger.info(format("Unknown value type %s for name", value.getClass().getName()));
-      return Optional.of(value);
-    }
-  }
-
   @Override
   public InstrumentationContext<ExecutionResult> beginFieldComplete(
       InstrumentationFieldCompleteParameters parameters) {
-    registerAdditionalField(parameters);
-    registerTypeForPathInState(parameters);
-    return super.beginFieldComplete(parameters);
+    if (isEnabled(parameters.getInstrumentationState()) && isCaptured(parameters)) {
+      registerAdditionalField(parameters);
+      registerTypeForPathInState(parameters);
+    }
+    return SimpleInstrumentationContext.noOp();
+  }
+
+  private boolean isCaptured(InstrumentationFieldCompleteParameters parameters) {
+    return captureLimits.isCaptured(parameters.getExecutionStepInfo().getPath());
   }
 
   private void registerAdditionalField(InstrumentationFieldCompleteParameters parameters) {
-    actionLogAdditionalFieldFetcher
-        .objectAdditionalFields(parameters)
-        .forEach(
-            additionalField -> {
-              AuditLogInstrumentationState
-                  instrumentationState =
-                  parameters.getInstrumentationState();
-              instrumentationState.registerAdditionalField(
-                  additionalField.path(), additionalField.resultData());
-            });
+    long startTime = startTime();
+    try {
+      AuditLogInstrumentationState instrumentationState = parameters.getInstrumentationState();
+      actionLogAdditionalFieldFetcher
+          .objectAdditionalFields(parameters, additionalFieldFetchOptions, instrumentationState)
+          .forEach(
+              additionalField -> instrumentationState.registerAdditionalField(
+                  additionalField.path(), additionalField.resultData()));
+    } catch (RuntimeException e) {
+      metrics.recordError(Stage.REGISTER_ADDITIONAL_FIELD);
+      throw e;
+    }
+    recordLatency(Stage.REGISTER_ADDITIONAL_FIELD, startTime);
   }
 
   private void registerTypeForPathInState(InstrumentationFieldCompleteParameters parameters) {
+    long startTime = startTime();
     try {
       String originalFieldName = parameters.getField().getName();
       Object fetchedValue = ((FetchedValue) parameters.getFetchedValue()).getFetchedValue();
-      Optional<String> typeName =
-          Optional.ofNullable(fetchedValue)
-              .map(it -> it.getClass().getSimpleName());
-      List<String> path =
-          parameters.getExecutionStepInfo().getPath().toList().stream()
-              .map(Object::toString)
-              .collect(Collectors.toList());
       AuditLogInstrumentationState instrumentationState = parameters.getInstrumentationState();
-      instrumentationState.registerTypeForPath(path, typeName);
-      instrumentationState.registerOriginalFieldName(path, originalFieldName);
+      instrumentationState.registerField(
+          parameters.getExecutionStepInfo().getPath(), typeName(fetchedValue), originalFieldName);
+      recordLatency(Stage.REGISTER_TYPE, startTime);
     } catch (Exception e) {
+      metrics.recordError(Stage.REGISTER_TYPE);
       logger.error("Error on collecting action log", e);
     }
   }
 
+  private String typeName(Object value) {
+    return value == null ? "null" : value.getClass().getSimpleName();
+  }
+
   @Override
   public InstrumentationContext<ExecutionResult> beginFieldListComplete(
       InstrumentationFieldCompleteParameters parameters) {
-    registerArrayItemTypesForPathInState(parameters);
-    return super.beginFieldListComplete(parameters);
+    if (isEnabled(parameters.getInstrumentationState()) && isCaptured(parameters)) {
+      registerListItemAdditionalFields(parameters);
+      registerArrayItemTypesForPathInState(parameters);
+    }
+    return SimpleInstrumentationContext.noOp();
   }
 
-  private void registerArrayItemTypesForPathInState(
+  private void registerListItemAdditionalFields(
       InstrumentationFieldCompleteParameters parameters) {
+    long startTime = startTime();
     try {
       AuditLogInstrumentationState instrumentationState = parameters.getInstrumentationState();
-      List<String> path =
-          parameters.getExecutionStepInfo().getPath().toList().stream()
-              .map(Object::toString)
-              .collect(Collectors.toList());
-      List<Object> fetchedValues =
-          new ArrayList<>((Collection<Object>) parameters.getFetchedValue());
-      IntStream.range(0, fetchedValues.size())
+      actionLogAdditionalFieldFetcher
+          .listItemAdditionalFields(
+              parameters,
+              (Iterable<?>) parameters.getFetchedValue(),
+              captureLimits.maxListItems(),
+              additionalFieldFetchOptions,
+              instrumentationState)
           .forEach(
-              i -> {
-                Optional<String> typeName =
-                    Optional.ofNullable(fetchedValues.get(i))
-                        .map(it -> it.getClass().getSimpleName());
-                instrumentationState.registerTypeForPath(
-                    addToList(path, String.valueOf(i)), typeName);
-              });
+              additionalField -> instrumentationState.registerAdditionalField(
+                  additionalField.path(), additionalField.resultData()));
+    } catch (RuntimeException e) {
+      metrics.recordError(Stage.REGISTER_ADDITIONAL_FIELD);
+      throw e;
+    }
+    recordLatency(Stage.REGISTER_ADDITIONAL_FIELD, startTime);
+  }
+
+  private void registerArrayItemTypesForPathInState(
+      InstrumentationFieldCompleteParameters parameters) {
+    long startTime = startTime();
+    try {
+      AuditLogInstrumentationState instrumentationState = parameters.getInstrumentationState();
+      Collection<Object> fetchedValues = (Collection<Object>) parameters.getFetchedValue();
+      int captured = Math.min(fetchedValues.size(), captureLimits.maxListItems());
+      PathNode arrayNode = instrumentationState.registerArray(
+          parameters.getExecutionStepInfo().getPath(), captured);
+      int index = 0;
+      for (Object fetchedValue : fetchedValues) {
+        if (index == captured) {
+          break;
+        }
+        arrayNode.itemForWrite(index++).registerTypeName(typeName(fetchedValue));
+      }
+      recordLatency(Stage.REGISTER_TYPE, startTime);
     } catch (Exception e) {
+      metrics.recordError(Stage.REGISTER_TYPE);
       logger.error("Error on collecting action log", e);
     }
   }
@@ -219,147 +328,177 @@ public class AuditLogInstrumentation extends SimpleInstrumentation {
   @Override
   public CompletableFuture<ExecutionResult> instrumentExecutionResult(
       ExecutionResult executionResult, InstrumentationExecutionParameters parameters) {
-    sendAuditLog(executionResult, parameters);
+    if (isEnabled(parameters.getInstrumentationState())) {
+      sendAuditLog(executionResult, parameters);
+    }
     return CompletableFuture.completedFuture(executionResult);
   }
 
   private void sendAuditLog(
       ExecutionResult executionResult, InstrumentationExecutionParameters parameters) {
     try {
-      AuditLogItem actionLogItem = createActionLogItem(executionResult, parameters);
-      actionLogSender.send(actionLogItem);
-      AuditLogItem anonymizedActionLog = actionLogAnonymizer.anonymizeActionLogItem(actionLogItem);
-      actionLogSender.sendAnonymized(anonymizedActionLog);
+      // user context is usually bound to the request thread, so it has to be resolved here
+      UserId user = userProvider.currentUser();
+      Instant executionDate = clock.instant();
+      AuditLogInstrumentationState instrumentationState = parameters.getInstrumentationState();
+      // no more sources are collected, batches not dispatched with the data loader registry go now
+      instrumentationState.dispatchAdditionalFieldBatches();
+      // the item is dispatched once the last additional field resolves, so no thread waits for it
+      // and its assembly still runs on the dispatcher, whichever thread resolved the field
+      instrumentationState.additionalFieldsCompleted()
+          .whenComplete((ignored, additionalFieldError) -> dispatchAuditLog(
+              () -> sendAuditLog(
+                  executionResult, parameters, user, executionDate, additionalFieldError),
+              parameters));
     } catch (Exception e) {
+      metrics.recordError(Stage.DISPATCH);
       logger.error(
-          format(
-              "Error on collecting action log for query %s with variables %s returned result %s",
-              parameters.getQuery(),
-              parameters.getVariables(),
-              executionResult.toString()),
-          e);
+          format("Error on dispatching action log for query %s", parameters.getQuery()), e);
     }
   }
 
-  private AuditLogItem createActionLogItem(
+  private void sendAuditLog(
       ExecutionResult executionResult,
-      InstrumentationExecutionParameters parameters) {
-    Object outputData = executionResult.getData();
-    List<Map<String, Object>> errors = executionResult.getErrors().stream()
-        .map(GraphQLError::toSpecification)
-        .collect(Collectors.toList());
-    AuditLogInstrumentationState instrumentationState = parameters.getInstrumentationState();
-    UserId user = userProvider.currentUser();
-    return new AuditLogItem(
-        UUID.randomUUID().toString(),
-        instrumentationState.getOperations(),
-        rootResultData(outputData, instrumentationState),
-        errors,
-        user,
-        clock.instant()
-    );
+      InstrumentationExecutionParameters parameters,
+      UserId user,
+      Instant executionDate,
+      Throwable additionalFieldError) {
+    // errors are counted by the failing stage and rethrown, so that the dispatcher counts the
+    // task as failed
+    if (additionalFieldError != null) {
+      metrics.recordError(Stage.REGISTER_ADDITIONAL_FIELD);
+      throw new CollectingException(executionResult, parameters, additionalFieldError);
+    }
+    try {
+      sendActionLogItems(
+          executionResult, parameters.getInstrumentationState(), user, executionDate);
+    } catch (RuntimeException e) {
+      throw new CollectingException(executionResult, parameters, e);
+    }
   }
 
-  private List<ResultData> rootResultData(
-      Object outputData, AuditLogInstrumentationState instrumentationState) {
-    return resultData(outputData, List.of(), instrumentationState);
+  /**
+   * Hand the task over to the dispatcher. Its latency ends when the dispatcher returns or starts
+   * the task, whichever comes first, so a dispatcher running tasks in place does not count their
+   * assembly and sending.
+   */
+  private void dispatchAuditLog(Runnable task, InstrumentationExecutionParameters parameters) {
+    long startTime = startTime();
+    AtomicBoolean handedOver = new AtomicBoolean();
+    Runnable recordHandOver = () -> {
+      if (handedOver.compareAndSet(false, true)) {
+        recordLatency(Stage.DISPATCH, startTime);
+      }
+    };
+    try {
+      auditLogDispatcher.dispatch(() -> {
+        recordHandOver.run();
+        task.run();
+      });
+      recordHandOver.run();
+    } catch (CollectingException e) {
+      // thrown by the task run in place, it is already counted by the stage that failed
+      logger.error(e.getMessage(), e.getCause());
+    } catch (Exception e) {
+      metrics.recordError(Stage.DISPATCH);
+      logger.error(
+          format("Error on dispatching action log for query %s", parameters.getQuery()), e);
+    }
   }
 
-  private List<ResultData> resultData(
-      Object outputData, List<String> path, AuditLogInstrumentationState instrumentationState) {
-    if (outputData == null) {
-      return List.of();
-    } else if (outputData instanceof Map) {
-      return LinkedHashMap.ofAll((Map<String, Object>) outputData)
-          .mapKeys(it -> addToList(path, it))
-          .flatMap(it -> createResultDataFor(instrumentationState, it._1, it._2))
-          .toJavaList();
-    } else {
-      throw new IllegalStateException(
-          format(
-              "Can't handle %s type in output data type", outputData.getClass().getSimpleName()));
+  private void sendActionLogItems(
+      ExecutionResult executionResult,
+      AuditLogInstrumentationState instrumentationState,
+      UserId user,
+      Instant executionDate) {
+    Stage stage = Stage.ASSEMBLE;
+    long startTime = startTime();
+    try {
+      AssembledResultData resultData =
+          resultDataAssembler.assemble(executionResult.getData(), instrumentationState.root());
+      AuditLogItem actionLogItem = createActionLogItem(
+          executionResult, instrumentationState, resultData.raw(), user, executionDate);
+      startTime = recordLatency(stage, startTime);
+      stage = Stage.SEND;
+      actionLogSender.send(actionLogItem);
+      startTime = recordLatency(stage, startTime);
+      stage = Stage.ANONYMIZE;
+      AuditLogItem anonymizedActionLog = resultData.anonymized() == null
+          ? actionLogAnonymizer.anonymizeActionLogItem(actionLogItem)
+          : actionLogAnonymizer.anonymizedActionLogItem(actionLogItem, resultData.anonymized());
+      startTime = recordLatency(stage, startTime);
+      stage = Stage.SEND;
+      actionLogSender.sendAnonymized(anonymizedActionLog);
+      recordLatency(stage, startTime);
+      recordItem(actionLogItem);
+    } catch (RuntimeException e) {
+      metrics.recordError(stage);
+      throw e;
     }
   }
 
-  private Option<ResultData> createResultDataFor(
-      AuditLogInstrumentationState instrumentationState,
-      List<String> itemPath,
-      Object itemValue) {
-    String fieldName = fieldNameForPath(itemPath, instrumentationState);
-    if (isMetadataField(fieldName)) {
-      if (itemPath.size() <= 1) {
-        String typeName = typeNameForPath(itemPath, instrumentationState);
-        return Option.of(new ResultData.IntrospectionResultData(fieldName, typeName));
-      }
-      return Option.none();
+  private void recordItem(AuditLogItem auditLogItem) {
+    // counting nodes of lazy result data would convert the whole execution result
+    if (timed && !lazyResultData) {
+      metrics.recordItem(
+          AuditLogItemSizeEstimator.nodeCount(auditLogItem.resultData()),
+          AuditLogItemSizeEstimator.estimate(auditLogItem));
     }
-    return Option.of(
-        resultDataItemValue(
-            fieldName,
-            itemValue,
-            itemPath,
-            instrumentationState));
   }
 
-  private boolean isMetadataField(String fieldName) {
-    return fieldName.startsWith("__");
+  private long startTime() {
+    return timed ? System.nanoTime() : 0;
   }
 
-  private ResultData resultDataItemValue(
-      String name,
-      Object value,
-      List<String> path,
-      AuditLogInstrumentationState instrumentationState) {
-    if (value == null) {
-      return new ResultData.NullResultData(name);
-    } else if (value instanceof Map) {
-      String typeName = typeNameForPath(path, instrumentationState);
-      List<ResultData> fields = resultData(value, path, instrumentationState);
-      List<ResultData> additionalFields =
-          instrumentationState.getAdditionalFields(path).stream()
-              .map(CompletableFuture::join) // blocking operation!
-              .collect(Collectors.toList());
-      List<ResultData> allFields =
-          io.vavr.collection.List.ofAll(fields).appendAll(additionalFields).toJavaList();
-      return new ResultData.ObjectResultData(name, typeName, allFields);
-    } else if (value instanceof String) {
-      String typeName = typeNameForPath(path, instrumentationState);
-      return new ResultData.ScalarResultData(name, typeName, (String) value);
-    } else if (value instanceof Boolean || value instanceof Integer || value instanceof Float) {
-      String typeName = typeNameForPath(path, instrumentationState);
-      return new ResultData.ScalarResultData(name, typeName, String.valueOf(value));
-    } else if (value instanceof List) {
-      List<Object> listValue = (List<Object>) value;
-      List<ResultData> items =
-          IntStream.range(0, listValue.size())
-              .mapToObj(
-                  i -> {
-                    List<String> itemPath = addToList(path, Integer.toString(i));
-                    return resultDataItemValue(
-                        String.valueOf(i), listValue.get(i), itemPath, instrumentationState);
-                  })
-              .collect(Collectors.toList());
-      return new ResultData.ArrayResultData(name, items);
-    } else {
-      throw new IllegalStateException(
-          format(
-              "Can't handle %s type in output data type", value.getClass().getSimpleName()));
+  /**
+   * Record latency of the stage when metrics are enabled.
+   *
+   * @return start time of the next stage
+   */
+  private long recordLatency(Stage stage, long startTime) {
+    if (!timed) {
+      return 0;
     }
+    long now = System.nanoTime();
+    metrics.recordLatency(stage, now - startTime);
+    return now;
   }
 
-  private List<String> addToList(List<String> oldList, String element) {
-    ArrayList<String> list = new ArrayList<>(oldList);
-    list.add(element);
-    return list;
+  private AuditLogItem createActionLogItem(
+      ExecutionResult executionResult,
+      AuditLogInstrumentationState instrumentationState,
+      List<ResultData> resultData,
+      UserId user,
+      Instant executionDate) {
+    List<Map<String, Object>> errors = executionResult.getErrors().stream()
+        .map(GraphQLError::toSpecification)
+        .collect(Collectors.toList());
+    return new AuditLogItem(
+        UUID.randomUUID().toString(),
+        instrumentationState.getOperations(),
+        resultData,
+        errors,
+        user,
+        executionDate
+    );
   }
 
-  private String typeNameForPath(
-      List<String> path, AuditLogInstrumentationState instrumentationState) {
-    return instrumentationState.getTypeName(path);
-  }
+  /**
+   * Failure of an audit log task, after handing it over to the dispatcher.
+   */
+  private static class CollectingException extends IllegalStateException {
 
-  private String fieldNameForPath(
-      List<String> path, AuditLogInstrumentationState instrumentationState) {
-    return instrumentationState.getOriginalFieldName(path);
+    CollectingException(
+        ExecutionResult executionResult,
+        InstrumentationExecutionParameters parameters,
+        Throwable cause) {
+      super(
+          format(
+              "Error on collecting action log for query %s with variables %s returned result %s",
+              parameters.getQuery(),
+              parameters.getVariables(),
+              executionResult.toString()),
+          cause);
+    }
   }
 }
@@ -1,6 +1,12 @@
 package pl.allegro.tech.graphql.auditlog;
 
+import graphql.schema.GraphQLSchema;
 import java.time.Clock;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
 
 public class AuditLogInstrumentationBuilder {
 
@@ -16,6 +22,20 @@ public class AuditLogInstrumentationBuilder {
   private AuditLogAdditionalFieldFetcher auditLogAdditionalFieldFetcher =
       new AuditLogAdditionalFieldFetcher(new DefaultAdditionalFieldsSetupPreconditions(
           JsonUtil.jsonFieldSetups(ADDITIONAL_FIELDS_CONFIG_FILE)));
+  private GraphQLSchema schema;
+  private Executor additionalFieldExecutor;
+  private Duration additionalFieldTimeout;
+  private Duration additionalFieldRequestTimeout;
+  private final Map<String, Map<String, AuditLogAdditionalFieldBatchLoader>>
+      additionalFieldBatchLoaders = new HashMap<>();
+  private Function<Object, Object> additionalFieldMemoKeyExtractor;
+  private AuditLogDispatcher auditLogDispatcher = AuditLogDispatcher.direct();
+  private AuditLogSamplingPolicy samplingPolicy = AuditLogSamplingPolicy.always();
+  private AuditLogOperationFilter operationFilter = AuditLogOperationFilter.allOperations();
+  private boolean singlePassAnonymization = false;
+  private boolean lazyResultData = false;
+  private AuditLogCaptureLimits captureLimits = AuditLogCaptureLimits.unlimited();
+  private AuditLogMetrics metrics = AuditLogMetrics.noop();
 
   public AuditLogInstrumentationBuilder() {
   }
@@ -91,6 +111,196 @@ public class AuditLogInstrumentationBuilder {
     return this;
   }
 
+  /**
+   * Run data fetchers of additional fields on the executor, so GraphQL execution continues while
+   * they are fetched. Results are joined when the audit log item is assembled. By default a
+   * virtual thread is started per fetch on runtimes supporting them, otherwise fetchers run on
+   * the execution thread. Data fetchers relying on thread bound context need an executor
+   * propagating it.
+   *
+   * @param additionalFieldExecutor {@link Executor}
+   * @return {@link AuditLogInstrumentationBuilder}
+   */
+  public AuditLogInstrumentationBuilder withAdditionalFieldExecutor(
+      Executor additionalFieldExecutor) {
+    this.additionalFieldExecutor = additionalFieldExecutor;
+    return this;
+  }
+
+  /**
+   * Replace additional fields which are not fetched within the timeout with a
+   * {@link pl.allegro.tech.graphql.auditlog.model.ResultData.TimeoutResultData} marker. Data
+   * fetchers running on an {@link java.util.concurrent.ExecutorService} are interrupted, on other
+   * executors they keep running and only the audit log item stops waiting for them.
+   *
+   * @param additionalFieldTimeout maximum time of a single additional field fetch
+   * @return {@link AuditLogInstrumentationBuilder}
+   */
+  public AuditLogInstrumentationBuilder withAdditionalFieldTimeout(
+      Duration additionalFieldTimeout) {
+    this.additionalFieldTimeout = additionalFieldTimeout;
+    return this;
+  }
+
+  /**
+   * Replace additional fields which are not fetched within the timeout since the request started
+   * with a {@link pl.allegro.tech.graphql.auditlog.model.ResultData.TimeoutResultData} marker.
+   * Timed out data fetchers are interrupted as with {@link #withAdditionalFieldTimeout}.
+   *
+   * @param additionalFieldRequestTimeout maximum time until all additional fields of a request
+   *     are fetched
+   * @return {@link AuditLogInstrumentationBuilder}
+   */
+  public AuditLogInstrumentationBuilder withAdditionalFieldRequestTimeout(
+      Duration additionalFieldRequestTimeout) {
+    this.additionalFieldRequestTimeout = additionalFieldRequestTimeout;
+    return this;
+  }
+
+  /**
+   * Load the additional field of all objects of a request with one batch loader call instead of
+   * calling the field's data fetcher once per object. When the request has its own
+   * {@link org.dataloader.DataLoaderRegistry} the batch is dispatched together with the
+   * application's data loaders, otherwise when execution completes.
+   *
+   * @param objectName name of the object type
+   * @param fieldName name of the additional field
+   * @param batchLoader {@link AuditLogAdditionalFieldBatchLoader}
+   * @return {@link AuditLogInstrumentationBuilder}
+   */
+  public AuditLogInstrumentationBuilder withAdditionalFieldBatchLoader(
+      String objectName, String fieldName, AuditLogAdditionalFieldBatchLoader batchLoader) {
+    this.additionalFieldBatchLoaders
+        .computeIfAbsent(objectName, it -> new HashMap<>())
+        .put(fieldName, batchLoader);
+    return this;
+  }
+
+  /**
+   * Resolve additional fields of every type of the schema when the instrumentation is built,
+   * instead of on every completed object. Building fails when an additional field of the schema
+   * is not a scalar. Executions of other schemas resolve additional fields at request time.
+   *
+   * @param schema {@link GraphQLSchema} the instrumentation is used with
+   * @return {@link AuditLogInstrumentationBuilder}
+   */
+  public AuditLogInstrumentationBuilder withSchema(GraphQLSchema schema) {
+    this.schema = schema;
+    return this;
+  }
+
+  /**
+   * Fetch an additional field of the same source object once per request, sharing the result
+   * by all paths the object appears under. Sources are compared by identity.
+   *
+   * @param memoization whether to memoize additional field fetches
+   * @return {@link AuditLogInstrumentationBuilder}
+   */
+  public AuditLogInstrumentationBuilder withAdditionalFieldMemoization(boolean memoization) {
+    this.additionalFieldMemoKeyExtractor = memoization ? AdditionalFieldMemo::identityKey : null;
+    return this;
+  }
+
+  /**
+   * Fetch an additional field of sources with the same key once per request, sharing the result
+   * by all paths they appear under. Sources with {@code null} key are always fetched.
+   *
+   * @param memoKeyExtractor key of the source object, e.g. its id
+   * @return {@link AuditLogInstrumentationBuilder}
+   */
+  public AuditLogInstrumentationBuilder withAdditionalFieldMemoKey(
+      Function<Object, Object> memoKeyExtractor) {
+    this.additionalFieldMemoKeyExtractor = memoKeyExtractor;
+    return this;
+  }
+
+  /**
+   * Enable asynchronous audit log processing. The GraphQL response is released immediately and
+   * the audit log item is built, anonymized and sent on the dispatcher's worker threads.
+   *
+   * @param auditLogAsyncDispatcher {@link AuditLogAsyncDispatcher}
+   * @return {@link AuditLogInstrumentationBuilder}
+   */
+  public AuditLogInstrumentationBuilder withAsyncDispatcher(
+      AuditLogAsyncDispatcher auditLogAsyncDispatcher) {
+    this.auditLogDispatcher = auditLogAsyncDispatcher;
+    return this;
+  }
+
+  /**
+   * Audit only a sample of queries. Mutations are always audited.
+   *
+   * @param samplingPolicy {@link AuditLogSamplingPolicy}
+   * @return {@link AuditLogInstrumentationBuilder}
+   */
+  public AuditLogInstrumentationBuilder withSamplingPolicy(AuditLogSamplingPolicy samplingPolicy) {
+    this.samplingPolicy = samplingPolicy;
+    return this;
+  }
+
+  /**
+   * Audit only operations of the given types or root fields.
+   *
+   * @param operationFilter {@link AuditLogOperationFilter}
+   * @return {@link AuditLogInstrumentationBuilder}
+   */
+  public AuditLogInstrumentationBuilder withOperationFilter(
+      AuditLogOperationFilter operationFilter) {
+    this.operationFilter = operationFilter;
+    return this;
+  }
+
+  /**
+   * Build the anonymized audit log item in the same traversal of the execution result as the raw
+   * one, instead of copying the raw item afterwards.
+   *
+   * @param singlePassAnonymization whether to build both items in one traversal
+   * @return {@link AuditLogInstrumentationBuilder}
+   */
+  public AuditLogInstrumentationBuilder withSinglePassAnonymization(
+      boolean singlePassAnonymization) {
+    this.singlePassAnonymization = singlePassAnonymization;
+    return this;
+  }
+
+  /**
+   * Pass audit log items whose result data converts the execution result only when the sender
+   * reads it, so memory is spent only for what is read and large lists can be streamed by
+   * {@link AuditLogItemJsonSerializer}. The view keeps the execution result reachable until the
+   * item is dropped, and conversion errors surface in the sender. Takes precedence over
+   * {@link #withSinglePassAnonymization(boolean)}.
+   *
+   * @param lazyResultData whether result data is converted on access
+   * @return {@link AuditLogInstrumentationBuilder}
+   */
+  public AuditLogInstrumentationBuilder withLazyResultData(boolean lazyResultData) {
+    this.lazyResultData = lazyResultData;
+    return this;
+  }
+
+  /**
+   * Bound the captured depth, list items, nodes and size of the execution result.
+   *
+   * @param captureLimits {@link AuditLogCaptureLimits}
+   * @return {@link AuditLogInstrumentationBuilder}
+   */
+  public AuditLogInstrumentationBuilder withCaptureLimits(AuditLogCaptureLimits captureLimits) {
+    this.captureLimits = captureLimits;
+    return this;
+  }
+
+  /**
+   * Record latency and errors of every instrumentation stage, item sizes, dispatcher queue depth
+   * and dropped items.
+   *
+   * @param metrics {@link AuditLogMetrics}
+   * @return {@link AuditLogInstrumentationBuilder}
+   */
+  public AuditLogInstrumentationBuilder withMetrics(AuditLogMetrics metrics) {
+    this.metrics = metrics;
+    return this;
+  }
+
   /**
    * Create the {@link AuditLogInstrumentation} instance
    *
@@ -102,7 +312,25 @@ public class AuditLogInstrumentationBuilder {
         this.auditLogSender,
         this.userProvider,
         this.auditLogAnonymizer,
-        this.auditLogAdditionalFieldFetcher
+        this.schema == null
+            ? this.auditLogAdditionalFieldFetcher
+            : this.auditLogAdditionalFieldFetcher.withPlan(this.schema),
+        new AdditionalFieldFetchOptions(
+            this.additionalFieldExecutor == null
+                ? AuditLogAdditionalFieldFetcher.defaultExecutor()
+                : this.additionalFieldExecutor,
+            this.additionalFieldTimeout,
+            this.additionalFieldRequestTimeout,
+            this.additionalFieldBatchLoaders,
+            this.additionalFieldMemoKeyExtractor,
+            this.metrics),
+        this.auditLogDispatcher,
+        this.samplingPolicy,
+        this.operationFilter,
+        this.singlePassAnonymization,
+        this.lazyResultData,
+        this.captureLimits,
+        this.metrics
     );
   }
 }
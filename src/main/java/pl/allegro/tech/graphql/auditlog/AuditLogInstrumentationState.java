@@ -1,49 +1,93 @@
 package pl.allegro.tech.graphql.auditlog;
 
-import static java.lang.String.format;
-
+import graphql.execution.ResultPath;
 import graphql.execution.instrumentation.InstrumentationState;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
+import java.util.Queue;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import org.dataloader.DataLoaderRegistry;
 import pl.allegro.tech.graphql.auditlog.model.ResultData;
 
 class AuditLogInstrumentationState implements InstrumentationState {
-  private final Map<String, Optional<String>> pathToType;
-  private final Map<String, String> pathToOriginalFieldName;
+
+  /**
+   * Shared state of requests which are not audited. Hooks return before touching it.
+   */
+  static final AuditLogInstrumentationState DISABLED = new AuditLogInstrumentationState(false, 0);
+
+  private volatile boolean enabled;
+  private final PathNode root;
   private final List<AuditLogItem.Operation> operations;
-  private final Map<String, Object> variables;
-  private final List<AdditionalField> additionalFields;
+  private volatile Map<String, Object> variables;
+  private final Queue<CompletableFuture<ResultData>> additionalFields;
+  private final long startNanos;
+  private volatile DataLoaderRegistry dataLoaderRegistry;
+  private volatile AdditionalFieldBatches additionalFieldBatches;
+  private volatile AdditionalFieldMemo additionalFieldMemo;
 
   AuditLogInstrumentationState() {
-    pathToType = new ConcurrentHashMap<>();
-    pathToOriginalFieldName = new ConcurrentHashMap<>();
+    this(true, 0);
+  }
+
+  /**
+   * State of an audited request.
+   *
+   * @param startNanos {@link System#nanoTime()} when the request started
+   */
+  AuditLogInstrumentationState(long startNanos) {
+    this(true, startNanos);
+  }
+
+  private AuditLogInstrumentationState(boolean enabled, long startNanos) {
+    this.enabled = enabled;
+    this.startNanos = startNanos;
+    root = PathNode.root();
     operations = new ArrayList<>();
-    variables = new HashMap<>();
-    additionalFields = new CopyOnWriteArrayList<>();
+    variables = Map.of();
+    additionalFields = new ConcurrentLinkedQueue<>();
+  }
+
+  boolean isEnabled() {
+    return enabled;
+  }
+
+  void disable() {
+    enabled = false;
   }
 
-  void registerTypeForPath(List<String> path, Optional<String> typeName) {
-    pathToType.put(pathAsString(path), typeName);
+  PathNode root() {
+    return root;
   }
 
-  private String pathAsString(List<String> path) {
-    return path.stream().collect(Collectors.joining("/", "/", ""));
+  long startNanos() {
+    return startNanos;
   }
 
-  String getTypeName(List<String> path) {
-    return Optional.ofNullable(pathToType.get(pathAsString(path)))
-        .orElseThrow(
-            () ->
-                new NullPointerException(
-                    format("Can't find type for path %s", pathAsString(path))))
-        .orElse("null");
+  void registerField(ResultPath path, String typeName, String originalFieldName) {
+    PathNode node = nodeForWrite(path);
+    node.registerTypeName(typeName);
+    node.registerOriginalFieldName(originalFieldName);
+  }
+
+  PathNode registerArray(ResultPath path, int size) {
+    PathNode node = nodeForWrite(path);
+    node.ensureItemCapacity(size);
+    return node;
+  }
+
+  private PathNode nodeForWrite(ResultPath path) {
+    if (path.isRootPath()) {
+      return root;
+    }
+    PathNode parent = nodeForWrite(path.getParent());
+    return path.isListSegment()
+        ? parent.itemForWrite(path.getSegmentIndex())
+        : parent.fieldForWrite(path.getSegmentName());
   }
 
   void registerAction(
@@ -55,44 +99,68 @@ class AuditLogInstrumentationState implements InstrumentationState {
     return operations;
   }
 
+  /**
+   * Take a snapshot of request variables, shared by all root fields of the request.
+   */
   void registerVariables(Map<String, Object> variables) {
-    this.variables.putAll(variables);
+    this.variables = Collections.unmodifiableMap(new HashMap<>(variables));
   }
 
   Map<String, Object> registeredVariables() {
-    return new HashMap<>(variables);
+    return variables;
   }
 
-  void registerOriginalFieldName(List<String> path, String originalFieldName) {
-    pathToOriginalFieldName.put(pathAsString(path), originalFieldName);
+  void registerAdditionalField(ResultPath path, CompletableFuture<ResultData> resultData) {
+    nodeForWrite(path).registerAdditionalField(resultData);
+    additionalFields.add(resultData);
   }
 
-  String getOriginalFieldName(List<String> path) {
-    return Optional.ofNullable(pathToOriginalFieldName.get(pathAsString(path)))
-        .orElseThrow(
-            () ->
-                new NullPointerException(
-                    format("Can't find original field name for path %s", pathAsString(path))));
+  void registerDataLoaderRegistry(DataLoaderRegistry dataLoaderRegistry) {
+    this.dataLoaderRegistry = dataLoaderRegistry;
   }
 
-  void registerAdditionalField(List<String> path, CompletableFuture<ResultData> resultData) {
-    additionalFields.add(new AdditionalField(path, resultData));
+  /**
+   * Batches of additional fields, created on first use.
+   */
+  AdditionalFieldBatches additionalFieldBatches() {
+    AdditionalFieldBatches current = additionalFieldBatches;
+    if (current == null) {
+      synchronized (this) {
+        current = additionalFieldBatches;
+        if (current == null) {
+          current = new AdditionalFieldBatches(dataLoaderRegistry);
+          additionalFieldBatches = current;
+        }
+      }
+    }
+    return current;
   }
 
-  List<CompletableFuture<ResultData>> getAdditionalFields(List<String> path) {
-    return additionalFields.stream()
-        .filter(it -> pathAsString(it.path).equals(pathAsString(path)))
-        .map(it -> it.resultData)
-        .collect(Collectors.toList());
+  /**
+   * Memoized additional fields, created on first use.
+   */
+  AdditionalFieldMemo additionalFieldMemo() {
+    AdditionalFieldMemo current = additionalFieldMemo;
+    if (current == null) {
+      synchronized (this) {
+        current = additionalFieldMemo;
+        if (current == null) {
+          current = new AdditionalFieldMemo();
+          additionalFieldMemo = current;
+        }
+      }
+    }
+    return current;
   }
 
-  private static class AdditionalField {
-    private final List<String> path;
-    private final CompletableFuture<ResultData> resultData;
-
-    private AdditionalField(List<String> path, CompletableFuture<ResultData> resultData) {
-      this.path = path;
-      this.resultData = resultData;
+  void dispatchAdditionalFieldBatches() {
+    AdditionalFieldBatches current = additionalFieldBatches;
+    if (current != null) {
+      current.dispatch();
     }
   }
+
+  CompletableFuture<Void> additionalFieldsCompleted() {
+    return CompletableFuture.allOf(additionalFields.toArray(CompletableFuture[]::new));
+  }
 }
@@ -0,0 +1,591 @@
+package pl.allegro.tech.graphql.auditlog;
+
+import static java.lang.String.format;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import pl.allegro.tech.graphql.auditlog.AuditLogItem.OperationType;
+import pl.allegro.tech.graphql.auditlog.model.ResultData;
+import pl.allegro.tech.graphql.auditlog.model.UserId;
+
+/**
+ * Compact binary encoding of {@link AuditLogItem}. Names, type names and map keys are written to
+ * a string dictionary on first use and referenced by index afterwards, lengths and counts are
+ * unsigned varints. Encoded data starts with a version byte. A batch shares one dictionary across
+ * its items.
+ *
+ * <pre>
+ * item       := version id:string userId:string executionDate operations resultData errors
+ * batch      := version count:varint (id userId executionDate operations resultData errors)*
+ * string     := 0 (null) | length + 1:varint utf8
+ * name       := 0 (null) | 1 length:varint utf8 (added to dictionary) | index + 2:varint
+ * resultData := kind:byte name (typeName | typeName value:string | count resultData* | omitted)
+ * value      := tag:byte payload
+ * </pre>
+ *
+ * <p>Decoded values keep their type for strings, booleans, numbers, maps and lists. Optionals are
+ * unwrapped and other values, enums included, are decoded as strings.
+ */
+public class AuditLogItemBinaryCodec {
+
+  static final byte VERSION = 1;
+
+  private static final byte OBJECT = 1;
+  private static final byte ARRAY = 2;
+  private static final byte SCALAR = 3;
+  private static final byte ANONYMIZED = 4;
+  private static final byte INTROSPECTION = 5;
+  private static final byte NULL = 6;
+  private static final byte TRUNCATED = 7;
+  private static final byte TIMEOUT = 8;
+
+  private static final byte NULL_VALUE = 0;
+  private static final byte STRING_VALUE = 1;
+  private static final byte TRUE_VALUE = 2;
+  private static final byte FALSE_VALUE = 3;
+  private static final byte INT_VALUE = 4;
+  private static final byte LONG_VALUE = 5;
+  private static final byte FLOAT_VALUE = 6;
+  private static final byte DOUBLE_VALUE = 7;
+  private static final byte BIG_INTEGER_VALUE = 8;
+  private static final byte BIG_DECIMAL_VALUE = 9;
+  private static final byte MAP_VALUE = 10;
+  private static final byte LIST_VALUE = 11;
+
+  private static final OperationType[] OPERATION_TYPES = OperationType.values();
+
+  /**
+   * Encode a single item with its own dictionary.
+   *
+   * @param auditLogItem {@link AuditLogItem}
+   * @return encoded item
+   */
+  public byte[] encode(AuditLogItem auditLogItem) {
+    Encoder encoder = new Encoder();
+    encoder.writeByte(VERSION);
+    encoder.writeItem(auditLogItem);
+    return encoder.toByteArray();
+  }
+
+  /**
+   * Encode a single item with its own dictionary to the stream, leaving the stream open.
+   *
+   * @param auditLogItem {@link AuditLogItem}
+   * @param outputStream target stream
+   * @throws IOException when writing to the stream fails
+   */
+  public void encode(AuditLogItem auditLogItem, OutputStream outputStream) throws IOException {
+    Encoder encoder = new Encoder();
+    encoder.writeByte(VERSION);
+    encoder.writeItem(auditLogItem);
+    encoder.writeTo(outputStream);
+  }
+
+  /**
+   * Encode items sharing one dictionary, so names repeated across items are written once.
+   *
+   * @param auditLogItems list of {@link AuditLogItem}
+   * @return encoded batch
+   */
+  public byte[] encodeBatch(List<AuditLogItem> auditLogItems) {
+    Encoder encoder = new Encoder();
+    encoder.writeByte(VERSION);
+    encoder.writeVarint(auditLogItems.size());
+    for (AuditLogItem auditLogItem : auditLogItems) {
+      encoder.writeItem(auditLogItem);
+    }
+    return encoder.toByteArray();
+  }
+
+  /**
+   * Decode an item encoded with {@link #encode(AuditLogItem)}.
+   *
+   * @param bytes encoded item
+   * @return {@link AuditLogItem}
+   */
+  public AuditLogItem decode(byte[] bytes) {
+    Decoder decoder = new Decoder(bytes);
+    decoder.readVersion();
+    return decoder.readItem();
+  }
+
+  /**
+   * Decode items encoded with {@link #encodeBatch(List)}.
+   *
+   * @param bytes encoded batch
+   * @return list of {@link AuditLogItem}
+   */
+  public List<AuditLogItem> decodeBatch(byte[] bytes) {
+    Decoder decoder = new Decoder(bytes);
+    decoder.readVersion();
+    int count = decoder.readCount();
+    List<AuditLogItem> auditLogItems = new ArrayList<>(Math.min(count, bytes.length));
+    for (int i = 0; i < count; i++) {
+      auditLogItems.add(decoder.readItem());
+    }
+    return auditLogItems;
+  }
+
+  private static class Encoder {
+
+    private final Map<String, Integer> dictionary = new HashMap<>();
+    private byte[] buffer = new byte[256];
+    private int position;
+
+    void writeItem(AuditLogItem auditLogItem) {
+      writeString(auditLogItem.id());
+      UserId userId = auditLogItem.userId();
+      writeString(userId == null ? null : userId.raw());
+      writeInstant(auditLogItem.executionDate());
+      writeVarint(auditLogItem.operations().size());
+      for (AuditLogItem.Operation operation : auditLogItem.operations()) {
+        OperationType operationType = operation.operationType();
+        writeByte(operationType == null ? 0 : operationType.ordinal() + 1);
+        writeName(operation.operationName());
+        writeValue(operation.arguments());
+      }
+      writeResultDataList(auditLogItem.resultData());
+      List<Map<String, Object>> errors = auditLogItem.errors();
+      if (errors == null) {
+        writeVarint(0);
+      } else {
+        writeVarint(errors.size() + 1);
+        for (Map<String, Object> error : errors) {
+          writeValue(error);
+        }
+      }
+    }
+
+    private void writeInstant(Instant instant) {
+      if (instant == null) {
+        writeByte(0);
+      } else {
+        writeByte(1);
+        writeVarLong(zigZag(instant.getEpochSecond()));
+        writeVarint(instant.getNano());
+      }
+    }
+
+    private void writeResultDataList(List<? extends ResultData> resultData) {
+      writeVarint(resultData.size());
+      for (ResultData item : resultData) {
+        writeResultData(item);
+      }
+    }
+
+    private void writeResultData(ResultData resultData) {
+      if (resultData instanceof ResultData.ObjectResultData) {
+        ResultData.ObjectResultData objectResultData = (ResultData.ObjectResultData) resultData;
+        writeByte(OBJECT);
+        writeName(resultData.getName());
+        writeName(objectResultData.getTypeName());
+        writeResultDataList(objectResultData.getFields());
+      } else if (resultData instanceof ResultData.ArrayResultData) {
+        writeByte(ARRAY);
+        writeName(resultData.getName());
+        writeResultDataList(((ResultData.ArrayResultData) resultData).getItems());
+      } else if (resultData instanceof ResultData.ScalarResultData) {
+        ResultData.ScalarResultData scalarResultData = (ResultData.ScalarResultData) resultData;
+        writeByte(SCALAR);
+        writeName(resultData.getName());
+        writeName(scalarResultData.getTypeName());
+        writeString(scalarResultData.getValue());
+      } else if (resultData instanceof ResultData.AnonymizedResultData) {
+        writeByte(ANONYMIZED);
+        writeName(resultData.getName());
+        writeName(((ResultData.AnonymizedResultData) resultData).getTypeName());
+      } else if (resultData instanceof ResultData.IntrospectionResultData) {
+        writeByte(INTROSPECTION);
+        writeName(resultData.getName());
+        writeName(((ResultData.IntrospectionResultData) resultData).getTypeName());
+      } else if (resultData instanceof ResultData.NullResultData) {
+        writeByte(NULL);
+        writeName(resultData.getName());
+      } else if (resultData instanceof ResultData.TruncatedResultData) {
+        writeByte(TRUNCATED);
+        writeName(resultData.getName());
+        writeVarLong(((ResultData.TruncatedResultData) resultData).getOmitted());
+      } else if (resultData instanceof ResultData.TimeoutResultData) {
+        writeByte(TIMEOUT);
+        writeName(resultData.getName());
+      } else {
+        throw new IllegalStateException(
+            format(
+                "Can't handle %s type in result data type",
+                resultData.getClass().getSimpleName()));
+      }
+    }
+
+    private void writeValue(Object value) {
+      if (value == null) {
+        writeByte(NULL_VALUE);
+      } else if (value instanceof String) {
+        writeByte(STRING_VALUE);
+        writeString((String) value);
+      } else if (value instanceof Boolean) {
+        writeByte((Boolean) value ? TRUE_VALUE : FALSE_VALUE);
+      } else if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+        writeByte(INT_VALUE);
+        writeVarLong(zigZag(((Number) value).intValue()));
+      } else if (value instanceof Long) {
+        writeByte(LONG_VALUE);
+        writeVarLong(zigZag((Long) value));
+      } else if (value instanceof Float) {
+        writeByte(FLOAT_VALUE);
+        writeFixed(Float.floatToIntBits((Float) value), Integer.BYTES);
+      } else if (value instanceof Double) {
+        writeByte(DOUBLE_VALUE);
+        writeFixed(Double.doubleToLongBits((Double) value), Long.BYTES);
+      } else if (value instanceof BigInteger) {
+        writeByte(BIG_INTEGER_VALUE);
+        writeString(value.toString());
+      } else if (value instanceof BigDecimal) {
+        writeByte(BIG_DECIMAL_VALUE);
+        writeString(value.toString());
+      } else if (value instanceof Optional) {
+        writeValue(((Optional<?>) value).orElse(null));
+      } else if (value instanceof Map) {
+        Map<?, ?> map = (Map<?, ?>) value;
+        writeByte(MAP_VALUE);
+        writeVarint(map.size());
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+          writeName(String.valueOf(entry.getKey()));
+          writeValue(entry.getValue());
+        }
+      } else if (value instanceof Collection) {
+        Collection<?> collection = (Collection<?>) value;
+        writeByte(LIST_VALUE);
+        writeVarint(collection.size());
+        for (Object item : collection) {
+          writeValue(item);
+        }
+      } else if (value instanceof Enum) {
+        writeByte(STRING_VALUE);
+        writeString(((Enum<?>) value).name());
+      } else {
+        writeByte(STRING_VALUE);
+        writeString(value.toString());
+      }
+    }
+
+    private void writeName(String name) {
+      if (name == null) {
+        writeVarint(0);
+        return;
+      }
+      Integer index = dictionary.get(name);
+      if (index == null) {
+        dictionary.put(name, dictionary.size());
+        writeVarint(1);
+        writeUtf8(name);
+      } else {
+        writeVarint(index + 2);
+      }
+    }
+
+    private void writeString(String value) {
+      if (value == null) {
+        writeVarint(0);
+      } else {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarint(bytes.length + 1);
+        writeBytes(bytes);
+      }
+    }
+
+    private void writeUtf8(String value) {
+      byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+      writeVarint(bytes.length);
+      writeBytes(bytes);
+    }
+
+    void writeByte(int value) {
+      ensureCapacity(1);
+      buffer[position++] = (byte) value;
+    }
+
+    void writeVarint(int value) {
+      writeVarLong(value & 0xFFFFFFFFL);
+    }
+
+    private void writeVarLong(long value) {
+      ensureCapacity(10);
+      while ((value & ~0x7FL) != 0) {
+        buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+        value >>>= 7;
+      }
+      buffer[position++] = (byte) value;
+    }
+
+    private void writeFixed(long value, int bytes) {
+      ensureCapacity(bytes);
+      for (int i = 0; i < bytes; i++) {
+        buffer[position++] = (byte) (value >>> (8 * i));
+      }
+    }
+
+    private void writeBytes(byte[] bytes) {
+      ensureCapacity(bytes.length);
+      System.arraycopy(bytes, 0, buffer, position, bytes.length);
+      position += bytes.length;
+    }
+
+    private void ensureCapacity(int bytes) {
+      if (position + bytes > buffer.length) {
+        buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + bytes));
+      }
+    }
+
+    byte[] toByteArray() {
+      return Arrays.copyOf(buffer, position);
+    }
+
+    void writeTo(OutputStream outputStream) throws IOException {
+      outputStream.write(buffer, 0, position);
+    }
+
+    private static long zigZag(long value) {
+      return (value << 1) ^ (value >> 63);
+    }
+  }
+
+  private static class Decoder {
+
+    private final List<String> dictionary = new ArrayList<>();
+    private final byte[] buffer;
+    private int position;
+
+    Decoder(byte[] buffer) {
+      this.buffer = buffer;
+    }
+
+    void readVersion() {
+      byte version = readByte();
+      if (version != VERSION) {
+        throw new IllegalStateException(
+            format("Unsupported audit log item encoding version %s", version));
+      }
+    }
+
+    AuditLogItem readItem() {
+      String id = readString();
+      String userId = readString();
+      Instant executionDate = readInstant();
+      int operationCount = readCount();
+      List<AuditLogItem.Operation> operations = new ArrayList<>(capacity(operationCount));
+      for (int i = 0; i < operationCount; i++) {
+        OperationType operationType = readOperationType();
+        String operationName = readName();
+        Map<String, Object> arguments = (Map<String, Object>) readValue();
+        operations.add(new AuditLogItem.Operation(operationType, operationName, arguments));
+      }
+      List<ResultData> resultData = readResultDataList();
+      int errorCount = readCount() - 1;
+      List<Map<String, Object>> errors = null;
+      if (errorCount >= 0) {
+        errors = new ArrayList<>(capacity(errorCount));
+        for (int i = 0; i < errorCount; i++) {
+          errors.add((Map<String, Object>) readValue());
+        }
+      }
+      return new AuditLogItem(
+          id,
+          operations,
+          resultData,
+          errors,
+          userId == null ? null : new UserId(userId),
+          executionDate);
+    }
+
+    private OperationType readOperationType() {
+      byte operationType = readByte();
+      if (operationType < 0 || operationType > OPERATION_TYPES.length) {
+        throw new IllegalStateException(format("Unknown operation type %s", operationType));
+      }
+      return operationType == 0 ? null : OPERATION_TYPES[operationType - 1];
+    }
+
+    private Instant readInstant() {
+      if (readByte() == 0) {
+        return null;
+      }
+      long epochSecond = unZigZag(readVarLong());
+      return Instant.ofEpochSecond(epochSecond, readCount());
+    }
+
+    private List<ResultData> readResultDataList() {
+      int count = readCount();
+      List<ResultData> resultData = new ArrayList<>(capacity(count));
+      for (int i = 0; i < count; i++) {
+        resultData.add(readResultData());
+      }
+      return resultData;
+    }
+
+    private ResultData readResultData() {
+      byte kind = readByte();
+      String name = readName();
+      switch (kind) {
+        case OBJECT:
+          return new ResultData.ObjectResultData(name, readName(), readResultDataList());
+        case ARRAY:
+          return new ResultData.ArrayResultData(name, readResultDataList());
+        case SCALAR:
+          return new ResultData.ScalarResultData(name, readName(), readString());
+        case ANONYMIZED:
+          return new ResultData.AnonymizedResultData(name, readName());
+        case INTROSPECTION:
+          return new ResultData.IntrospectionResultData(name, readName());
+        case NULL:
+          return new ResultData.NullResultData(name);
+        case TRUNCATED:
+          return new ResultData.TruncatedResultData(name, readVarLong());
+        case TIMEOUT:
+          return new ResultData.TimeoutResultData(name);
+        default:
+          throw new IllegalStateException(format("Unknown result data kind %s", kind));
+      }
+    }
+
+    private Object readValue() {
+      byte tag = readByte();
+      switch (tag) {
+        case NULL_VALUE:
+          return null;
+        case STRING_VALUE:
+          return readString();
+        case TRUE_VALUE:
+          return true;
+        case FALSE_VALUE:
+          return false;
+        case INT_VALUE:
+          return (int) unZigZag(readVarLong());
+        case LONG_VALUE:
+          return unZigZag(readVarLong());
+        case FLOAT_VALUE:
+          return Float.intBitsToFloat((int) readFixed(Integer.BYTES));
+        case DOUBLE_VALUE:
+          return Double.longBitsToDouble(readFixed(Long.BYTES));
+        case BIG_INTEGER_VALUE:
+          return new BigInteger(readString());
+        case BIG_DECIMAL_VALUE:
+          return new BigDecimal(readString());
+        case MAP_VALUE:
+          return readMap();
+        case LIST_VALUE:
+          return readList();
+        default:
+          throw new IllegalStateException(format("Unknown value tag %s", tag));
+      }
+    }
+
+    private Map<String, Object> readMap() {
+      int size = readCount();
+      Map<String, Object> map = new LinkedHashMap<>();
+      for (int i = 0; i < size; i++) {
+        String key = readName();
+        map.put(key, readValue());
+      }
+      return map;
+    }
+
+    private List<Object> readList() {
+      int count = readCount();
+      List<Object> list = new ArrayList<>(capacity(count));
+      for (int i = 0; i < count; i++) {
+        list.add(readValue());
+      }
+      return list;
+    }
+
+    private String readName() {
+      int reference = readCount();
+      if (reference == 0) {
+        return null;
+      } else if (reference == 1) {
+        String name = readUtf8(readCount());
+        dictionary.add(name);
+        return name;
+      } else if (reference - 2 < dictionary.size()) {
+        return dictionary.get(reference - 2);
+      }
+      throw new IllegalStateException(format("Unknown dictionary reference %s", reference - 2));
+    }
+
+    private String readString() {
+      int length = readCount();
+      return length == 0 ? null : readUtf8(length - 1);
+    }
+
+    private String readUtf8(int length) {
+      checkAvailable(length);
+      String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+      position += length;
+      return value;
+    }
+
+    byte readByte() {
+      checkAvailable(1);
+      return buffer[position++];
+    }
+
+    int readCount() {
+      long value = readVarLong();
+      if (value > Integer.MAX_VALUE) {
+        throw new IllegalStateException(format("Count %s out of range", value));
+      }
+      return (int) value;
+    }
+
+    private long readVarLong() {
+      long value = 0;
+      for (int shift = 0; shift < 64; shift += 7) {
+        byte current = readByte();
+        value |= (long) (current & 0x7F) << shift;
+        if ((current & 0x80) == 0) {
+          return value;
+        }
+      }
+      throw new IllegalStateException("Malformed varint");
+    }
+
+    private long readFixed(int bytes) {
+      checkAvailable(bytes);
+      long value = 0;
+      for (int i = 0; i < bytes; i++) {
+        value |= (buffer[position++] & 0xFFL) << (8 * i);
+      }
+      return value;
+    }
+
+    /**
+     * Initial capacity for the count read from the input, every element takes at least a byte.
+     */
+    private int capacity(int count) {
+      return Math.min(count, buffer.length - position);
+    }
+
+    private void checkAvailable(int bytes) {
+      if (bytes < 0 || buffer.length - position < bytes) {
+        throw new IllegalStateException(
+            format("Unexpected end of encoded audit log item at %s", position));
+      }
+    }
+
+    private static long unZigZag(long value) {
+      return (value >>> 1) ^ -(value & 1);
+    }
+  }
+}
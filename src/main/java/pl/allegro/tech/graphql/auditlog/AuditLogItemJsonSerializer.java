@@ -0,0 +1,201 @@
+package pl.allegro.tech.graphql.auditlog;
+
+import static java.util.Objects.requireNonNull;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import pl.allegro.tech.graphql.auditlog.AuditLogItem.OperationType;
+import pl.allegro.tech.graphql.auditlog.model.ResultData;
+import pl.allegro.tech.graphql.auditlog.model.ResultData.AnonymizedResultData;
+import pl.allegro.tech.graphql.auditlog.model.ResultData.ArrayResultData;
+import pl.allegro.tech.graphql.auditlog.model.ResultData.IntrospectionResultData;
+import pl.allegro.tech.graphql.auditlog.model.ResultData.NullResultData;
+import pl.allegro.tech.graphql.auditlog.model.ResultData.ObjectResultData;
+import pl.allegro.tech.graphql.auditlog.model.ResultData.ScalarResultData;
+import pl.allegro.tech.graphql.auditlog.model.ResultData.TruncatedResultData;
+import pl.allegro.tech.graphql.auditlog.model.UserId;
+
+/**
+ * Writes {@link AuditLogItem} as JSON straight to a Jackson {@link JsonGenerator}, walking
+ * operations and the {@link ResultData} tree without building intermediate maps or strings.
+ *
+ * <pre>
+ * {"id":"...","userId":"...","executionDate":"2021-01-01T00:00:00Z",
+ *  "operations":[{"operationType":"QUERY","operationName":"user","arguments":{"id":"1"}}],
+ *  "resultData":[{"type":"object","name":"user","typeName":"User","fields":[
+ *    {"type":"scalar","name":"id","typeName":"String","value":"1"}]}],
+ *  "errors":[]}
+ * </pre>
+ */
+public class AuditLogItemJsonSerializer {
+
+  private final JsonFactory jsonFactory;
+
+  public AuditLogItemJsonSerializer() {
+    this(new JsonFactory());
+  }
+
+  public AuditLogItemJsonSerializer(JsonFactory jsonFactory) {
+    this.jsonFactory = requireNonNull(jsonFactory);
+  }
+
+  /**
+   * Write item as UTF-8 JSON. The stream is flushed but not closed, so a reusable buffer (e.g. a
+   * reset {@link java.io.ByteArrayOutputStream}) can be passed for every item.
+   *
+   * @param auditLogItem {@link AuditLogItem}
+   * @param outputStream target stream
+   * @throws IOException when writing to the stream fails
+   */
+  public void write(AuditLogItem auditLogItem, OutputStream outputStream) throws IOException {
+    try (JsonGenerator generator = jsonFactory.createGenerator(outputStream)) {
+      generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+      write(auditLogItem, generator);
+    }
+  }
+
+  /**
+   * Write item as a JSON object to the generator, leaving the generator open.
+   *
+   * @param auditLogItem {@link AuditLogItem}
+   * @param generator {@link JsonGenerator}
+   * @throws IOException when the generator fails
+   */
+  public void write(AuditLogItem auditLogItem, JsonGenerator generator) throws IOException {
+    generator.writeStartObject();
+    generator.writeStringField("id", auditLogItem.id());
+    UserId userId = auditLogItem.userId();
+    generator.writeStringField("userId", userId == null ? null : userId.raw());
+    Instant executionDate = auditLogItem.executionDate();
+    generator.writeStringField(
+        "executionDate", executionDate == null ? null : executionDate.toString());
+    generator.writeArrayFieldStart("operations");
+    for (AuditLogItem.Operation operation : auditLogItem.operations()) {
+      writeOperation(operation, generator);
+    }
+    generator.writeEndArray();
+    generator.writeArrayFieldStart("resultData");
+    for (ResultData resultData : auditLogItem.resultData()) {
+      writeResultData(resultData, generator);
+    }
+    generator.writeEndArray();
+    generator.writeFieldName("errors");
+    writeValue(auditLogItem.errors(), generator);
+    generator.writeEndObject();
+  }
+
+  /**
+   * Write item as JSON to a string.
+   *
+   * @param auditLogItem {@link AuditLogItem}
+   * @return JSON representation
+   */
+  public String writeAsString(AuditLogItem auditLogItem) {
+    StringWriter writer = new StringWriter();
+    try (JsonGenerator generator = jsonFactory.createGenerator(writer)) {
+      write(auditLogItem, generator);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return writer.toString();
+  }
+
+  private void writeOperation(AuditLogItem.Operation operation, JsonGenerator generator)
+      throws IOException {
+    generator.writeStartObject();
+    OperationType operationType = operation.operationType();
+    generator.writeStringField(
+        "operationType", operationType == null ? null : operationType.name());
+    generator.writeStringField("operationName", operation.operationName());
+    generator.writeFieldName("arguments");
+    writeValue(operation.arguments(), generator);
+    generator.writeEndObject();
+  }
+
+  private void writeResultData(ResultData resultData, JsonGenerator generator)
+      throws IOException {
+    generator.writeStartObject();
+    generator.writeStringField("type", resultData.getType());
+    generator.writeStringField("name", resultData.getName());
+    if (resultData instanceof ObjectResultData) {
+      ObjectResultData objectResultData = (ObjectResultData) resultData;
+      generator.writeStringField("typeName", objectResultData.getTypeName());
+      writeResultDataList("fields", objectResultData.getFields(), generator);
+    } else if (resultData instanceof ArrayResultData) {
+      writeResultDataList("items", ((ArrayResultData) resultData).getItems(), generator);
+    } else if (resultData instanceof ScalarResultData) {
+      ScalarResultData scalarResultData = (ScalarResultData) resultData;
+      generator.writeStringField("typeName", scalarResultData.getTypeName());
+      generator.writeStringField("value", scalarResultData.getValue());
+    } else if (resultData instanceof AnonymizedResultData) {
+      generator.writeStringField("typeName", ((AnonymizedResultData) resultData).getTypeName());
+    } else if (resultData instanceof IntrospectionResultData) {
+      generator.writeStringField(
+          "typeName", ((IntrospectionResultData) resultData).getTypeName());
+    } else if (resultData instanceof NullResultData) {
+      generator.writeStringField("typeName", ((NullResultData) resultData).getTypeName());
+    } else if (resultData instanceof TruncatedResultData) {
+      generator.writeNumberField("omitted", ((TruncatedResultData) resultData).getOmitted());
+    }
+    generator.writeEndObject();
+  }
+
+  private void writeResultDataList(
+      String fieldName, List<? extends ResultData> resultData, JsonGenerator generator)
+      throws IOException {
+    generator.writeArrayFieldStart(fieldName);
+    for (ResultData item : resultData) {
+      writeResultData(item, generator);
+    }
+    generator.writeEndArray();
+  }
+
+  private void writeValue(Object value, JsonGenerator generator) throws IOException {
+    if (value == null) {
+      generator.writeNull();
+    } else if (value instanceof String) {
+      generator.writeString((String) value);
+    } else if (value instanceof Boolean) {
+      generator.writeBoolean((Boolean) value);
+    } else if (value instanceof Integer || value instanceof Long
+        || value instanceof Short || value instanceof Byte) {
+      generator.writeNumber(((Number) value).longValue());
+    } else if (value instanceof Double || value instanceof Float) {
+      generator.writeNumber(((Number) value).doubleValue());
+    } else if (value instanceof BigInteger) {
+      generator.writeNumber((BigInteger) value);
+    } else if (value instanceof BigDecimal) {
+      generator.writeNumber((BigDecimal) value);
+    } else if (value instanceof Optional) {
+      writeValue(((Optional<?>) value).orElse(null), generator);
+    } else if (value instanceof Map) {
+      generator.writeStartObject();
+      for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+        generator.writeFieldName(String.valueOf(entry.getKey()));
+        writeValue(entry.getValue(), generator);
+      }
+      generator.writeEndObject();
+    } else if (value instanceof Collection) {
+      generator.writeStartArray();
+      for (Object item : (Collection<?>) value) {
+        writeValue(item, generator);
+      }
+      generator.writeEndArray();
+    } else if (value instanceof Enum) {
+      generator.writeString(((Enum<?>) value).name());
+    } else {
+      generator.writeString(value.toString());
+    }
+  }
+}
@@ -0,0 +1,98 @@
+package pl.allegro.tech.graphql.auditlog;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import pl.allegro.tech.graphql.auditlog.model.ResultData;
+
+/**
+ * Cheap approximation of the serialized size of an {@link AuditLogItem}: the length of every
+ * name and value plus a constant overhead per node, computed without serializing the item.
+ */
+class AuditLogItemSizeEstimator {
+
+  private static final long NODE_OVERHEAD = 16;
+  private static final long VALUE_SIZE = 8;
+
+  private AuditLogItemSizeEstimator() {}
+
+  static long estimate(AuditLogItem auditLogItem) {
+    long size = NODE_OVERHEAD + length(auditLogItem.id());
+    for (AuditLogItem.Operation operation : auditLogItem.operations()) {
+      size += NODE_OVERHEAD + length(operation.operationName()) + value(operation.arguments());
+    }
+    for (ResultData resultData : auditLogItem.resultData()) {
+      size += resultData(resultData);
+    }
+    for (Map<String, Object> error : auditLogItem.errors()) {
+      size += value(error);
+    }
+    return size;
+  }
+
+  static long resultData(ResultData resultData) {
+    long size = node(resultData.getName());
+    if (resultData instanceof ResultData.ObjectResultData) {
+      ResultData.ObjectResultData objectResultData = (ResultData.ObjectResultData) resultData;
+      size += length(objectResultData.getTypeName());
+      for (ResultData field : objectResultData.getFields()) {
+        size += resultData(field);
+      }
+    } else if (resultData instanceof ResultData.ArrayResultData) {
+      for (ResultData item : ((ResultData.ArrayResultData) resultData).getItems()) {
+        size += resultData(item);
+      }
+    } else if (resultData instanceof ResultData.ScalarResultData) {
+      ResultData.ScalarResultData scalarResultData = (ResultData.ScalarResultData) resultData;
+      size += length(scalarResultData.getTypeName()) + length(scalarResultData.getValue());
+    } else {
+      size += VALUE_SIZE;
+    }
+    return size;
+  }
+
+  /**
+   * Number of result data nodes including the nested ones.
+   */
+  static long nodeCount(List<? extends ResultData> resultData) {
+    long count = resultData.size();
+    for (ResultData node : resultData) {
+      if (node instanceof ResultData.ObjectResultData) {
+        count += nodeCount(((ResultData.ObjectResultData) node).getFields());
+      } else if (node instanceof ResultData.ArrayResultData) {
+        count += nodeCount(((ResultData.ArrayResultData) node).getItems());
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Size of a node without its type name, value and children.
+   */
+  static long node(String name) {
+    return NODE_OVERHEAD + length(name);
+  }
+
+  private static long value(Object value) {
+    if (value instanceof CharSequence) {
+      return ((CharSequence) value).length();
+    } else if (value instanceof Map) {
+      long size = NODE_OVERHEAD;
+      for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+        size += value(entry.getKey()) + value(entry.getValue());
+      }
+      return size;
+    } else if (value instanceof Collection) {
+      long size = NODE_OVERHEAD;
+      for (Object item : (Collection<?>) value) {
+        size += value(item);
+      }
+      return size;
+    }
+    return VALUE_SIZE;
+  }
+
+  static long length(String value) {
+    return value == null ? VALUE_SIZE : value.length();
+  }
+}
@@ -0,0 +1,71 @@
+package pl.allegro.tech.graphql.auditlog;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Receives measurements of the audit log instrumentation: latency and errors of every
+ * {@link Stage}, the number of nodes and estimated serialized size of every audited item, the depth
+ * of the {@link AuditLogAsyncDispatcher} queue and the number of dropped items. Methods are called
+ * on GraphQL execution threads, so implementations have to be thread safe and cheap.
+ *
+ * <p>See {@link StripedAuditLogMetrics} for a dependency free implementation and
+ * {@link MicrometerAuditLogMetrics} for an adapter to a Micrometer {@code MeterRegistry}.
+ */
+public interface AuditLogMetrics {
+
+  /**
+   * Metrics ignoring every measurement. The instrumentation does not even read the clock when
+   * configured with them.
+   *
+   * @return {@link AuditLogMetrics} recording nothing
+   */
+  static AuditLogMetrics noop() {
+    return NoopAuditLogMetrics.INSTANCE;
+  }
+
+  void recordLatency(Stage stage, long nanos);
+
+  void recordError(Stage stage);
+
+  /**
+   * Record an audited item. Not called for items built with lazy result data, as counting their
+   * nodes would convert the whole execution result.
+   *
+   * @param nodeCount number of result data nodes of the item
+   * @param estimatedBytes estimated serialized size of the item
+   */
+  void recordItem(long nodeCount, long estimatedBytes);
+
+  void recordDropped();
+
+  /**
+   * Record an additional field replaced by a timeout marker as it missed its deadline.
+   */
+  default void recordAdditionalFieldTimeout() {
+  }
+
+  /**
+   * Register the source of the current dispatcher queue depth, read whenever metrics are
+   * published.
+   *
+   * @param queueDepth current number of pending audit log tasks
+   */
+  void registerQueueDepth(LongSupplier queueDepth);
+
+  enum Stage {
+    /** Registering the root field and its arguments. */
+    REGISTER_ACTION,
+    /** Registering the type and original name of a completed field or list items. */
+    REGISTER_TYPE,
+    /** Fetching additional fields of a completed object. */
+    REGISTER_ADDITIONAL_FIELD,
+    /** Handing the item over to the dispatcher on the request thread. */
+    DISPATCH,
+    /** Converting the execution result into result data. */
+    ASSEMBLE,
+    /** Building the anonymized item. */
+    ANONYMIZE,
+    /** Passing the raw and anonymized items to the sender. */
+    SEND
+  }
+}
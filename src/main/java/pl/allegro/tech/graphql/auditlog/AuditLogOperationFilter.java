@@ -0,0 +1,103 @@
+package pl.allegro.tech.graphql.auditlog;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import graphql.language.Field;
+import graphql.language.OperationDefinition;
+import graphql.language.Selection;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Set;
+import pl.allegro.tech.graphql.auditlog.AuditLogItem.OperationType;
+
+/**
+ * Decides, when execution of an operation begins, whether it is audited at all. An operation is
+ * audited when its type is one of the audited types and at least one of its root fields is allowed
+ * and not denied. Root selections other than fields (fragments) are always audited. Operations
+ * which are not audited skip all further audit log bookkeeping.
+ */
+public class AuditLogOperationFilter {
+
+  private final Set<OperationType> operationTypes;
+  private final Set<String> allowedRootFields = new HashSet<>();
+  private final Set<String> deniedRootFields = new HashSet<>();
+
+  private AuditLogOperationFilter(Set<OperationType> operationTypes) {
+    this.operationTypes = operationTypes;
+  }
+
+  /**
+   * Audit queries and mutations.
+   *
+   * @return {@link AuditLogOperationFilter}
+   */
+  public static AuditLogOperationFilter allOperations() {
+    return new AuditLogOperationFilter(EnumSet.allOf(OperationType.class));
+  }
+
+  /**
+   * Audit only operations of the given types.
+   *
+   * @param operationTypes audited {@link OperationType}s
+   * @return {@link AuditLogOperationFilter}
+   */
+  public static AuditLogOperationFilter operationTypes(OperationType... operationTypes) {
+    checkArgument(operationTypes.length > 0, "At least one operation type has to be audited.");
+    return new AuditLogOperationFilter(EnumSet.copyOf(Arrays.asList(operationTypes)));
+  }
+
+  /**
+   * Audit only operations selecting at least one of the given root fields.
+   *
+   * @param rootFields names of root fields
+   * @return {@link AuditLogOperationFilter}
+   */
+  public AuditLogOperationFilter allowRootFields(String... rootFields) {
+    allowedRootFields.addAll(Arrays.asList(rootFields));
+    return this;
+  }
+
+  /**
+   * Do not audit operations selecting only the given root fields.
+   *
+   * @param rootFields names of root fields
+   * @return {@link AuditLogOperationFilter}
+   */
+  public AuditLogOperationFilter denyRootFields(String... rootFields) {
+    deniedRootFields.addAll(Arrays.asList(rootFields));
+    return this;
+  }
+
+  boolean shouldAudit(OperationDefinition operationDefinition) {
+    OperationType operationType = operationType(operationDefinition.getOperation());
+    if (operationType == null || !operationTypes.contains(operationType)) {
+      return false;
+    }
+    if (allowedRootFields.isEmpty() && deniedRootFields.isEmpty()) {
+      return true;
+    }
+    for (Selection<?> selection : operationDefinition.getSelectionSet().getSelections()) {
+      if (!(selection instanceof Field) || isAllowed(((Field) selection).getName())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private boolean isAllowed(String rootField) {
+    return (allowedRootFields.isEmpty() || allowedRootFields.contains(rootField))
+        && !deniedRootFields.contains(rootField);
+  }
+
+  private static OperationType operationType(OperationDefinition.Operation operation) {
+    switch (operation) {
+      case QUERY:
+        return OperationType.QUERY;
+      case MUTATION:
+        return OperationType.MUTATION;
+      default:
+        return null;
+    }
+  }
+}
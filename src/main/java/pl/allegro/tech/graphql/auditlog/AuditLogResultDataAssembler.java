@@ -0,0 +1,301 @@
+package pl.allegro.tech.graphql.auditlog;
+
+import static java.lang.String.format;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import pl.allegro.tech.graphql.auditlog.AuditLogCaptureLimits.Budget;
+import pl.allegro.tech.graphql.auditlog.model.ResultData;
+
+/**
+ * Converts the execution result into {@link ResultData} using types and original field names
+ * registered in the result path tree. Optionally builds the anonymized tree in the same traversal,
+ * consulting the {@link AuditLogAnonymizer} rules on the way down instead of walking and copying
+ * the raw tree a second time. In lazy mode the raw tree is a view converting the result only when
+ * a sender reads it, see {@link LazyResultData}. Values beyond {@link AuditLogCaptureLimits} are
+ * replaced by {@link ResultData.TruncatedResultData}; in lazy mode only the depth and list item
+ * limits apply, as the order and number of reads is up to the sender.
+ */
+class AuditLogResultDataAssembler {
+
+  private static final AuditLogResultDataAssembler RAW =
+      new AuditLogResultDataAssembler(null, false, AuditLogCaptureLimits.unlimited());
+  private static final AuditLogResultDataAssembler LAZY =
+      new AuditLogResultDataAssembler(null, true, AuditLogCaptureLimits.unlimited());
+
+  private final AuditLogAnonymizer anonymizer;
+  private final boolean lazy;
+  private final AuditLogCaptureLimits captureLimits;
+
+  private AuditLogResultDataAssembler(
+      AuditLogAnonymizer anonymizer, boolean lazy, AuditLogCaptureLimits captureLimits) {
+    this.anonymizer = anonymizer;
+    this.lazy = lazy;
+    this.captureLimits = captureLimits;
+  }
+
+  static AuditLogResultDataAssembler raw() {
+    return RAW;
+  }
+
+  static AuditLogResultDataAssembler lazy() {
+    return LAZY;
+  }
+
+  static AuditLogResultDataAssembler withAnonymized(AuditLogAnonymizer anonymizer) {
+    return new AuditLogResultDataAssembler(
+        anonymizer, false, AuditLogCaptureLimits.unlimited());
+  }
+
+  AuditLogResultDataAssembler withCaptureLimits(AuditLogCaptureLimits captureLimits) {
+    return new AuditLogResultDataAssembler(anonymizer, lazy, captureLimits);
+  }
+
+  AssembledResultData assemble(Object outputData, PathNode root) {
+    List<ResultData> raw = new ArrayList<>();
+    List<ResultData> anonymized = anonymizer == null ? null : new ArrayList<>();
+    Budget budget = lazy ? Budget.unlimited() : captureLimits.budget();
+    fields(outputData, root, AuditLogAnonymizer.NO_PARENT, false, budget, raw, anonymized);
+    return new AssembledResultData(raw, anonymized);
+  }
+
+  private void fields(
+      Object outputData,
+      PathNode node,
+      String typeName,
+      boolean anonymizedParent,
+      Budget budget,
+      List<ResultData> raw,
+      List<ResultData> anonymized) {
+    if (outputData == null) {
+      return;
+    } else if (outputData instanceof Map) {
+      Map<String, Object> fields = (Map<String, Object>) outputData;
+      int remaining = fields.size();
+      for (Map.Entry<String, Object> field : fields.entrySet()) {
+        if (budget.isExhausted()) {
+          add(
+              new ResultData.TruncatedResultData(field.getKey(), remaining),
+              false,
+              raw,
+              anonymized);
+          return;
+        }
+        remaining--;
+        field(
+            node.field(field.getKey()), field.getValue(), typeName, anonymizedParent, budget, raw,
+            anonymized);
+      }
+    } else {
+      throw new IllegalStateException(
+          format(
+              "Can't handle %s type in output data type", outputData.getClass().getSimpleName()));
+    }
+  }
+
+  private void field(
+      PathNode node,
+      Object value,
+      String parentTypeName,
+      boolean anonymizedParent,
+      Budget budget,
+      List<ResultData> raw,
+      List<ResultData> anonymized) {
+    String fieldName = node.originalFieldName();
+    if (!isMetadataField(fieldName)) {
+      value(fieldName, value, node, parentTypeName, anonymizedParent, budget, raw, anonymized);
+    } else if (node.isRootField()) {
+      add(
+          new ResultData.IntrospectionResultData(fieldName, node.typeName()),
+          anonymizedParent || shouldAnonymize(fieldName, parentTypeName),
+          budget,
+          raw,
+          anonymized);
+    }
+  }
+
+  private boolean isMetadataField(String fieldName) {
+    return fieldName.startsWith("__");
+  }
+
+  private void value(
+      String name,
+      Object value,
+      PathNode node,
+      String parentTypeName,
+      boolean anonymizedParent,
+      Budget budget,
+      List<ResultData> raw,
+      List<ResultData> anonymized) {
+    boolean anonymize = anonymizedParent || shouldAnonymize(name, parentTypeName);
+    if (value == null) {
+      add(new ResultData.NullResultData(name), anonymize, budget, raw, anonymized);
+    } else if (value instanceof Map && node.depth() >= captureLimits.maxDepth()) {
+      // fields beneath were not registered, see AuditLogCaptureLimits#isCaptured
+      add(
+          new ResultData.TruncatedResultData(name, ((Map<?, ?>) value).size()),
+          false,
+          budget,
+          raw,
+          anonymized);
+    } else if (value instanceof Map && lazy) {
+      String typeName = node.typeName();
+      raw.add(new LazyResultData.LazyObjectResultData(
+          name, typeName, () -> objectFields(value, node, typeName)));
+    } else if (value instanceof Map) {
+      String typeName = node.typeName();
+      budget.consume(
+          AuditLogItemSizeEstimator.node(name) + AuditLogItemSizeEstimator.length(typeName));
+      List<ResultData> rawFields = new ArrayList<>();
+      List<ResultData> anonymizedFields = anonymized == null ? null : new ArrayList<>();
+      fields(value, node, typeName, anonymize, budget, rawFields, anonymizedFields);
+      for (CompletableFuture<ResultData> additionalField : node.additionalFields()) {
+        ResultData resultData = additionalField.join(); // already completed, see sendAuditLog
+        rawFields.add(resultData);
+        if (anonymizedFields != null) {
+          anonymizedFields.add(
+              anonymize ? resultData.anonymize() : anonymizer.anonymize(resultData, typeName));
+        }
+      }
+      ResultData rawObject = new ResultData.ObjectResultData(name, typeName, rawFields);
+      raw.add(rawObject);
+      if (anonymized != null) {
+        anonymized.add(sameElements(rawFields, anonymizedFields)
+            ? rawObject
+            : new ResultData.ObjectResultData(name, typeName, anonymizedFields));
+      }
+    } else if (value instanceof String) {
+      add(
+          new ResultData.ScalarResultData(name, node.typeName(), (String) value),
+          anonymize,
+          budget,
+          raw,
+          anonymized);
+    } else if (value instanceof Boolean || value instanceof Integer || value instanceof Float) {
+      add(
+          new ResultData.ScalarResultData(name, node.typeName(), String.valueOf(value)),
+          anonymize,
+          budget,
+          raw,
+          anonymized);
+    } else if (value instanceof List && lazy) {
+      List<Object> listValue = (List<Object>) value;
+      int size = listValue.size();
+      int captured = Math.min(size, captureLimits.maxListItems());
+      raw.add(new LazyResultData.LazyArrayResultData(
+          name,
+          captured < size ? captured + 1 : size,
+          index -> index < captured
+              ? item(index, listValue.get(index), node.item(index))
+              : truncatedItems(captured, size)));
+    } else if (value instanceof List) {
+      List<Object> listValue = (List<Object>) value;
+      int captured = Math.min(listValue.size(), captureLimits.maxListItems());
+      budget.consume(AuditLogItemSizeEstimator.node(name));
+      List<ResultData> rawItems = new ArrayList<>(captured);
+      List<ResultData> anonymizedItems = anonymized == null ? null : new ArrayList<>(captured);
+      for (int i = 0; i < listValue.size(); i++) {
+        if (i == captured || budget.isExhausted()) {
+          add(truncatedItems(i, listValue.size()), false, rawItems, anonymizedItems);
+          break;
+        }
+        value(
+            String.valueOf(i), listValue.get(i), node.item(i), AuditLogAnonymizer.NO_PARENT,
+            anonymize, budget, rawItems, anonymizedItems);
+      }
+      ResultData rawArray = new ResultData.ArrayResultData(name, rawItems);
+      raw.add(rawArray);
+      if (anonymized != null) {
+        anonymized.add(sameElements(rawItems, anonymizedItems)
+            ? rawArray
+            : new ResultData.ArrayResultData(name, anonymizedItems));
+      }
+    } else {
+      throw new IllegalStateException(
+          format(
+              "Can't handle %s type in output data type", value.getClass().getSimpleName()));
+    }
+  }
+
+  private List<ResultData> objectFields(Object value, PathNode node, String typeName) {
+    List<ResultData> rawFields = new ArrayList<>();
+    fields(value, node, typeName, false, Budget.unlimited(), rawFields, null);
+    for (CompletableFuture<ResultData> additionalField : node.additionalFields()) {
+      rawFields.add(additionalField.join());
+    }
+    return rawFields;
+  }
+
+  private ResultData item(int index, Object value, PathNode node) {
+    List<ResultData> item = new ArrayList<>(1);
+    value(
+        String.valueOf(index), value, node, AuditLogAnonymizer.NO_PARENT, false,
+        Budget.unlimited(), item, null);
+    return item.get(0);
+  }
+
+  private static ResultData truncatedItems(int index, int size) {
+    return new ResultData.TruncatedResultData(String.valueOf(index), size - index);
+  }
+
+  private boolean shouldAnonymize(String name, String parentTypeName) {
+    return anonymizer != null && anonymizer.shouldAnonymize(name, parentTypeName);
+  }
+
+  /**
+   * Whether nothing was anonymized beneath, so the anonymized tree can share the raw node.
+   */
+  private static boolean sameElements(List<ResultData> raw, List<ResultData> anonymized) {
+    for (int i = 0; i < raw.size(); i++) {
+      if (raw.get(i) != anonymized.get(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static void add(
+      ResultData resultData,
+      boolean anonymize,
+      Budget budget,
+      List<ResultData> raw,
+      List<ResultData> anonymized) {
+    budget.consume(AuditLogItemSizeEstimator.resultData(resultData));
+    add(resultData, anonymize, raw, anonymized);
+  }
+
+  private static void add(
+      ResultData resultData,
+      boolean anonymize,
+      List<ResultData> raw,
+      List<ResultData> anonymized) {
+    raw.add(resultData);
+    if (anonymized != null) {
+      anonymized.add(anonymize ? resultData.anonymize() : resultData);
+    }
+  }
+
+  static class AssembledResultData {
+
+    private final List<ResultData> raw;
+    private final List<ResultData> anonymized;
+
+    private AssembledResultData(List<ResultData> raw, List<ResultData> anonymized) {
+      this.raw = raw;
+      this.anonymized = anonymized;
+    }
+
+    List<ResultData> raw() {
+      return raw;
+    }
+
+    /**
+     * Anonymized result data, {@code null} when the assembler was created with {@link #raw()}.
+     */
+    List<ResultData> anonymized() {
+      return anonymized;
+    }
+  }
+}
@@ -0,0 +1,207 @@
+package pl.allegro.tech.graphql.auditlog;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+import graphql.ExecutionInput;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Head sampling of audited requests. The decision is taken once per request, before the query is
+ * parsed, from the header of the executed operation; mutations, and requests whose operation
+ * can't be found in the document, are always sampled. Unsampled requests are not instrumented at
+ * all.
+ */
+public class AuditLogSamplingPolicy {
+
+  private static final String MUTATION_KEYWORD = "mutation";
+  private static final Set<String> OPERATION_KEYWORDS =
+      Set.of("query", MUTATION_KEYWORD, "subscription");
+  private static final String BLOCK_STRING_QUOTE = "\"\"\"";
+
+  private final double defaultRate;
+  private final Map<String, Double> operationRates = new HashMap<>();
+
+  private AuditLogSamplingPolicy(double defaultRate) {
+    this.defaultRate = checkRate(defaultRate);
+  }
+
+  /**
+   * Audit every request.
+   *
+   * @return {@link AuditLogSamplingPolicy}
+   */
+  public static AuditLogSamplingPolicy always() {
+    return new AuditLogSamplingPolicy(1.0);
+  }
+
+  /**
+   * Audit the given fraction of queries without a configured operation rate.
+   *
+   * @param defaultRate fraction of audited requests from 0.0 to 1.0
+   * @return {@link AuditLogSamplingPolicy}
+   */
+  public static AuditLogSamplingPolicy rate(double defaultRate) {
+    return new AuditLogSamplingPolicy(defaultRate);
+  }
+
+  /**
+   * Audit the given fraction of queries with the operation name.
+   *
+   * @param operationName name of the GraphQL operation
+   * @param rate fraction of audited requests from 0.0 to 1.0
+   * @return {@link AuditLogSamplingPolicy}
+   */
+  public AuditLogSamplingPolicy withOperationRate(String operationName, double rate) {
+    operationRates.put(requireNonNull(operationName), checkRate(rate));
+    return this;
+  }
+
+  boolean shouldSample(ExecutionInput executionInput) {
+    String query = executionInput.getQuery();
+    if (query == null) {
+      return true;
+    }
+    int operationStart = operationStart(query, executionInput.getOperationName());
+    if (operationStart < 0 || query.startsWith(MUTATION_KEYWORD, operationStart)) {
+      return true;
+    }
+    String operationName = executionInput.getOperationName() != null
+        ? executionInput.getOperationName()
+        : operationName(query, operationStart);
+    double rate = operationName == null
+        ? defaultRate
+        : operationRates.getOrDefault(operationName, defaultRate);
+    return rate >= 1.0 || (rate > 0.0 && ThreadLocalRandom.current().nextDouble() < rate);
+  }
+
+  /**
+   * Name of the first operation of the document, read from its header without parsing the query.
+   */
+  static String operationName(String query) {
+    int operationStart = operationStart(query, null);
+    return operationStart < 0 ? null : operationName(query, operationStart);
+  }
+
+  private static String operationName(String query, int operationStart) {
+    int keywordEnd = nameEnd(query, operationStart);
+    int nameStart = skipIgnored(query, keywordEnd);
+    int nameEnd = nameEnd(query, nameStart);
+    return nameStart == nameEnd ? null : query.substring(nameStart, nameEnd);
+  }
+
+  /**
+   * Position of the header of the operation the request executes: the operation with the given
+   * name, or the first operation of the document without it. Only top level definition headers
+   * are read, so names, strings and comments inside selections and variable definitions are
+   * skipped.
+   *
+   * @return index of the operation keyword, or of the selection set of the shorthand query, -1
+   *     when the operation is not found
+   */
+  static int operationStart(String query, String operationName) {
+    int depth = 0;
+    boolean definitionStart = true;
+    int index = skipIgnored(query, 0);
+    while (index < query.length()) {
+      char character = query.charAt(index);
+      if (definitionStart) {
+        definitionStart = false;
+        if (character == '{') {
+          // shorthand query has no name
+          if (operationName == null) {
+            return index;
+          }
+        } else {
+          int keywordEnd = nameEnd(query, index);
+          if (keywordEnd == index) {
+            return -1;
+          }
+          if (OPERATION_KEYWORDS.contains(query.substring(index, keywordEnd))
+              && (operationName == null
+              || operationName.equals(operationName(query, index)))) {
+            return index;
+          }
+          index = keywordEnd;
+          continue;
+        }
+      }
+      if (character == '"') {
+        index = stringEnd(query, index);
+      } else {
+        if (character == '{' || character == '(' || character == '[') {
+          depth++;
+        } else if (character == '}' || character == ')' || character == ']') {
+          depth--;
+          definitionStart = depth == 0 && character == '}';
+        }
+        index++;
+      }
+      index = skipIgnored(query, index);
+    }
+    return -1;
+  }
+
+  private static int stringEnd(String query, int index) {
+    if (query.startsWith(BLOCK_STRING_QUOTE, index)) {
+      int end = index + BLOCK_STRING_QUOTE.length();
+      while (end < query.length()) {
+        if (query.startsWith("\\" + BLOCK_STRING_QUOTE, end)) {
+          end += BLOCK_STRING_QUOTE.length() + 1;
+        } else if (query.startsWith(BLOCK_STRING_QUOTE, end)) {
+          return end + BLOCK_STRING_QUOTE.length();
+        } else {
+          end++;
+        }
+      }
+      return end;
+    }
+    int end = index + 1;
+    while (end < query.length()) {
+      char character = query.charAt(end);
+      if (character == '\\') {
+        end += 2;
+      } else if (character == '"' || character == '\n') {
+        return end + 1;
+      } else {
+        end++;
+      }
+    }
+    return end;
+  }
+
+  private static int skipIgnored(String query, int index) {
+    while (index < query.length()) {
+      char character = query.charAt(index);
+      if (character == '#') {
+        while (index < query.length() && query.charAt(index) != '\n') {
+          index++;
+        }
+      } else if (Character.isWhitespace(character) || character == ',') {
+        index++;
+      } else {
+        return index;
+      }
+    }
+    return index;
+  }
+
+  private static int nameEnd(String query, int index) {
+    while (index < query.length()) {
+      char character = query.charAt(index);
+      if (character != '_' && !Character.isLetterOrDigit(character)) {
+        return index;
+      }
+      index++;
+    }
+    return index;
+  }
+
+  private static double checkRate(double rate) {
+    checkArgument(rate >= 0.0 && rate <= 1.0, "Sampling rate has to be between 0.0 and 1.0.");
+    return rate;
+  }
+}
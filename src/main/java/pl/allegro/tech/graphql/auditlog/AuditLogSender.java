@@ -1,7 +1,17 @@
 package pl.allegro.tech.graphql.auditlog;
 
+import java.util.List;
+
 public interface AuditLogSender {
   default void send(AuditLogItem auditLogItem){}
 
   default void sendAnonymized(AuditLogItem auditLogItem){}
+
+  default void sendBatch(List<AuditLogItem> auditLogItems) {
+    auditLogItems.forEach(this::send);
+  }
+
+  default void sendAnonymizedBatch(List<AuditLogItem> auditLogItems) {
+    auditLogItems.forEach(this::sendAnonymized);
+  }
 }
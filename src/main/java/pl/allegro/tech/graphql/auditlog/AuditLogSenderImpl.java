@@ -10,13 +10,20 @@ class AuditLogSenderImpl implements AuditLogSender {
   private static final Logger logger =
       LoggerFactory.getLogger(AuditLogSenderImpl.class);
 
+  private final AuditLogItemJsonSerializer serializer = new AuditLogItemJsonSerializer();
+
   @Override
   public void send(AuditLogItem auditLogItem) {
-    logger.info(format("A audit log was sent - %s", auditLogItem.toString()));
+    if (logger.isInfoEnabled()) {
+      logger.info(format("A audit log was sent - %s", serializer.writeAsString(auditLogItem)));
+    }
   }
 
   @Override
   public void sendAnonymized(AuditLogItem auditLogItem) {
-    logger.info(format("A anonymized audit log was sent - %s", auditLogItem.toString()));
+    if (logger.isInfoEnabled()) {
+      logger.info(format(
+          "A anonymized audit log was sent - %s", serializer.writeAsString(auditLogItem)));
+    }
   }
 }
@@ -3,16 +3,14 @@ package pl.allegro.tech.graphql.auditlog;
 import java.util.List;
 
 class DefaultAdditionalFieldsSetupPreconditions implements AdditionalFieldsSetupPreconditions {
-  private final List<FieldSetup> fieldsSetup;
+  private final FieldSetupIndex fieldsSetup;
 
   public DefaultAdditionalFieldsSetupPreconditions(List<FieldSetup> fieldsSetup) {
-    this.fieldsSetup = fieldsSetup;
+    this.fieldsSetup = FieldSetupIndex.compile(fieldsSetup);
   }
 
   @Override
   public boolean shouldBeAdditional(String objectName, String fieldName) {
-    return fieldsSetup.stream()
-        .filter(json -> json.objectName().equals(objectName))
-        .anyMatch(json -> json.fieldName().equals(fieldName));
+    return fieldsSetup.matches(objectName, fieldName);
   }
 }
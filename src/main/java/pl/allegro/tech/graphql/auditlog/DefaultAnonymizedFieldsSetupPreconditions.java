@@ -4,16 +4,14 @@ import java.util.List;
 
 class DefaultAnonymizedFieldsSetupPreconditions implements AnonymizedFieldsSetupPreconditions {
 
-  private final List<FieldSetup> fieldsSetup;
+  private final FieldSetupIndex fieldsSetup;
 
   public DefaultAnonymizedFieldsSetupPreconditions(List<FieldSetup> fieldsSetup) {
-    this.fieldsSetup = fieldsSetup;
+    this.fieldsSetup = FieldSetupIndex.compile(fieldsSetup);
   }
 
   @Override
   public boolean shouldAnonymize(String objectName, String fieldName) {
-    return fieldsSetup.stream()
-        .filter(json -> json.objectName().equals(objectName))
-        .anyMatch(json -> json.fieldName().equals(fieldName));
+    return fieldsSetup.matches(objectName, fieldName);
   }
 }
@@ -0,0 +1,73 @@
+package pl.allegro.tech.graphql.auditlog;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Immutable index of {@link FieldSetup} rules compiled once from the configuration. Object name
+ * and field name can be {@value #WILDCARD} to match any object or any field, so a lookup is at
+ * most three hash lookups regardless of the number of rules.
+ */
+class FieldSetupIndex {
+
+  static final String WILDCARD = "*";
+
+  private final Map<String, Set<String>> fieldsByObject;
+  private final Set<String> objectsWithAnyField;
+  private final Set<String> fieldsOfAnyObject;
+  private final boolean matchesAll;
+
+  private FieldSetupIndex(
+      Map<String, Set<String>> fieldsByObject,
+      Set<String> objectsWithAnyField,
+      Set<String> fieldsOfAnyObject,
+      boolean matchesAll) {
+    this.fieldsByObject = fieldsByObject;
+    this.objectsWithAnyField = objectsWithAnyField;
+    this.fieldsOfAnyObject = fieldsOfAnyObject;
+    this.matchesAll = matchesAll;
+  }
+
+  static FieldSetupIndex compile(List<FieldSetup> fieldSetups) {
+    Map<String, Set<String>> fieldsByObject = new HashMap<>();
+    Set<String> objectsWithAnyField = new HashSet<>();
+    Set<String> fieldsOfAnyObject = new HashSet<>();
+    boolean matchesAll = false;
+    for (FieldSetup fieldSetup : fieldSetups) {
+      boolean anyObject = WILDCARD.equals(fieldSetup.objectName());
+      boolean anyField = WILDCARD.equals(fieldSetup.fieldName());
+      if (anyObject && anyField) {
+        matchesAll = true;
+      } else if (anyObject) {
+        fieldsOfAnyObject.add(fieldSetup.fieldName());
+      } else if (anyField) {
+        objectsWithAnyField.add(fieldSetup.objectName());
+      } else {
+        fieldsByObject
+            .computeIfAbsent(fieldSetup.objectName(), it -> new HashSet<>())
+            .add(fieldSetup.fieldName());
+      }
+    }
+    return new FieldSetupIndex(
+        fieldsByObject.entrySet().stream()
+            .collect(Collectors.toUnmodifiableMap(
+                Map.Entry::getKey, it -> Set.copyOf(it.getValue()))),
+        Set.copyOf(objectsWithAnyField),
+        Set.copyOf(fieldsOfAnyObject),
+        matchesAll);
+  }
+
+  boolean matches(String objectName, String fieldName) {
+    if (matchesAll) {
+      return true;
+    }
+    Set<String> fields = fieldsByObject.get(objectName);
+    return (fields != null && fields.contains(fieldName))
+        || objectsWithAnyField.contains(objectName)
+        || fieldsOfAnyObject.contains(fieldName);
+  }
+}
@@ -0,0 +1,90 @@
+package pl.allegro.tech.graphql.auditlog;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+import pl.allegro.tech.graphql.auditlog.model.ResultData;
+
+/**
+ * {@link ResultData} containers converting the execution result on first access. Fields of an
+ * object are converted once and kept; items of an array are converted on every access and not
+ * kept, so a sender iterating a huge list streams it without holding the converted copy.
+ */
+final class LazyResultData {
+
+  private LazyResultData() {}
+
+  static class LazyObjectResultData extends ResultData.ObjectResultData {
+
+    private final Supplier<List<? extends ResultData>> fieldsSupplier;
+    private volatile List<? extends ResultData> fields;
+
+    LazyObjectResultData(
+        String name, String typeName, Supplier<List<? extends ResultData>> fieldsSupplier) {
+      super(name, typeName, null);
+      this.fieldsSupplier = fieldsSupplier;
+    }
+
+    @Override
+    public List<? extends ResultData> getFields() {
+      List<? extends ResultData> current = fields;
+      if (current == null) {
+        synchronized (this) {
+          current = fields;
+          if (current == null) {
+            current = fieldsSupplier.get();
+            fields = current;
+          }
+        }
+      }
+      return current;
+    }
+
+    @Override
+    public ResultData.ObjectResultData anonymize() {
+      return new LazyObjectResultData(
+          getName(),
+          getTypeName(),
+          () -> getFields().stream().map(ResultData::anonymize).collect(Collectors.toList()));
+    }
+  }
+
+  static class LazyArrayResultData extends ResultData.ArrayResultData {
+
+    private final int size;
+    private final IntFunction<ResultData> item;
+
+    LazyArrayResultData(String name, int size, IntFunction<ResultData> item) {
+      super(name, null);
+      this.size = size;
+      this.item = item;
+    }
+
+    @Override
+    public List<? extends ResultData> getItems() {
+      return new AbstractList<>() {
+        @Override
+        public ResultData get(int index) {
+          return item.apply(index);
+        }
+
+        @Override
+        public int size() {
+          return size;
+        }
+      };
+    }
+
+    @Override
+    public ResultData.ArrayResultData anonymize() {
+      return map(ResultData::anonymize);
+    }
+
+    LazyArrayResultData map(UnaryOperator<ResultData> mapping) {
+      return new LazyArrayResultData(getName(), size, index -> mapping.apply(item.apply(index)));
+    }
+  }
+}
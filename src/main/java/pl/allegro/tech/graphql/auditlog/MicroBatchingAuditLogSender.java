@@ -0,0 +1,196 @@
+package pl.allegro.tech.graphql.auditlog;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.lang.String.format;
+import static java.util.Objects.requireNonNull;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link AuditLogSender} decorator accumulating items and passing them to
+ * {@link AuditLogSender#sendBatch(List)} and {@link AuditLogSender#sendAnonymizedBatch(List)}
+ * of the delegate. A batch is flushed when it reaches the maximum number of items, the maximum
+ * estimated size in bytes or when its first item has waited for the maximum linger time.
+ */
+public class MicroBatchingAuditLogSender implements AuditLogSender, AutoCloseable {
+
+  private static final Logger logger = LoggerFactory.getLogger(MicroBatchingAuditLogSender.class);
+
+  private final int maxBatchSize;
+  private final long maxBatchBytes;
+  private final Duration maxLinger;
+  private final ToLongFunction<AuditLogItem> sizeEstimator;
+  private final ScheduledExecutorService scheduler;
+  private final Batch batch;
+  private final Batch anonymizedBatch;
+
+  /**
+   * Create batching sender estimating item sizes from names and values of the result data.
+   *
+   * @param delegate {@link AuditLogSender} receiving batches
+   * @param maxBatchSize maximum number of items in a batch
+   * @param maxBatchBytes maximum estimated size of a batch in bytes
+   * @param maxLinger maximum time the first item of a batch waits for the flush
+   */
+  public MicroBatchingAuditLogSender(
+      AuditLogSender delegate, int maxBatchSize, long maxBatchBytes, Duration maxLinger) {
+    this(delegate, maxBatchSize, maxBatchBytes, maxLinger, AuditLogItemSizeEstimator::estimate);
+  }
+
+  /**
+   * Create batching sender.
+   *
+   * @param delegate {@link AuditLogSender} receiving batches
+   * @param maxBatchSize maximum number of items in a batch
+   * @param maxBatchBytes maximum size of a batch in bytes
+   * @param maxLinger maximum time the first item of a batch waits for the flush
+   * @param sizeEstimator size of a single item in bytes
+   */
+  public MicroBatchingAuditLogSender(
+      AuditLogSender delegate,
+      int maxBatchSize,
+      long maxBatchBytes,
+      Duration maxLinger,
+      ToLongFunction<AuditLogItem> sizeEstimator) {
+    requireNonNull(delegate);
+    checkArgument(maxBatchSize > 0, "Maximum batch size has to be positive.");
+    checkArgument(maxBatchBytes > 0, "Maximum batch bytes has to be positive.");
+    this.maxBatchSize = maxBatchSize;
+    this.maxBatchBytes = maxBatchBytes;
+    this.maxLinger = requireNonNull(maxLinger);
+    this.sizeEstimator = requireNonNull(sizeEstimator);
+    this.scheduler = Executors.newSingleThreadScheduledExecutor(
+        new ThreadFactoryBuilder()
+            .setNameFormat("audit-log-batch-flusher-%d")
+            .setDaemon(true)
+            .build());
+    this.batch = new Batch(delegate::sendBatch);
+    this.anonymizedBatch = new Batch(delegate::sendAnonymizedBatch);
+  }
+
+  @Override
+  public void send(AuditLogItem auditLogItem) {
+    batch.add(auditLogItem);
+  }
+
+  @Override
+  public void sendAnonymized(AuditLogItem auditLogItem) {
+    anonymizedBatch.add(auditLogItem);
+  }
+
+  @Override
+  public void sendBatch(List<AuditLogItem> auditLogItems) {
+    auditLogItems.forEach(batch::add);
+  }
+
+  @Override
+  public void sendAnonymizedBatch(List<AuditLogItem> auditLogItems) {
+    auditLogItems.forEach(anonymizedBatch::add);
+  }
+
+  /**
+   * Send all accumulated items immediately.
+   */
+  public void flush() {
+    batch.flush();
+    anonymizedBatch.flush();
+  }
+
+  /**
+   * Flush accumulated items and stop the linger timer.
+   */
+  @Override
+  public void close() {
+    scheduler.shutdownNow();
+    flush();
+  }
+
+  private class Batch {
+
+    private final Consumer<List<AuditLogItem>> sink;
+    private List<AuditLogItem> items = new ArrayList<>();
+    private long bytes;
+    private long generation;
+
+    private Batch(Consumer<List<AuditLogItem>> sink) {
+      this.sink = sink;
+    }
+
+    void add(AuditLogItem auditLogItem) {
+      long itemBytes = sizeEstimator.applyAsLong(auditLogItem);
+      List<AuditLogItem> full = null;
+      synchronized (this) {
+        items.add(auditLogItem);
+        bytes += itemBytes;
+        if (items.size() >= maxBatchSize || bytes >= maxBatchBytes) {
+          full = takeItems();
+        } else if (items.size() == 1) {
+          scheduleLingerFlush(generation);
+        }
+      }
+      send(full);
+    }
+
+    void flush() {
+      List<AuditLogItem> pending;
+      synchronized (this) {
+        pending = takeItems();
+      }
+      send(pending);
+    }
+
+    private void flushGeneration(long expectedGeneration) {
+      List<AuditLogItem> pending = null;
+      synchronized (this) {
+        if (generation == expectedGeneration) {
+          pending = takeItems();
+        }
+      }
+      send(pending);
+    }
+
+    private void scheduleLingerFlush(long currentGeneration) {
+      try {
+        scheduler.schedule(
+            () -> flushGeneration(currentGeneration),
+            maxLinger.toNanos(),
+            TimeUnit.NANOSECONDS);
+      } catch (RejectedExecutionException e) {
+        logger.warn("Audit log batch sender is closed, batch will be sent on the next flush");
+      }
+    }
+
+    private List<AuditLogItem> takeItems() {
+      if (items.isEmpty()) {
+        return null;
+      }
+      List<AuditLogItem> taken = items;
+      items = new ArrayList<>(Math.min(taken.size(), maxBatchSize));
+      bytes = 0;
+      generation++;
+      return taken;
+    }
+
+    private void send(List<AuditLogItem> pending) {
+      if (pending == null) {
+        return;
+      }
+      try {
+        sink.accept(pending);
+      } catch (Exception e) {
+        logger.error(format("Error on sending batch of %s audit logs", pending.size()), e);
+      }
+    }
+  }
+}
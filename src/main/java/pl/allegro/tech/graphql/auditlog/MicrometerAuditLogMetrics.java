@@ -0,0 +1,105 @@
+package pl.allegro.tech.graphql.auditlog;
+
+import static java.util.Objects.requireNonNull;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * {@link AuditLogMetrics} publishing measurements to a Micrometer {@link MeterRegistry}. Micrometer
+ * is an optional dependency, it has to be on the classpath of applications using this class.
+ *
+ * <p>Meters: {@code audit.log.stage} timer and {@code audit.log.stage.errors} counter tagged with
+ * the stage, {@code audit.log.item.nodes} and {@code audit.log.item.size} distribution summaries,
+ * {@code audit.log.dropped} and {@code audit.log.additional.field.timeouts} counters and
+ * {@code audit.log.queue.depth} gauge.
+ */
+public class MicrometerAuditLogMetrics implements AuditLogMetrics {
+
+  private final Map<Stage, Timer> latencies = new EnumMap<>(Stage.class);
+  private final Map<Stage, Counter> errors = new EnumMap<>(Stage.class);
+  private final DistributionSummary itemNodes;
+  private final DistributionSummary itemBytes;
+  private final Counter dropped;
+  private final Counter additionalFieldTimeouts;
+  private final List<LongSupplier> queueDepths = new CopyOnWriteArrayList<>();
+
+  /**
+   * Create metrics and register their meters.
+   *
+   * @param registry {@link MeterRegistry}
+   */
+  public MicrometerAuditLogMetrics(MeterRegistry registry) {
+    requireNonNull(registry);
+    for (Stage stage : Stage.values()) {
+      String tag = stage.name().toLowerCase();
+      latencies.put(stage, Timer.builder("audit.log.stage")
+          .tag("stage", tag)
+          .publishPercentileHistogram()
+          .register(registry));
+      errors.put(stage, Counter.builder("audit.log.stage.errors")
+          .tag("stage", tag)
+          .register(registry));
+    }
+    this.itemNodes = DistributionSummary.builder("audit.log.item.nodes")
+        .publishPercentileHistogram()
+        .register(registry);
+    this.itemBytes = DistributionSummary.builder("audit.log.item.size")
+        .baseUnit("bytes")
+        .publishPercentileHistogram()
+        .register(registry);
+    this.dropped = Counter.builder("audit.log.dropped").register(registry);
+    this.additionalFieldTimeouts =
+        Counter.builder("audit.log.additional.field.timeouts").register(registry);
+    Gauge.builder("audit.log.queue.depth", this, MicrometerAuditLogMetrics::queueDepth)
+        .register(registry);
+  }
+
+  @Override
+  public void recordLatency(Stage stage, long nanos) {
+    latencies.get(stage).record(nanos, TimeUnit.NANOSECONDS);
+  }
+
+  @Override
+  public void recordError(Stage stage) {
+    errors.get(stage).increment();
+  }
+
+  @Override
+  public void recordItem(long nodeCount, long estimatedBytes) {
+    itemNodes.record(nodeCount);
+    itemBytes.record(estimatedBytes);
+  }
+
+  @Override
+  public void recordDropped() {
+    dropped.increment();
+  }
+
+  @Override
+  public void recordAdditionalFieldTimeout() {
+    additionalFieldTimeouts.increment();
+  }
+
+  @Override
+  public void registerQueueDepth(LongSupplier queueDepth) {
+    queueDepths.add(requireNonNull(queueDepth));
+  }
+
+  private double queueDepth() {
+    long depth = 0;
+    for (LongSupplier queueDepth : queueDepths) {
+      depth += queueDepth.getAsLong();
+    }
+    return depth;
+  }
+}
@@ -0,0 +1,34 @@
+package pl.allegro.tech.graphql.auditlog;
+
+import java.util.function.LongSupplier;
+
+/**
+ * {@link AuditLogMetrics} ignoring every measurement.
+ */
+final class NoopAuditLogMetrics implements AuditLogMetrics {
+
+  static final NoopAuditLogMetrics INSTANCE = new NoopAuditLogMetrics();
+
+  private NoopAuditLogMetrics() {
+  }
+
+  @Override
+  public void recordLatency(Stage stage, long nanos) {
+  }
+
+  @Override
+  public void recordError(Stage stage) {
+  }
+
+  @Override
+  public void recordItem(long nodeCount, long estimatedBytes) {
+  }
+
+  @Override
+  public void recordDropped() {
+  }
+
+  @Override
+  public void registerQueueDepth(LongSupplier queueDepth) {
+  }
+}
@@ -0,0 +1,108 @@
+package pl.allegro.tech.graphql.auditlog;
+
+import static java.lang.String.format;
+
+import graphql.language.Argument;
+import graphql.language.ArrayValue;
+import graphql.language.BooleanValue;
+import graphql.language.EnumValue;
+import graphql.language.Field;
+import graphql.language.FloatValue;
+import graphql.language.IntValue;
+import graphql.language.NullValue;
+import graphql.language.ObjectField;
+import graphql.language.ObjectValue;
+import graphql.language.OperationDefinition;
+import graphql.language.StringValue;
+import graphql.language.Value;
+import graphql.language.VariableDefinition;
+import graphql.language.VariableReference;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Arguments of a root field as sent by the client. Literals are converted to plain Java values,
+ * variables are taken from the request, or from their default value when the request leaves them
+ * out. Values are not coerced by the schema, so custom scalars are audited in their input form.
+ */
+class OperationArguments {
+
+  private static final Logger logger = LoggerFactory.getLogger(OperationArguments.class);
+
+  private OperationArguments() { }
+
+  /**
+   * Argument values of the field, {@link Optional#empty()} standing for {@code null}.
+   *
+   * @param variables variables of the request, shared by all root fields and not copied
+   * @param operation operation defining default values of variables
+   */
+  static Map<String, Object> of(
+      Field field, Map<String, Object> variables, OperationDefinition operation) {
+    List<Argument> arguments = field.getArguments();
+    if (arguments.isEmpty()) {
+      return Map.of();
+    }
+    Map<String, Object> values = new HashMap<>(arguments.size() * 2);
+    for (Argument argument : arguments) {
+      Object value = value(argument.getValue(), variables, operation);
+      values.put(argument.getName(), value == null ? Optional.empty() : value);
+    }
+    return values;
+  }
+
+  private static Object value(
+      Value<?> value, Map<String, Object> variables, OperationDefinition operation) {
+    if (value instanceof StringValue) {
+      return ((StringValue) value).getValue();
+    } else if (value instanceof EnumValue) {
+      return ((EnumValue) value).getName();
+    } else if (value instanceof IntValue) {
+      return ((IntValue) value).getValue();
+    } else if (value instanceof BooleanValue) {
+      return ((BooleanValue) value).isValue();
+    } else if (value instanceof FloatValue) {
+      return ((FloatValue) value).getValue();
+    } else if (value instanceof NullValue) {
+      return null;
+    } else if (value instanceof VariableReference) {
+      return variable(((VariableReference) value).getName(), variables, operation);
+    } else if (value instanceof ArrayValue) {
+      List<Value> items = ((ArrayValue) value).getValues();
+      List<Object> values = new ArrayList<>(items.size());
+      for (Value<?> item : items) {
+        values.add(value(item, variables, operation));
+      }
+      return values;
+    } else if (value instanceof ObjectValue) {
+      List<ObjectField> fields = ((ObjectValue) value).getObjectFields();
+      Map<String, Object> values = new LinkedHashMap<>(fields.size() * 2);
+      for (ObjectField field : fields) {
+        values.put(field.getName(), value(field.getValue(), variables, operation));
+      }
+      return values;
+    }
+    logger.info(format("Unknown value type %s for name", value.getClass().getName()));
+    return value;
+  }
+
+  private static Object variable(
+      String name, Map<String, Object> variables, OperationDefinition operation) {
+    if (variables.containsKey(name)) {
+      return variables.get(name);
+    }
+    for (VariableDefinition definition : operation.getVariableDefinitions()) {
+      if (definition.getName().equals(name) && definition.getDefaultValue() != null) {
+        // default values are constants, they can't refer to other variables
+        return value(definition.getDefaultValue(), Map.of(), operation);
+      }
+    }
+    return null;
+  }
+}
@@ -0,0 +1,150 @@
+package pl.allegro.tech.graphql.auditlog;
+
+import static java.lang.String.format;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import pl.allegro.tech.graphql.auditlog.model.ResultData;
+
+/**
+ * Node of the per-request result path tree. Children are keyed by path segments (field names
+ * and list indexes), so looking up the node of a result value is a walk down the tree instead of
+ * building a path string.
+ */
+class PathNode {
+
+  private final PathNode parent;
+  private final Object segment;
+  private final int depth;
+  private volatile Map<String, PathNode> fields;
+  private volatile PathNode[] items;
+  private volatile String typeName;
+  private volatile String originalFieldName;
+  private volatile Queue<CompletableFuture<ResultData>> additionalFields;
+
+  private PathNode(PathNode parent, Object segment) {
+    this.parent = parent;
+    this.segment = segment;
+    this.depth = parent == null ? 0 : parent.depth + (segment instanceof String ? 1 : 0);
+  }
+
+  static PathNode root() {
+    return new PathNode(null, null);
+  }
+
+  /**
+   * Number of field segments on the path, list indexes are not counted.
+   */
+  int depth() {
+    return depth;
+  }
+
+  boolean isRootField() {
+    return parent != null && parent.parent == null;
+  }
+
+  PathNode field(String name) {
+    Map<String, PathNode> current = fields;
+    PathNode node = current == null ? null : current.get(name);
+    if (node == null) {
+      throw new NullPointerException(
+          format("Can't find original field name for path %s/%s", path(), name));
+    }
+    return node;
+  }
+
+  PathNode item(int index) {
+    PathNode[] current = items;
+    PathNode node = current != null && index < current.length ? current[index] : null;
+    if (node == null) {
+      throw new NullPointerException(format("Can't find type for path %s/%s", path(), index));
+    }
+    return node;
+  }
+
+  PathNode fieldForWrite(String name) {
+    Map<String, PathNode> current = fields;
+    if (current == null) {
+      synchronized (this) {
+        current = fields;
+        if (current == null) {
+          current = new ConcurrentHashMap<>();
+          fields = current;
+        }
+      }
+    }
+    return current.computeIfAbsent(name, it -> new PathNode(this, it));
+  }
+
+  synchronized PathNode itemForWrite(int index) {
+    ensureItemCapacity(index + 1);
+    PathNode[] current = items;
+    if (current[index] == null) {
+      current[index] = new PathNode(this, index);
+    }
+    return current[index];
+  }
+
+  synchronized void ensureItemCapacity(int size) {
+    PathNode[] current = items;
+    if (current == null) {
+      items = new PathNode[size];
+    } else if (current.length < size) {
+      items = Arrays.copyOf(current, size);
+    }
+  }
+
+  void registerTypeName(String typeName) {
+    this.typeName = typeName;
+  }
+
+  void registerOriginalFieldName(String originalFieldName) {
+    this.originalFieldName = originalFieldName;
+  }
+
+  String typeName() {
+    String current = typeName;
+    if (current == null) {
+      throw new NullPointerException(format("Can't find type for path %s", path()));
+    }
+    return current;
+  }
+
+  String originalFieldName() {
+    String current = originalFieldName;
+    if (current == null) {
+      throw new NullPointerException(
+          format("Can't find original field name for path %s", path()));
+    }
+    return current;
+  }
+
+  void registerAdditionalField(CompletableFuture<ResultData> resultData) {
+    Queue<CompletableFuture<ResultData>> current = additionalFields;
+    if (current == null) {
+      synchronized (this) {
+        current = additionalFields;
+        if (current == null) {
+          current = new ConcurrentLinkedQueue<>();
+          additionalFields = current;
+        }
+      }
+    }
+    current.add(resultData);
+  }
+
+  Collection<CompletableFuture<ResultData>> additionalFields() {
+    Queue<CompletableFuture<ResultData>> current = additionalFields;
+    return current == null ? List.of() : current;
+  }
+
+  String path() {
+    return parent == null ? "" : parent.path() + "/" + segment;
+  }
+}
@@ -0,0 +1,338 @@
+package pl.allegro.tech.graphql.auditlog;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link AuditLogSender} decorator handing items from request threads to a few sender threads
+ * through a pre-allocated ring buffer, without locks on the hand-off path.
+ *
+ * <p>Producers claim a sequence with a compare-and-set on the cursor, fill the slot and publish it
+ * by marking the slot available for the sequence's lap. Sender threads claim published sequences
+ * from a shared work sequence and pass items to the delegate; producers wait for free slots when
+ * all of them are claimed and not sent yet. Slots are allocated once and cleared after sending, so
+ * the hand-off does not produce garbage. The {@link WaitStrategy} decides how idle sender threads
+ * wait for new items.
+ */
+public class RingBufferAuditLogSender implements AuditLogSender, AutoCloseable {
+
+  private static final Logger logger = LoggerFactory.getLogger(RingBufferAuditLogSender.class);
+
+  private static final int SPIN_TRIES = 100;
+  private static final long SLEEP_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+  private static final long BLOCK_TIMEOUT_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+  private final AuditLogSender delegate;
+  private final WaitStrategy waitStrategy;
+  private final Slot[] slots;
+  private final int mask;
+  private final int indexShift;
+  private final AtomicIntegerArray available;
+  private final Sequence cursor = new Sequence();
+  private final Sequence workSequence = new Sequence();
+  private final Sequence gatingCache = new Sequence();
+  private final Sequence[] workerSequences;
+  private final List<Thread> workers;
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition published = lock.newCondition();
+  private final AtomicBoolean signalNeeded = new AtomicBoolean();
+  private final AtomicInteger publishing = new AtomicInteger();
+  private final LongAdder failed = new LongAdder();
+  private volatile boolean closed;
+
+  /**
+   * Create sender and start its sender threads.
+   *
+   * @param delegate {@link AuditLogSender} receiving items on sender threads
+   * @param bufferSize number of slots, a power of two
+   * @param senderThreads number of threads passing items to the delegate
+   * @param waitStrategy {@link WaitStrategy} of idle sender threads
+   */
+  public RingBufferAuditLogSender(
+      AuditLogSender delegate, int bufferSize, int senderThreads, WaitStrategy waitStrategy) {
+    checkArgument(Integer.bitCount(bufferSize) == 1, "Buffer size has to be a power of two.");
+    checkArgument(senderThreads > 0, "Number of sender threads has to be positive.");
+    this.delegate = requireNonNull(delegate);
+    this.waitStrategy = requireNonNull(waitStrategy);
+    this.slots = new Slot[bufferSize];
+    for (int i = 0; i < bufferSize; i++) {
+      slots[i] = new Slot();
+    }
+    this.mask = bufferSize - 1;
+    this.indexShift = Integer.numberOfTrailingZeros(bufferSize);
+    this.available = new AtomicIntegerArray(bufferSize);
+    for (int i = 0; i < bufferSize; i++) {
+      available.set(i, -1);
+    }
+    this.workerSequences = new Sequence[senderThreads];
+    this.workers = new ArrayList<>(senderThreads);
+    ThreadFactory threadFactory = new ThreadFactoryBuilder()
+        .setNameFormat("audit-log-ring-sender-%d")
+        .setDaemon(true)
+        .build();
+    for (int i = 0; i < senderThreads; i++) {
+      Sequence workerSequence = new Sequence();
+      workerSequences[i] = workerSequence;
+      Thread worker = threadFactory.newThread(() -> work(workerSequence));
+      workers.add(worker);
+      worker.start();
+    }
+  }
+
+  @Override
+  public void send(AuditLogItem auditLogItem) {
+    publish(false, auditLogItem);
+  }
+
+  @Override
+  public void sendAnonymized(AuditLogItem auditLogItem) {
+    publish(true, auditLogItem);
+  }
+
+  /**
+   * Stop accepting new items and wait until sender threads send the published ones. Items sent
+   * after closing are passed to the delegate on the calling thread.
+   */
+  @Override
+  public void close() {
+    closed = true;
+    signalAll();
+    for (Thread worker : workers) {
+      try {
+        worker.join();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+    }
+  }
+
+  /**
+   * Number of published items not sent yet.
+   *
+   * @return pending items count
+   */
+  public long pendingCount() {
+    long current = cursor.get();
+    return current - minimumWorkerSequence(current);
+  }
+
+  public long failedCount() {
+    return failed.sum();
+  }
+
+  private void publish(boolean anonymized, AuditLogItem auditLogItem) {
+    // sender threads keep running while a producer that saw the sender open is publishing
+    publishing.incrementAndGet();
+    try {
+      if (closed) {
+        deliver(anonymized, auditLogItem);
+        return;
+      }
+      long sequence = claim();
+      int index = (int) sequence & mask;
+      Slot slot = slots[index];
+      slot.anonymized = anonymized;
+      slot.item = auditLogItem;
+      available.lazySet(index, (int) (sequence >>> indexShift));
+      if (waitStrategy == WaitStrategy.BLOCKING && signalNeeded.getAndSet(false)) {
+        signalAll();
+      }
+    } finally {
+      publishing.decrementAndGet();
+    }
+  }
+
+  private long claim() {
+    int full = 0;
+    while (true) {
+      long current = cursor.get();
+      long next = current + 1;
+      long wrapPoint = next - slots.length;
+      long cachedGating = gatingCache.get();
+      if (wrapPoint > cachedGating || cachedGating > current) {
+        long gating = minimumWorkerSequence(current);
+        if (wrapPoint > gating) {
+          // let sender threads and preempted producers catch up before parking
+          if (full++ < SPIN_TRIES) {
+            Thread.yield();
+          } else {
+            LockSupport.parkNanos(1);
+          }
+          continue;
+        }
+        gatingCache.set(gating);
+      } else if (cursor.compareAndSet(current, next)) {
+        return next;
+      }
+    }
+  }
+
+  private long minimumWorkerSequence(long minimum) {
+    for (Sequence workerSequence : workerSequences) {
+      minimum = Math.min(minimum, workerSequence.get());
+    }
+    return minimum;
+  }
+
+  private void work(Sequence sequence) {
+    boolean processed = true;
+    long next = Sequence.INITIAL;
+    long cachedAvailable = Sequence.INITIAL;
+    int idle = 0;
+    while (true) {
+      if (processed) {
+        processed = false;
+        do {
+          next = workSequence.get() + 1;
+          sequence.set(next - 1);
+        } while (!workSequence.compareAndSet(next - 1, next));
+      }
+      if (cachedAvailable >= next) {
+        Slot slot = slots[(int) next & mask];
+        AuditLogItem auditLogItem = slot.item;
+        boolean anonymized = slot.anonymized;
+        slot.item = null;
+        deliver(anonymized, auditLogItem);
+        processed = true;
+        idle = 0;
+      } else {
+        cachedAvailable = highestPublished(next, cursor.get());
+        if (cachedAvailable < next) {
+          if (closed && publishing.get() == 0 && cursor.get() < next) {
+            return;
+          }
+          idle(next, idle++);
+        }
+      }
+    }
+  }
+
+  private long highestPublished(long low, long high) {
+    for (long sequence = low; sequence <= high; sequence++) {
+      if (available.get((int) sequence & mask) != (int) (sequence >>> indexShift)) {
+        return sequence - 1;
+      }
+    }
+    return high;
+  }
+
+  private void idle(long next, int idle) {
+    switch (waitStrategy) {
+      case BUSY_SPIN:
+        Thread.onSpinWait();
+        break;
+      case YIELDING:
+        if (idle < SPIN_TRIES) {
+          Thread.onSpinWait();
+        } else {
+          Thread.yield();
+        }
+        break;
+      case SLEEPING:
+        if (idle < SPIN_TRIES) {
+          Thread.onSpinWait();
+        } else if (idle < 2 * SPIN_TRIES) {
+          Thread.yield();
+        } else {
+          LockSupport.parkNanos(SLEEP_NANOS);
+        }
+        break;
+      case BLOCKING:
+        block(next);
+        break;
+      default:
+        throw new IllegalStateException("Unknown wait strategy " + waitStrategy);
+    }
+  }
+
+  private void block(long next) {
+    lock.lock();
+    try {
+      signalNeeded.set(true);
+      if (cursor.get() < next && !closed) {
+        published.awaitNanos(BLOCK_TIMEOUT_NANOS);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void signalAll() {
+    lock.lock();
+    try {
+      published.signalAll();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void deliver(boolean anonymized, AuditLogItem auditLogItem) {
+    try {
+      if (anonymized) {
+        delegate.sendAnonymized(auditLogItem);
+      } else {
+        delegate.send(auditLogItem);
+      }
+    } catch (Exception e) {
+      failed.increment();
+      logger.error("Error on sending audit log", e);
+    }
+  }
+
+  public enum WaitStrategy {
+    /** Spin on the cursor, lowest latency at the cost of a busy core per sender thread. */
+    BUSY_SPIN,
+    /** Spin for a while, then yield the core to other threads. */
+    YIELDING,
+    /** Spin, yield, then park for a short time. */
+    SLEEPING,
+    /** Wait on a condition signalled by producers when a sender thread is waiting. */
+    BLOCKING
+  }
+
+  private static final class Slot {
+
+    private AuditLogItem item;
+    private boolean anonymized;
+  }
+
+  /**
+   * Sequence padded against false sharing with neighbouring hot fields.
+   */
+  @SuppressWarnings("unused")
+  private static final class Sequence extends AtomicLong {
+
+    static final long INITIAL = -1;
+
+    private long p1;
+    private long p2;
+    private long p3;
+    private long p4;
+    private long p5;
+    private long p6;
+    private long p7;
+
+    private Sequence() {
+      super(INITIAL);
+    }
+  }
+}
@@ -0,0 +1,417 @@
+package pl.allegro.tech.graphql.auditlog;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.lang.String.format;
+import static java.util.Objects.requireNonNull;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link AuditLogSender} decorator appending items to a local spool and forwarding them to the
+ * delegate from a background replayer, so a slow or unavailable sink neither blocks requests nor
+ * loses items.
+ *
+ * <p>Items are encoded with {@link AuditLogItemBinaryCodec} and appended to memory-mapped segment
+ * files of a fixed size. A record is its length, CRC32 checksum, kind (raw or anonymized) and the
+ * encoded item; the length is written last, so a record torn by a crash reads as the end of the
+ * segment. The replayer forwards records from the checkpoint, a small file replaced atomically
+ * after every pass, and deletes fully forwarded segments. When the delegate fails the pass stops
+ * and the record is retried on the next one. Items are delivered at least once, records forwarded
+ * after the last checkpoint are delivered again after a restart.
+ *
+ * <p>Segments are flushed to storage on every replay pass and on close. When the maximum number of
+ * segments is in use, new items are dropped and counted.
+ */
+public class SpoolingAuditLogSender implements AuditLogSender, AutoCloseable {
+
+  private static final Logger logger = LoggerFactory.getLogger(SpoolingAuditLogSender.class);
+
+  private static final String SEGMENT_SUFFIX = ".segment";
+  private static final String CHECKPOINT = "checkpoint";
+  private static final int HEADER_BYTES = Integer.BYTES + Integer.BYTES + 1;
+  private static final int CHECKPOINT_BYTES = Long.BYTES + Integer.BYTES + Long.BYTES;
+  private static final byte RAW = 0;
+  private static final byte ANONYMIZED = 1;
+
+  private final AuditLogSender delegate;
+  private final Path directory;
+  private final int segmentBytes;
+  private final int maxSegments;
+  private final AuditLogItemBinaryCodec codec = new AuditLogItemBinaryCodec();
+  private final ScheduledExecutorService scheduler;
+  private final AtomicLong droppedCount = new AtomicLong();
+  private final Object writeLock = new Object();
+
+  private long writeSegment;
+  private MappedByteBuffer writeBuffer;
+  private int writeOffset;
+
+  private volatile long readSegment;
+  private int readOffset;
+  private ByteBuffer readBuffer;
+
+  /**
+   * Create spooling sender, recovering items left in the directory by a previous instance.
+   *
+   * @param delegate {@link AuditLogSender} receiving replayed items
+   * @param directory spool directory, created when missing
+   * @param segmentBytes size of a segment file, the maximum size of a single encoded item
+   * @param maxSegments maximum number of segment files
+   * @param replayInterval delay between replay passes
+   */
+  public SpoolingAuditLogSender(
+      AuditLogSender delegate,
+      Path directory,
+      int segmentBytes,
+      int maxSegments,
+      Duration replayInterval) {
+    checkArgument(segmentBytes > HEADER_BYTES, "Segment size has to exceed record header size.");
+    checkArgument(maxSegments > 0, "Maximum number of segments has to be positive.");
+    this.delegate = requireNonNull(delegate);
+    this.directory = requireNonNull(directory);
+    this.segmentBytes = segmentBytes;
+    this.maxSegments = maxSegments;
+    try {
+      Files.createDirectories(directory);
+      recover();
+    } catch (IOException e) {
+      throw new UncheckedIOException(format("Can't open audit log spool %s", directory), e);
+    }
+    this.scheduler = Executors.newSingleThreadScheduledExecutor(
+        new ThreadFactoryBuilder()
+            .setNameFormat("audit-log-spool-replayer-%d")
+            .setDaemon(true)
+            .build());
+    long intervalNanos = replayInterval.toNanos();
+    scheduler.scheduleWithFixedDelay(
+        this::replayPass, intervalNanos, intervalNanos, TimeUnit.NANOSECONDS);
+  }
+
+  @Override
+  public void send(AuditLogItem auditLogItem) {
+    append(RAW, auditLogItem);
+  }
+
+  @Override
+  public void sendAnonymized(AuditLogItem auditLogItem) {
+    append(ANONYMIZED, auditLogItem);
+  }
+
+  /**
+   * Forward spooled items to the delegate until the spool is drained or the delegate fails.
+   *
+   * @return number of forwarded items
+   */
+  public synchronized int replay() {
+    int forwarded = forward();
+    if (forwarded > 0) {
+      writeCheckpoint();
+    }
+    return forwarded;
+  }
+
+  /**
+   * Number of items dropped because the spool was full or the item did not fit a segment.
+   *
+   * @return dropped items count
+   */
+  public long droppedCount() {
+    return droppedCount.get();
+  }
+
+  /**
+   * Stop the replayer and flush the spool to storage. Items not forwarded yet stay in the spool
+   * and are replayed by the next instance opened on the directory.
+   */
+  @Override
+  public void close() {
+    scheduler.shutdownNow();
+    synchronized (writeLock) {
+      writeBuffer.force();
+    }
+  }
+
+  private void replayPass() {
+    try {
+      synchronized (writeLock) {
+        writeBuffer.force();
+      }
+      replay();
+    } catch (Exception e) {
+      logger.error(format("Error on replaying audit log spool %s", directory), e);
+    }
+  }
+
+  private void append(byte kind, AuditLogItem auditLogItem) {
+    byte[] payload;
+    try {
+      payload = codec.encode(auditLogItem);
+    } catch (Exception e) {
+      logger.error(format("Error on encoding audit log %s", auditLogItem.id()), e);
+      return;
+    }
+    int recordBytes = HEADER_BYTES + payload.length;
+    if (recordBytes > segmentBytes) {
+      droppedCount.incrementAndGet();
+      logger.error(format(
+          "Audit log %s of %s bytes exceeds spool segment size %s",
+          auditLogItem.id(), recordBytes, segmentBytes));
+      return;
+    }
+    synchronized (writeLock) {
+      if (writeOffset + recordBytes > segmentBytes && !rollSegment()) {
+        droppedCount.incrementAndGet();
+        logger.error(format("Audit log spool %s is full, audit log dropped", directory));
+        return;
+      }
+      writeBuffer.put(writeOffset + Integer.BYTES + Integer.BYTES, kind);
+      writeBuffer.put(writeOffset + HEADER_BYTES, payload);
+      writeBuffer.putInt(writeOffset + Integer.BYTES, checksum(kind, payload));
+      writeBuffer.putInt(writeOffset, payload.length);
+      writeOffset += recordBytes;
+    }
+  }
+
+  private boolean rollSegment() {
+    if (writeSegment - readSegment + 1 >= maxSegments) {
+      return false;
+    }
+    try {
+      writeBuffer.force();
+      writeBuffer = mapForWrite(writeSegment + 1);
+      writeSegment++;
+      writeOffset = 0;
+      return true;
+    } catch (IOException e) {
+      logger.error(format("Can't create audit log spool segment in %s", directory), e);
+      return false;
+    }
+  }
+
+  private int forward() {
+    int forwarded = 0;
+    while (true) {
+      long currentWriteSegment;
+      int currentWriteOffset;
+      synchronized (writeLock) {
+        currentWriteSegment = writeSegment;
+        currentWriteOffset = writeOffset;
+      }
+      boolean writing = readSegment == currentWriteSegment;
+      ByteBuffer buffer = readBuffer();
+      int limit = writing ? currentWriteOffset : buffer.limit();
+      int length = readOffset + HEADER_BYTES <= limit ? buffer.getInt(readOffset) : 0;
+      if (length > 0 && !isValid(buffer, readOffset, length, limit)) {
+        logger.error(format(
+            "Corrupted record in audit log spool segment %s at %s, skipping rest of segment",
+            segmentPath(readSegment), readOffset));
+        length = 0;
+      }
+      if (length == 0) {
+        if (writing) {
+          return forwarded;
+        }
+        finishSegment();
+        continue;
+      }
+      byte[] payload = new byte[length];
+      buffer.get(readOffset + HEADER_BYTES, payload);
+      try {
+        deliver(buffer.get(readOffset + Integer.BYTES + Integer.BYTES), payload);
+      } catch (Exception e) {
+        logger.error(
+            format("Error on forwarding audit log from spool %s, retrying later", directory), e);
+        return forwarded;
+      }
+      readOffset += HEADER_BYTES + length;
+      forwarded++;
+    }
+  }
+
+  private void deliver(byte kind, byte[] payload) {
+    AuditLogItem auditLogItem;
+    try {
+      auditLogItem = codec.decode(payload);
+    } catch (Exception e) {
+      logger.error(format("Can't decode audit log from spool %s, skipping it", directory), e);
+      return;
+    }
+    if (kind == ANONYMIZED) {
+      delegate.sendAnonymized(auditLogItem);
+    } else {
+      delegate.send(auditLogItem);
+    }
+  }
+
+  private ByteBuffer readBuffer() {
+    if (readBuffer == null) {
+      try (FileChannel channel = FileChannel.open(segmentPath(readSegment))) {
+        readBuffer = channel.map(
+            FileChannel.MapMode.READ_ONLY, 0, Math.min(channel.size(), segmentBytes));
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+    return readBuffer;
+  }
+
+  private void finishSegment() {
+    Path segment = segmentPath(readSegment);
+    readBuffer = null;
+    readSegment++;
+    readOffset = 0;
+    writeCheckpoint();
+    try {
+      Files.deleteIfExists(segment);
+    } catch (IOException e) {
+      logger.error(format("Can't delete audit log spool segment %s", segment), e);
+    }
+  }
+
+  private void recover() throws IOException {
+    List<Long> segments = segments();
+    if (segments.isEmpty()) {
+      writeSegment = 1;
+      writeBuffer = mapForWrite(writeSegment);
+      readSegment = writeSegment;
+      return;
+    }
+    writeSegment = segments.get(segments.size() - 1);
+    writeBuffer = mapForWrite(writeSegment);
+    writeOffset = validEnd(writeBuffer);
+    // a torn record may leave a partial header and payload behind the last valid record
+    for (int i = writeOffset; i < segmentBytes; i++) {
+      writeBuffer.put(i, (byte) 0);
+    }
+    long[] checkpoint = readCheckpoint();
+    if (checkpoint != null && segments.contains(checkpoint[0])) {
+      readSegment = checkpoint[0];
+      readOffset = readSegment == writeSegment
+          ? Math.min((int) checkpoint[1], writeOffset)
+          : (int) checkpoint[1];
+    } else {
+      readSegment = segments.get(0);
+    }
+  }
+
+  private int validEnd(ByteBuffer buffer) {
+    int offset = 0;
+    while (offset + HEADER_BYTES <= buffer.limit()) {
+      int length = buffer.getInt(offset);
+      if (length <= 0 || !isValid(buffer, offset, length, buffer.limit())) {
+        break;
+      }
+      offset += HEADER_BYTES + length;
+    }
+    return offset;
+  }
+
+  private static boolean isValid(ByteBuffer buffer, int offset, int length, int limit) {
+    if (length < 0 || length > limit - offset - HEADER_BYTES) {
+      return false;
+    }
+    CRC32 crc = new CRC32();
+    crc.update(buffer.get(offset + Integer.BYTES + Integer.BYTES));
+    crc.update(buffer.slice(offset + HEADER_BYTES, length));
+    return (int) crc.getValue() == buffer.getInt(offset + Integer.BYTES);
+  }
+
+  private static int checksum(byte kind, byte[] payload) {
+    CRC32 crc = new CRC32();
+    crc.update(kind);
+    crc.update(payload);
+    return (int) crc.getValue();
+  }
+
+  private MappedByteBuffer mapForWrite(long segment) throws IOException {
+    try (FileChannel channel = FileChannel.open(
+        segmentPath(segment),
+        StandardOpenOption.CREATE,
+        StandardOpenOption.READ,
+        StandardOpenOption.WRITE)) {
+      return channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+    }
+  }
+
+  private List<Long> segments() throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files
+          .map(file -> file.getFileName().toString())
+          .filter(name -> name.endsWith(SEGMENT_SUFFIX))
+          .map(name -> Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length())))
+          .sorted()
+          .collect(Collectors.toList());
+    }
+  }
+
+  private Path segmentPath(long segment) {
+    return directory.resolve(format("%020d%s", segment, SEGMENT_SUFFIX));
+  }
+
+  private void writeCheckpoint() {
+    ByteBuffer checkpoint = ByteBuffer.allocate(CHECKPOINT_BYTES);
+    checkpoint.putLong(readSegment).putInt(readOffset);
+    CRC32 crc = new CRC32();
+    crc.update(checkpoint.array(), 0, checkpoint.position());
+    checkpoint.putLong(crc.getValue()).flip();
+    Path temporary = directory.resolve(CHECKPOINT + ".tmp");
+    try {
+      try (FileChannel channel = FileChannel.open(
+          temporary,
+          StandardOpenOption.CREATE,
+          StandardOpenOption.TRUNCATE_EXISTING,
+          StandardOpenOption.WRITE)) {
+        while (checkpoint.hasRemaining()) {
+          channel.write(checkpoint);
+        }
+        channel.force(true);
+      }
+      Files.move(
+          temporary,
+          directory.resolve(CHECKPOINT),
+          StandardCopyOption.ATOMIC_MOVE,
+          StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException e) {
+      logger.error(format("Can't write audit log spool checkpoint in %s", directory), e);
+    }
+  }
+
+  /**
+   * Segment and offset of the next record to forward, {@code null} when missing or corrupted.
+   */
+  private long[] readCheckpoint() throws IOException {
+    Path path = directory.resolve(CHECKPOINT);
+    if (!Files.exists(path)) {
+      return null;
+    }
+    ByteBuffer checkpoint = ByteBuffer.wrap(Files.readAllBytes(path));
+    if (checkpoint.remaining() != CHECKPOINT_BYTES) {
+      return null;
+    }
+    CRC32 crc = new CRC32();
+    crc.update(checkpoint.array(), 0, Long.BYTES + Integer.BYTES);
+    long segment = checkpoint.getLong();
+    int offset = checkpoint.getInt();
+    return crc.getValue() == checkpoint.getLong() ? new long[] {segment, offset} : null;
+  }
+}
@@ -0,0 +1,168 @@
+package pl.allegro.tech.graphql.auditlog;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Dependency free {@link AuditLogMetrics} keeping every measurement in striped counters, so
+ * concurrent request threads recording at the same time do not contend on a single memory
+ * location. Latencies, node counts and sizes go to {@link Histogram}s with power of two buckets.
+ */
+public class StripedAuditLogMetrics implements AuditLogMetrics {
+
+  private final Map<Stage, Histogram> latencies = new EnumMap<>(Stage.class);
+  private final Map<Stage, LongAdder> errors = new EnumMap<>(Stage.class);
+  private final Histogram itemNodes = new Histogram();
+  private final Histogram itemBytes = new Histogram();
+  private final LongAdder dropped = new LongAdder();
+  private final LongAdder additionalFieldTimeouts = new LongAdder();
+  private final List<LongSupplier> queueDepths = new CopyOnWriteArrayList<>();
+
+  public StripedAuditLogMetrics() {
+    for (Stage stage : Stage.values()) {
+      latencies.put(stage, new Histogram());
+      errors.put(stage, new LongAdder());
+    }
+  }
+
+  @Override
+  public void recordLatency(Stage stage, long nanos) {
+    latencies.get(stage).record(nanos);
+  }
+
+  @Override
+  public void recordError(Stage stage) {
+    errors.get(stage).increment();
+  }
+
+  @Override
+  public void recordItem(long nodeCount, long estimatedBytes) {
+    itemNodes.record(nodeCount);
+    itemBytes.record(estimatedBytes);
+  }
+
+  @Override
+  public void recordDropped() {
+    dropped.increment();
+  }
+
+  @Override
+  public void recordAdditionalFieldTimeout() {
+    additionalFieldTimeouts.increment();
+  }
+
+  @Override
+  public void registerQueueDepth(LongSupplier queueDepth) {
+    queueDepths.add(requireNonNull(queueDepth));
+  }
+
+  /**
+   * Latency of the stage in nanoseconds.
+   *
+   * @param stage {@link Stage}
+   * @return {@link Histogram}
+   */
+  public Histogram latency(Stage stage) {
+    return latencies.get(stage);
+  }
+
+  public long errorCount(Stage stage) {
+    return errors.get(stage).sum();
+  }
+
+  public Histogram itemNodes() {
+    return itemNodes;
+  }
+
+  public Histogram itemBytes() {
+    return itemBytes;
+  }
+
+  public long droppedCount() {
+    return dropped.sum();
+  }
+
+  public long additionalFieldTimeoutCount() {
+    return additionalFieldTimeouts.sum();
+  }
+
+  /**
+   * Current number of pending tasks of all registered dispatchers.
+   *
+   * @return queue depth
+   */
+  public long queueDepth() {
+    long depth = 0;
+    for (LongSupplier queueDepth : queueDepths) {
+      depth += queueDepth.getAsLong();
+    }
+    return depth;
+  }
+
+  /**
+   * Histogram of non-negative values with a bucket per power of two. Percentiles are reported as
+   * the upper bound of the bucket, so they overestimate the value by less than a factor of two.
+   */
+  public static class Histogram {
+
+    private static final int BUCKETS = Long.SIZE;
+
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    Histogram() {
+      for (int i = 0; i < BUCKETS; i++) {
+        buckets[i] = new LongAdder();
+      }
+    }
+
+    void record(long value) {
+      long recorded = Math.max(value, 0);
+      buckets[Long.SIZE - Long.numberOfLeadingZeros(recorded)].increment();
+      count.increment();
+      sum.add(recorded);
+      max.accumulate(recorded);
+    }
+
+    public long count() {
+      return count.sum();
+    }
+
+    public long sum() {
+      return sum.sum();
+    }
+
+    public long max() {
+      return max.get();
+    }
+
+    /**
+     * Value not exceeded by the given fraction of recorded values.
+     *
+     * @param percentile fraction between 0 and 1
+     * @return upper bound of the bucket containing the percentile, 0 when nothing was recorded
+     */
+    public long percentile(double percentile) {
+      checkArgument(percentile >= 0 && percentile <= 1, "Percentile has to be between 0 and 1.");
+      long rank = (long) Math.ceil(percentile * count());
+      long seen = 0;
+      for (int i = 0; i < BUCKETS; i++) {
+        seen += buckets[i].sum();
+        if (seen >= rank && seen > 0) {
+          return Math.min((1L << i) - 1, max());
+        }
+      }
+      return max();
+    }
+  }
+}
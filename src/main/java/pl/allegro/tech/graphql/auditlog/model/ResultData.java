@@ -100,7 +100,8 @@ public interface ResultData {
 
     @Override
     public ObjectResultData anonymize() {
-      var objectStream = fields.stream().map(ResultData::anonymize).collect(Collectors.toList());
+      var objectStream =
+          getFields().stream().map(ResultData::anonymize).collect(Collectors.toList());
       return new ObjectResultData(name, typeName, objectStream);
     }
 
@@ -114,12 +115,12 @@ public interface ResultData {
       }
       ObjectResultData that = (ObjectResultData) o;
       return Objects.equals(name, that.name) && Objects
-          .equals(typeName, that.typeName) && Objects.equals(fields, that.fields);
+          .equals(typeName, that.typeName) && Objects.equals(getFields(), that.getFields());
     }
 
     @Override
     public int hashCode() {
-      return Objects.hash(name, typeName, fields);
+      return Objects.hash(name, typeName, getFields());
     }
   }
 
@@ -151,7 +152,8 @@ public interface ResultData {
 
     @Override
     public ArrayResultData anonymize() {
-      var anonymizedItems = items.stream().map(ResultData::anonymize).collect(Collectors.toList());
+      var anonymizedItems =
+          getItems().stream().map(ResultData::anonymize).collect(Collectors.toList());
       return new ArrayResultData(name, anonymizedItems);
     }
 
@@ -164,12 +166,12 @@ public interface ResultData {
         return false;
       }
       ArrayResultData that = (ArrayResultData) o;
-      return Objects.equals(name, that.name) && Objects.equals(items, that.items);
+      return Objects.equals(name, that.name) && Objects.equals(getItems(), that.getItems());
     }
 
     @Override
     public int hashCode() {
-      return Objects.hash(name, items);
+      return Objects.hash(name, getItems());
     }
   }
 
@@ -315,4 +317,103 @@ public interface ResultData {
       return Objects.hash(name, typeName);
     }
   }
+
+  /**
+   * Marker standing in for values omitted by capture limits.
+   */
+  class TruncatedResultData implements
+      ResultData {
+
+    private final String name;
+    private final long omitted;
+
+    public TruncatedResultData(String name, long omitted) {
+      this.name = name;
+      this.omitted = omitted;
+    }
+
+    @Override
+    public String getType() {
+      return "truncated";
+    }
+
+    @Override
+    public String getName() {
+      return name;
+    }
+
+    /**
+     * Number of omitted fields or items.
+     */
+    public long getOmitted() {
+      return omitted;
+    }
+
+    @Override
+    public TruncatedResultData anonymize() {
+      return this;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof TruncatedResultData)) {
+        return false;
+      }
+      TruncatedResultData that = (TruncatedResultData) o;
+      return omitted == that.omitted && Objects.equals(name, that.name);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(name, omitted);
+    }
+  }
+
+  /**
+   * Marker standing in for an additional field which was not fetched before its deadline.
+   */
+  class TimeoutResultData implements
+      ResultData {
+
+    private final String name;
+
+    public TimeoutResultData(String name) {
+      this.name = name;
+    }
+
+    @Override
+    public String getType() {
+      return "timeout";
+    }
+
+    @Override
+    public String getName() {
+      return name;
+    }
+
+    @Override
+    public TimeoutResultData anonymize() {
+      return this;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof TimeoutResultData)) {
+        return false;
+      }
+      TimeoutResultData that = (TimeoutResultData) o;
+      return Objects.equals(name, that.name);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(name);
+    }
+  }
 }
@@ -1,5 +1,7 @@
 package pl.allegro.tech.graphql.auditlog.model;
 
+import java.util.Objects;
+
 public class UserId {
   private final String raw;
 
@@ -12,4 +14,21 @@ public class UserId {
   }
 
   public static final UserId ANONYMOUS = new UserId("anonymousUser");
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof UserId)) {
+      return false;
+    }
+    UserId that = (UserId) o;
+    return Objects.equals(raw, that.raw);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(raw);
+  }
 }
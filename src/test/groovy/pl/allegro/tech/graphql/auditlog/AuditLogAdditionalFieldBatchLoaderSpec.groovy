@@ -0,0 +1,129 @@
+package pl.allegro.tech.graphql.auditlog
+
+import graphql.ExecutionInput
+import graphql.GraphQL
+import graphql.schema.idl.RuntimeWiring
+import org.dataloader.BatchLoader
+import org.dataloader.DataLoader
+import org.dataloader.DataLoaderRegistry
+import pl.allegro.tech.graphql.auditlog.model.ResultData
+import pl.allegro.tech.graphql.auditlog.root.InMemoryAuditLogSender
+import spock.lang.Specification
+
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CopyOnWriteArrayList
+
+import static pl.allegro.tech.graphql.auditlog.fixture.GraphQLFixture.graphQL
+import static pl.allegro.tech.graphql.auditlog.fixture.GraphQLFixture.schema
+
+class AuditLogAdditionalFieldBatchLoaderSpec extends Specification {
+
+    static String SDL = """
+            type Query {
+                users: [User]
+            }
+
+            type User {
+                login: String
+                friend: Friend
+            }
+
+            type Friend {
+                id: ID
+                login: String
+            }
+            """
+
+    static String QUERY = """{ users { login friend { login } } }"""
+
+    InMemoryAuditLogSender sender = new InMemoryAuditLogSender()
+    List<List<Object>> batches = new CopyOnWriteArrayList<>()
+    int friendIdFetches = 0
+
+    def "Should load additional field of all objects in one batch"() {
+        given:
+        def graphQL = graphQL({ sources ->
+            batches.add(sources)
+            CompletableFuture.completedFuture(sources.collect { "id-" + it.login } as List<Object>)
+        })
+
+        when:
+        def result = graphQL.execute(QUERY)
+
+        then:
+        result.errors.isEmpty()
+        batches.size() == 1
+        batches[0]*.login == ["friend1", "friend2", "friend3"]
+        friendIdFetches == 0
+        friendIds() == ["id-friend1", "id-friend2", "id-friend3"]
+    }
+
+    def "Should dispatch batch with data loader registry of the request"() {
+        given:
+        def graphQL = graphQL({ sources ->
+            batches.add(sources)
+            CompletableFuture.completedFuture(sources.collect { "id-" + it.login } as List<Object>)
+        })
+        def friendLoader = DataLoader.newDataLoader({ logins ->
+            CompletableFuture.completedFuture(logins.collect { [login: it] })
+        } as BatchLoader)
+        def registry = new DataLoaderRegistry().register("friend", friendLoader)
+
+        when:
+        def result = graphQL.execute(ExecutionInput.newExecutionInput(QUERY).dataLoaderRegistry(registry))
+
+        then:
+        result.errors.isEmpty()
+        registry.keys.contains("auditLogAdditionalField:Friend.id")
+        batches.size() == 1
+        friendIds() == ["id-friend1", "id-friend2", "id-friend3"]
+    }
+
+    def "Should log null additional fields when batch load fails"() {
+        given:
+        def graphQL = graphQL({ sources -> CompletableFuture.failedFuture(new IllegalStateException("backend down")) })
+
+        when:
+        graphQL.execute(QUERY)
+
+        then:
+        sender.sendAuditLogItems().size() == 1
+        friends().collect { it.fields[1] } == (1..3).collect { new ResultData.NullResultData("id") }
+    }
+
+    private List<String> friendIds() {
+        return friends().collect { (it.fields[1] as ResultData.ScalarResultData).value }
+    }
+
+    private List<ResultData.ObjectResultData> friends() {
+        def users = sender.sendAuditLogItems()[0].resultData()[0] as ResultData.ArrayResultData
+        return users.items.collect { (it as ResultData.ObjectResultData).fields[1] as ResultData.ObjectResultData }
+    }
+
+    private GraphQL graphQL(AuditLogAdditionalFieldBatchLoader batchLoader) {
+        return graphQL(
+                schema(SDL, RuntimeWiring.newRuntimeWiring()
+                        .type("Query", {
+                            it.dataFetcher("users", { env -> (1..3).collect { [login: "user$it".toString(), friend: "friend$it".toString()] } })
+                        })
+                        .type("User", {
+                            it.dataFetcher("friend", { env ->
+                                def loader = env.getDataLoader("friend")
+                                loader == null ? [login: env.source.friend] : loader.load(env.source.friend)
+                            })
+                        })
+                        .type("Friend", {
+                            it.dataFetcher("id", { env ->
+                                friendIdFetches++
+                                "id"
+                            })
+                        })
+                        .build()),
+                new AuditLogInstrumentationBuilder()
+                        .withActionLogSender(sender)
+                        .withAuditLogAdditionalFieldFetcher(new AuditLogAdditionalFieldFetcher(
+                                new DefaultAdditionalFieldsSetupPreconditions([new FieldSetup("Friend", "id")])))
+                        .withAdditionalFieldBatchLoader("Friend", "id", batchLoader)
+                        .build())
+    }
+}
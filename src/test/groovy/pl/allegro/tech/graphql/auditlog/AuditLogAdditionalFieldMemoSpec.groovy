@@ -0,0 +1,128 @@
+package pl.allegro.tech.graphql.auditlog
+
+import graphql.GraphQL
+import graphql.schema.idl.RuntimeWiring
+import pl.allegro.tech.graphql.auditlog.model.ResultData
+import pl.allegro.tech.graphql.auditlog.root.InMemoryAuditLogSender
+import spock.lang.Specification
+
+import java.util.concurrent.atomic.AtomicInteger
+
+import static pl.allegro.tech.graphql.auditlog.fixture.GraphQLFixture.graphQL
+import static pl.allegro.tech.graphql.auditlog.fixture.GraphQLFixture.schema
+
+class AuditLogAdditionalFieldMemoSpec extends Specification {
+
+    static String SDL = """
+            type Query {
+                user(login: String): User
+            }
+
+            type User {
+                login: String
+                friend: Friend
+                friends: [Friend]
+            }
+
+            type Friend {
+                id: ID
+                login: String
+            }
+            """
+
+    static String QUERY = """{
+            first: user(login: "user1") { friend { login } }
+            second: user(login: "user2") { friend { login } }
+            third: user(login: "user3") { friend { login } }
+        }"""
+
+    InMemoryAuditLogSender sender = new InMemoryAuditLogSender()
+    AtomicInteger friendIdFetches = new AtomicInteger()
+    Map<String, Object> sharedFriend = [login: "friend"]
+
+    def "Should fetch additional field of the same object once per request"() {
+        given:
+        def graphQL = memoizingGraphQL({ sharedFriend }) { it.withAdditionalFieldMemoization(true) }
+
+        when:
+        def result = graphQL.execute(QUERY)
+
+        then:
+        result.errors.isEmpty()
+        friendIdFetches.get() == 1
+        friendIds() == ["id-friend", "id-friend", "id-friend"]
+    }
+
+    def "Should fetch additional field of an object repeated in a list once per request"() {
+        given:
+        def graphQL = memoizingGraphQL({ sharedFriend }) { it.withAdditionalFieldMemoization(true) }
+
+        when:
+        def result = graphQL.execute("""{ user(login: "user1") { friends { login } } }""")
+
+        then:
+        result.errors.isEmpty()
+        friendIdFetches.get() == 1
+        def friends = (sender.sendAuditLogItems()[0].resultData()[0] as ResultData.ObjectResultData).fields[0]
+        (friends as ResultData.ArrayResultData).items.collect {
+            ((it as ResultData.ObjectResultData).fields[1] as ResultData.ScalarResultData).value
+        } == ["id-friend", "id-friend", "id-friend"]
+    }
+
+    def "Should fetch additional field of every object without memoization"() {
+        given:
+        def graphQL = memoizingGraphQL({ sharedFriend }) { it }
+
+        when:
+        def result = graphQL.execute(QUERY)
+
+        then:
+        result.errors.isEmpty()
+        friendIdFetches.get() == 3
+        friendIds() == ["id-friend", "id-friend", "id-friend"]
+    }
+
+    def "Should memoize additional field by custom key"() {
+        given:
+        def graphQL = memoizingGraphQL({ [login: "friend"] }) {
+            it.withAdditionalFieldMemoKey({ source -> source.login })
+        }
+
+        when:
+        graphQL.execute(QUERY)
+        graphQL.execute(QUERY)
+
+        then: "objects are distinct but share the key, the memo is not shared between requests"
+        friendIdFetches.get() == 2
+        sender.sendAuditLogItems().size() == 2
+    }
+
+    private List<String> friendIds() {
+        return sender.sendAuditLogItems()[0].resultData().collect {
+            def friend = (it as ResultData.ObjectResultData).fields[0] as ResultData.ObjectResultData
+            (friend.fields[1] as ResultData.ScalarResultData).value
+        }
+    }
+
+    private GraphQL memoizingGraphQL(Closure<Map<String, Object>> friend, Closure<AuditLogInstrumentationBuilder> configure) {
+        def builder = new AuditLogInstrumentationBuilder()
+                .withActionLogSender(sender)
+                .withAuditLogAdditionalFieldFetcher(new AuditLogAdditionalFieldFetcher(
+                        new DefaultAdditionalFieldsSetupPreconditions([new FieldSetup("Friend", "id")])))
+        return graphQL(
+                schema(SDL, RuntimeWiring.newRuntimeWiring()
+                        .type("Query", { it.dataFetcher("user", { env -> [login: env.getArgument("login")] }) })
+                        .type("User", {
+                            it.dataFetcher("friend", { env -> friend() })
+                            it.dataFetcher("friends", { env -> (1..3).collect { friend() } })
+                        })
+                        .type("Friend", {
+                            it.dataFetcher("id", { env ->
+                                friendIdFetches.incrementAndGet()
+                                "id-" + env.source.login
+                            })
+                        })
+                        .build()),
+                configure(builder).build())
+    }
+}
@@ -0,0 +1,105 @@
+package pl.allegro.tech.graphql.auditlog
+
+import graphql.schema.DataFetcher
+import graphql.schema.DataFetcherFactory
+import graphql.schema.FieldCoordinates
+import graphql.schema.GraphQLCodeRegistry
+import graphql.schema.GraphQLSchema
+import graphql.schema.idl.RuntimeWiring
+import pl.allegro.tech.graphql.auditlog.model.ResultData
+import pl.allegro.tech.graphql.auditlog.root.InMemoryAuditLogSender
+import spock.lang.Specification
+
+import java.util.concurrent.atomic.AtomicInteger
+
+import static pl.allegro.tech.graphql.auditlog.fixture.GraphQLFixture.graphQL
+import static pl.allegro.tech.graphql.auditlog.fixture.GraphQLFixture.schema
+
+class AuditLogAdditionalFieldPlanSpec extends Specification {
+
+    static String SDL = """
+            type Query {
+                user(id: ID!): User
+            }
+
+            type User {
+                id: ID
+                login: String
+                friend: User
+            }
+            """
+
+    InMemoryAuditLogSender sender = new InMemoryAuditLogSender()
+    AtomicInteger dataFetcherLookups = new AtomicInteger()
+    GraphQLSchema schema = schema(SDL, RuntimeWiring.newRuntimeWiring()
+            .type("Query", { it.dataFetcher("user", { env -> [id: env.getArgument("id"), login: "login"] }) })
+            .codeRegistry(GraphQLCodeRegistry.newCodeRegistry()
+                    .dataFetcher(FieldCoordinates.coordinates("User", "id"), { env ->
+                        dataFetcherLookups.incrementAndGet()
+                        return { fetchEnv -> "id-" + fetchEnv.source.id } as DataFetcher
+                    } as DataFetcherFactory))
+            .build())
+
+    def "Should resolve data fetchers of additional fields once when built with schema"() {
+        given:
+        def graphQL = graphQL(schema, builder([new FieldSetup("User", "id")]).withSchema(schema).build())
+
+        when:
+        def results = (1..3).collect { graphQL.execute("""{ user(id: "$it") { login } }""") }
+
+        then:
+        results.every { it.errors.isEmpty() }
+        dataFetcherLookups.get() == 1
+        userIds() == ["id-1", "id-2", "id-3"]
+    }
+
+    def "Should resolve data fetchers of additional fields at request time without schema"() {
+        given:
+        def graphQL = graphQL(schema, builder([new FieldSetup("User", "id")]).build())
+
+        when:
+        (1..3).each { graphQL.execute("""{ user(id: "$it") { login } }""") }
+
+        then:
+        dataFetcherLookups.get() == 3
+        userIds() == ["id-1", "id-2", "id-3"]
+    }
+
+    def "Should resolve additional fields at request time for other schema"() {
+        given:
+        def otherSchema = schema(SDL, RuntimeWiring.newRuntimeWiring()
+                .type("Query", { it.dataFetcher("user", { env -> [id: env.getArgument("id"), login: "login"] }) })
+                .build())
+        def graphQL = graphQL(otherSchema, builder([new FieldSetup("User", "id")]).withSchema(schema).build())
+
+        when:
+        def result = graphQL.execute("""{ user(id: "1") { login } }""")
+
+        then:
+        result.errors.isEmpty()
+        userIds() == ["1"]
+    }
+
+    def "Should fail building with schema when additional field is not scalar"() {
+        when:
+        builder([new FieldSetup("User", "friend")]).withSchema(schema).build()
+
+        then:
+        def e = thrown(IllegalStateException)
+        e.message.contains("User:friend")
+    }
+
+    private List<String> userIds() {
+        return sender.sendAuditLogItems().collect {
+            def user = it.resultData()[0] as ResultData.ObjectResultData
+            (user.fields[1] as ResultData.ScalarResultData).value
+        }
+    }
+
+    private AuditLogInstrumentationBuilder builder(List<FieldSetup> fieldSetups) {
+        return new AuditLogInstrumentationBuilder()
+                .withActionLogSender(sender)
+                .withAuditLogAdditionalFieldFetcher(new AuditLogAdditionalFieldFetcher(
+                        new DefaultAdditionalFieldsSetupPreconditions(fieldSetups)))
+    }
+}
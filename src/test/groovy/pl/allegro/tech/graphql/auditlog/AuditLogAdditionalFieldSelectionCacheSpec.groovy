@@ -0,0 +1,101 @@
+package pl.allegro.tech.graphql.auditlog
+
+import graphql.ExecutionInput
+import graphql.GraphQL
+import graphql.execution.preparsed.PreparsedDocumentEntry
+import graphql.execution.preparsed.PreparsedDocumentProvider
+import graphql.schema.idl.RuntimeWiring
+import pl.allegro.tech.graphql.auditlog.model.ResultData
+import pl.allegro.tech.graphql.auditlog.root.InMemoryAuditLogSender
+import spock.lang.Specification
+
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.function.Function
+
+import static pl.allegro.tech.graphql.auditlog.fixture.GraphQLFixture.schema
+
+class AuditLogAdditionalFieldSelectionCacheSpec extends Specification {
+
+    static String SDL = """
+            type Query {
+                user(id: ID!): User
+            }
+
+            type User {
+                id: ID
+                login: String
+            }
+            """
+
+    static String QUERY = """query User(\$id: ID!) { user(id: \$id) { login } }"""
+
+    InMemoryAuditLogSender sender = new InMemoryAuditLogSender()
+    AtomicInteger setupChecks = new AtomicInteger()
+    AdditionalFieldsSetupPreconditions preconditions = { objectName, fieldName ->
+        setupChecks.incrementAndGet()
+        objectName == "User" && fieldName == "id"
+    }
+
+    def "Should analyse selection of preparsed document once"() {
+        given:
+        def graphQL = cachingGraphQL(new CachingDocumentProvider())
+
+        when:
+        def results = (1..5).collect { graphQL.execute(query(it)) }
+
+        then:
+        results.every { it.errors.isEmpty() }
+        setupChecks.get() == 2
+        userIds() == ["1", "2", "3", "4", "5"]
+    }
+
+    def "Should analyse selection of every parsed document"() {
+        given:
+        def graphQL = cachingGraphQL(null)
+
+        when:
+        (1..3).each { graphQL.execute(query(it)) }
+
+        then:
+        setupChecks.get() == 6
+        userIds() == ["1", "2", "3"]
+    }
+
+    private static ExecutionInput query(int id) {
+        return ExecutionInput.newExecutionInput(QUERY).variables([id: String.valueOf(id)]).build()
+    }
+
+    private List<String> userIds() {
+        return sender.sendAuditLogItems().collect {
+            def user = it.resultData()[0] as ResultData.ObjectResultData
+            (user.fields[1] as ResultData.ScalarResultData).value
+        }
+    }
+
+    private GraphQL cachingGraphQL(PreparsedDocumentProvider documentProvider) {
+        def builder = GraphQL.newGraphQL(
+                schema(SDL, RuntimeWiring.newRuntimeWiring()
+                        .type("Query", { it.dataFetcher("user", { env -> [id: env.getArgument("id"), login: "login"] }) })
+                        .build()))
+                .instrumentation(new AuditLogInstrumentationBuilder()
+                        .withActionLogSender(sender)
+                        .withAuditLogAdditionalFieldFetcher(new AuditLogAdditionalFieldFetcher(preconditions))
+                        .build())
+        if (documentProvider != null) {
+            builder.preparsedDocumentProvider(documentProvider)
+        }
+        return builder.build()
+    }
+
+    static class CachingDocumentProvider implements PreparsedDocumentProvider {
+
+        Map<String, PreparsedDocumentEntry> documents = new ConcurrentHashMap<>()
+
+        @Override
+        PreparsedDocumentEntry getDocument(ExecutionInput executionInput,
+                                           Function<ExecutionInput, PreparsedDocumentEntry> parseAndValidate) {
+            return documents.computeIfAbsent(executionInput.query, { parseAndValidate.apply(executionInput) })
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package pl.allegro.tech.graphql.auditlog
+
+import graphql.GraphQL
+import graphql.schema.idl.RuntimeWiring
+import pl.allegro.tech.graphql.auditlog.model.ResultData
+import pl.allegro.tech.graphql.auditlog.root.InMemoryAuditLogSender
+import spock.lang.Specification
+import spock.util.concurrent.PollingConditions
+
+import java.time.Duration
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+import static pl.allegro.tech.graphql.auditlog.fixture.GraphQLFixture.graphQL
+import static pl.allegro.tech.graphql.auditlog.fixture.GraphQLFixture.schema
+
+class AuditLogAdditionalFieldTimeoutSpec extends Specification {
+
+    static String SDL = """
+            type Query {
+                first: User
+                second: User
+            }
+
+            type User {
+                id: ID
+                login: String
+            }
+            """
+
+    InMemoryAuditLogSender sender = new InMemoryAuditLogSender()
+    StripedAuditLogMetrics metrics = new StripedAuditLogMetrics()
+    List<CompletableFuture<String>> backendCalls = new CopyOnWriteArrayList<>()
+
+    def "Should replace additional field missing its timeout with marker and cancel its fetch"() {
+        given:
+        def graphQL = graphQL(new AuditLogInstrumentationBuilder()
+                .withAdditionalFieldTimeout(Duration.ofMillis(50)))
+
+        when:
+        def result = graphQL.execute("""{ first { login } second { login } }""")
+
+        then:
+        result.errors.isEmpty()
+        new PollingConditions(timeout: 2).eventually {
+            assert sender.sendAuditLogItems().size() == 1
+        }
+        sender.sendAuditLogItems()[0].resultData().collect { (it as ResultData.ObjectResultData).fields } == (1..2).collect {
+            [new ResultData.ScalarResultData("login", "String", "login"), new ResultData.TimeoutResultData("id")]
+        }
+        sender.sendAnonymizedAuditLogItems().size() == 1
+        backendCalls.every { it.isCancelled() }
+        metrics.additionalFieldTimeoutCount() == 2
+    }
+
+    def "Should replace additional fields missing request timeout with markers"() {
+        given:
+        def graphQL = graphQL(new AuditLogInstrumentationBuilder()
+                .withAdditionalFieldTimeout(Duration.ofSeconds(30))
+                .withAdditionalFieldRequestTimeout(Duration.ofMillis(50)))
+
+        when:
+        graphQL.execute("""{ first { login } second { login } }""")
+
+        then:
+        new PollingConditions(timeout: 2).eventually {
+            assert sender.sendAuditLogItems().size() == 1
+        }
+        metrics.additionalFieldTimeoutCount() == 2
+    }
+
+    def "Should keep additional fields fetched in time"() {
+        given:
+        def graphQL = graphQL(new AuditLogInstrumentationBuilder()
+                .withAdditionalFieldTimeout(Duration.ofSeconds(30)))
+
+        when:
+        graphQL.execute("""{ first { login } second { login } }""")
+        backendCalls.eachWithIndex { call, index -> call.complete(String.valueOf(index + 1)) }
+
+        then:
+        sender.sendAuditLogItems()[0].resultData().collect { (it as ResultData.ObjectResultData).fields[1] } == [
+                new ResultData.ScalarResultData("id", "String", "1"),
+                new ResultData.ScalarResultData("id", "String", "2")
+        ]
+        metrics.additionalFieldTimeoutCount() == 0
+    }
+
+    def "Should interrupt blocking data fetcher missing its timeout on executor service"() {
+        given: "data fetcher blocking its thread until interrupted"
+        def interrupted = new CountDownLatch(2)
+        def executor = Executors.newFixedThreadPool(2)
+        def graphQL = graphQL(
+                schema(SDL, RuntimeWiring.newRuntimeWiring()
+                        .type("Query", {
+                            it.dataFetcher("first", { env -> [login: "login"] })
+                                    .dataFetcher("second", { env -> [login: "login"] })
+                        })
+                        .type("User", {
+                            it.dataFetcher("id", { env ->
+                                try {
+                                    Thread.sleep(30_000)
+                                } catch (InterruptedException e) {
+                                    interrupted.countDown()
+                                }
+                                "id"
+                            })
+                        })
+                        .build()),
+                new AuditLogInstrumentationBuilder()
+                        .withActionLogSender(sender)
+                        .withAuditLogAdditionalFieldFetcher(new AuditLogAdditionalFieldFetcher(
+                                new DefaultAdditionalFieldsSetupPreconditions([new FieldSetup("User", "id")])))
+                        .withAdditionalFieldExecutor(executor)
+                        .withAdditionalFieldTimeout(Duration.ofMillis(50))
+                        .build())
+
+        when:
+        graphQL.execute("""{ first { login } second { login } }""")
+
+        then: "executor threads are released"
+        interrupted.await(2, TimeUnit.SECONDS)
+        new PollingConditions(timeout: 2).eventually {
+            assert sender.sendAuditLogItems().size() == 1
+        }
+
+        cleanup:
+        executor.shutdownNow()
+    }
+
+    private GraphQL graphQL(AuditLogInstrumentationBuilder builder) {
+        return graphQL(
+                schema(SDL, RuntimeWiring.newRuntimeWiring()
+                        .type("Query", {
+                            it.dataFetcher("first", { env -> [login: "login"] })
+                                    .dataFetcher("second", { env -> [login: "login"] })
+                        })
+                        .type("User", {
+                            it.dataFetcher("id", { env ->
+                                def call = new CompletableFuture<String>()
+                                backendCalls.add(call)
+                                call
+                            })
+                        })
+                        .build()),
+                builder
+                        .withActionLogSender(sender)
+                        .withMetrics(metrics)
+                        .withAuditLogAdditionalFieldFetcher(new AuditLogAdditionalFieldFetcher(
+                                new DefaultAdditionalFieldsSetupPreconditions([new FieldSetup("User", "id")])))
+                        .build())
+    }
+}
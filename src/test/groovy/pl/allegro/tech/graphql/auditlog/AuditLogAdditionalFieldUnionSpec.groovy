@@ -0,0 +1,102 @@
+package pl.allegro.tech.graphql.auditlog
+
+import graphql.ExecutionInput
+import graphql.GraphQL
+import graphql.schema.idl.RuntimeWiring
+import pl.allegro.tech.graphql.auditlog.AuditLogAdditionalFieldSelectionCacheSpec.CachingDocumentProvider
+import pl.allegro.tech.graphql.auditlog.model.ResultData
+import pl.allegro.tech.graphql.auditlog.root.InMemoryAuditLogSender
+import spock.lang.Specification
+
+import static pl.allegro.tech.graphql.auditlog.fixture.GraphQLFixture.schema
+
+class AuditLogAdditionalFieldUnionSpec extends Specification {
+
+    static String SDL = """
+            type Query {
+                node(id: ID!): Node
+            }
+
+            union Node = User | Order
+
+            type User {
+                id: ID
+                login: String
+            }
+
+            type Order {
+                id: ID
+                number: String
+            }
+            """
+
+    static String QUERY = """{
+            user: node(id: "user") { ... on User { login } ... on Order { number } }
+            order: node(id: "order") { ... on User { login } ... on Order { number } }
+        }"""
+
+    InMemoryAuditLogSender sender = new InMemoryAuditLogSender()
+    List<String> idFetches = [].asSynchronized()
+
+    GraphQL graphQL = GraphQL.newGraphQL(
+            schema(SDL, RuntimeWiring.newRuntimeWiring()
+                    .type("Query", { it.dataFetcher("node", { env -> nodes[env.getArgument("id")] }) })
+                    .type("Node", { it.typeResolver({ env -> env.schema.getObjectType(env.object.type) }) })
+                    .type("User", { it.dataFetcher("id", { env -> idFetch("User", env.source) }) })
+                    .type("Order", { it.dataFetcher("id", { env -> idFetch("Order", env.source) }) })
+                    .build()))
+            .preparsedDocumentProvider(new CachingDocumentProvider())
+            .instrumentation(new AuditLogInstrumentationBuilder()
+                    .withActionLogSender(sender)
+                    .withAuditLogAdditionalFieldFetcher(new AuditLogAdditionalFieldFetcher(
+                            new DefaultAdditionalFieldsSetupPreconditions([
+                                    new FieldSetup("User", "id"),
+                                    new FieldSetup("Order", "id")
+                            ])))
+                    .build())
+            .build()
+
+    static Map<String, Map<String, Object>> nodes = [
+            user : [type: "User", id: "u1", login: "login"],
+            order: [type: "Order", id: "o1", number: "number"]
+    ]
+
+    def "Should fetch additional fields of the resolved union member only"() {
+        when:
+        def result = graphQL.execute(QUERY)
+
+        then:
+        result.errors.isEmpty()
+        idFetches.sort() == ["Order:o1", "User:u1"]
+        def resultData = sender.sendAuditLogItems()[0].resultData()
+        (resultData[0] as ResultData.ObjectResultData).fields == [
+                new ResultData.ScalarResultData("login", "String", "login"),
+                new ResultData.ScalarResultData("id", "String", "u1")
+        ]
+        (resultData[1] as ResultData.ObjectResultData).fields == [
+                new ResultData.ScalarResultData("number", "String", "number"),
+                new ResultData.ScalarResultData("id", "String", "o1")
+        ]
+    }
+
+    def "Should resolve union member of every execution of a cached selection"() {
+        given: "one preparsed document, its union field node resolves to a different member per request"
+        def query = 'query($id: ID!) { node(id: $id) { ... on User { login } ... on Order { number } } }'
+
+        when:
+        graphQL.execute(ExecutionInput.newExecutionInput(query).variables([id: "user"]).build())
+        graphQL.execute(ExecutionInput.newExecutionInput(query).variables([id: "order"]).build())
+
+        then:
+        idFetches == ["User:u1", "Order:o1"]
+        sender.sendAuditLogItems().collect { (it.resultData()[0] as ResultData.ObjectResultData).fields[1] } == [
+                new ResultData.ScalarResultData("id", "String", "u1"),
+                new ResultData.ScalarResultData("id", "String", "o1")
+        ]
+    }
+
+    private String idFetch(String typeName, Map<String, Object> source) {
+        idFetches.add(typeName + ":" + source.id)
+        return source.id
+    }
+}
@@ -0,0 +1,177 @@
+package pl.allegro.tech.graphql.auditlog
+
+import graphql.GraphQL
+import graphql.schema.idl.RuntimeWiring
+import pl.allegro.tech.graphql.auditlog.model.ResultData
+import pl.allegro.tech.graphql.auditlog.root.InMemoryAuditLogSender
+import spock.lang.Specification
+
+import java.time.Duration
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+import static pl.allegro.tech.graphql.auditlog.fixture.GraphQLFixture.graphQL
+import static pl.allegro.tech.graphql.auditlog.fixture.GraphQLFixture.schema
+
+class AuditLogAdditionalFieldsSpec extends Specification {
+
+    static String SDL = """
+            type Query {
+                user(id: ID!): User
+                users: [User!]
+            }
+
+            type User {
+                id: ID
+                login: String
+            }
+            """
+
+    InMemoryAuditLogSender sender = new InMemoryAuditLogSender()
+    CompletableFuture<Void> slowBackend = new CompletableFuture<>()
+
+    GraphQL graphQL = graphQL(
+            schema(SDL, RuntimeWiring.newRuntimeWiring()
+                    .type("Query", {
+                        it.dataFetcher("user", { env -> [id: env.getArgument("id"), login: "login"] })
+                        it.dataFetcher("users", { env -> (1..3).collect { [id: String.valueOf(it), login: "login" + it] } })
+                    })
+                    .type("User", { it.dataFetcher("id", { env -> slowBackend.thenApply { env.source.id } }) })
+                    .build()),
+            new AuditLogInstrumentationBuilder()
+                    .withActionLogSender(sender)
+                    .withAuditLogAdditionalFieldFetcher(new AuditLogAdditionalFieldFetcher(
+                            new DefaultAdditionalFieldsSetupPreconditions([new FieldSetup("User", "id")])))
+                    .build())
+
+    def "Should not block request threads while additional fields are pending"() {
+        when: "requests complete while the additional field backend has not answered yet"
+        def results = (1..50).collect {
+            graphQL.execute("""{ user(id: "$it") { ... on User { login } } }""")
+        }
+
+        then: "responses are released without waiting for additional fields"
+        results.every { it.errors.isEmpty() }
+        sender.sendAuditLogItems().isEmpty()
+
+        when: "additional field backend answers"
+        slowBackend.complete(null)
+
+        then: "audit log items contain resolved additional fields"
+        sender.sendAuditLogItems().size() == 50
+        sender.sendAnonymizedAuditLogItems().size() == 50
+        sender.sendAuditLogItems().collect { (it.resultData()[0] as ResultData.ObjectResultData).fields as Set } as Set ==
+                (1..50).collect {
+                    [
+                            new ResultData.ScalarResultData("login", "String", "login"),
+                            new ResultData.ScalarResultData("id", "String", "$it")
+                    ] as Set
+                } as Set
+    }
+
+    def "Should fetch additional fields of list items"() {
+        when:
+        def result = graphQL.execute("{ users { login } }")
+        slowBackend.complete(null)
+
+        then: "every item gets its own additional field"
+        result.errors.isEmpty()
+        (sender.sendAuditLogItems()[0].resultData()[0] as ResultData.ArrayResultData).items.collect {
+            (it as ResultData.ObjectResultData).fields
+        } == (1..3).collect {
+            [
+                    new ResultData.ScalarResultData("login", "String", "login$it"),
+                    new ResultData.ScalarResultData("id", "String", "$it")
+            ]
+        }
+    }
+
+    def "Should run blocking additional field fetchers on the executor"() {
+        given: "additional field fetcher blocking until the backend answers"
+        def backendAnswered = new CountDownLatch(1)
+        def fetcherThreads = [].asSynchronized()
+        def executor = Executors.newFixedThreadPool(2)
+        def graphQL = graphQL(
+                schema(SDL, RuntimeWiring.newRuntimeWiring()
+                        .type("Query", { it.dataFetcher("user", { env -> [id: env.getArgument("id"), login: "login"] }) })
+                        .type("User", {
+                            it.dataFetcher("id", { env ->
+                                fetcherThreads.add(Thread.currentThread())
+                                backendAnswered.await(1, TimeUnit.SECONDS)
+                                env.source.id
+                            })
+                        })
+                        .build()),
+                new AuditLogInstrumentationBuilder()
+                        .withActionLogSender(sender)
+                        .withAuditLogAdditionalFieldFetcher(new AuditLogAdditionalFieldFetcher(
+                                new DefaultAdditionalFieldsSetupPreconditions([new FieldSetup("User", "id")])))
+                        .withAdditionalFieldExecutor(executor)
+                        .build())
+
+        when: "request completes while the fetcher is blocked"
+        def result = graphQL.execute("""{ user(id: "1") { login } }""")
+
+        then: "response is released before the additional field is fetched"
+        result.errors.isEmpty()
+        sender.sendAuditLogItems().isEmpty()
+
+        when: "backend answers"
+        backendAnswered.countDown()
+        executor.shutdown()
+        executor.awaitTermination(1, TimeUnit.SECONDS)
+
+        then: "additional field was fetched on the executor"
+        fetcherThreads.every { it != Thread.currentThread() }
+        sender.sendAuditLogItems().size() == 1
+        (sender.sendAuditLogItems()[0].resultData()[0] as ResultData.ObjectResultData).fields as Set == [
+                new ResultData.ScalarResultData("login", "String", "login"),
+                new ResultData.ScalarResultData("id", "String", "1")
+        ] as Set
+    }
+
+    def "Should assemble audit log on dispatcher workers when additional fields resolve later"() {
+        given: "audit log sender recording its threads"
+        def senderThreads = [].asSynchronized()
+        def threadRecordingSender = new AuditLogSender() {
+            @Override
+            void send(AuditLogItem auditLogItem) {
+                senderThreads.add(Thread.currentThread().name)
+            }
+
+            @Override
+            void sendAnonymized(AuditLogItem auditLogItem) {
+                senderThreads.add(Thread.currentThread().name)
+            }
+        }
+        def dispatcher = new AuditLogAsyncDispatcher(10, 1, AuditLogAsyncDispatcher.OverflowPolicy.DROP_NEWEST, Duration.ZERO)
+        def graphQL = graphQL(
+                schema(SDL, RuntimeWiring.newRuntimeWiring()
+                        .type("Query", { it.dataFetcher("user", { env -> [id: env.getArgument("id"), login: "login"] }) })
+                        .type("User", { it.dataFetcher("id", { env -> slowBackend.thenApply { env.source.id } }) })
+                        .build()),
+                new AuditLogInstrumentationBuilder()
+                        .withActionLogSender(threadRecordingSender)
+                        .withAuditLogAdditionalFieldFetcher(new AuditLogAdditionalFieldFetcher(
+                                new DefaultAdditionalFieldsSetupPreconditions([new FieldSetup("User", "id")])))
+                        .withAsyncDispatcher(dispatcher)
+                        .build())
+
+        when: "additional field resolves on the test thread after the response"
+        graphQL.execute("""{ user(id: "1") { login } }""")
+        slowBackend.complete(null)
+        dispatcher.close()
+
+        then: "item is sent by the dispatcher worker and counted by the dispatcher"
+        senderThreads == ["audit-log-worker-0", "audit-log-worker-0"]
+        dispatcher.submittedCount() == 1
+        dispatcher.completedCount() == 1
+    }
+
+    def "Should share one default additional field executor"() {
+        expect:
+        AuditLogAdditionalFieldFetcher.defaultExecutor().is(AuditLogAdditionalFieldFetcher.defaultExecutor())
+    }
+}
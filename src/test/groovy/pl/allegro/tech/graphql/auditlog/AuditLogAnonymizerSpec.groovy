@@ -0,0 +1,68 @@
+package pl.allegro.tech.graphql.auditlog
+
+import pl.allegro.tech.graphql.auditlog.model.ResultData
+import pl.allegro.tech.graphql.auditlog.model.UserId
+import spock.lang.Specification
+
+import java.time.Instant
+
+class AuditLogAnonymizerSpec extends Specification {
+
+    def address = new ResultData.ObjectResultData("address", "Address", [
+            new ResultData.ScalarResultData("city", "String", "Poznan")
+    ])
+    def roles = new ResultData.ArrayResultData("roles", [
+            new ResultData.ScalarResultData("0", "String", "ADMIN")
+    ])
+    def user = new ResultData.ObjectResultData("user", "User", [
+            new ResultData.ScalarResultData("login", "String", "john"),
+            new ResultData.ScalarResultData("email", "String", "john@example.com"),
+            address,
+            roles
+    ])
+    def order = new ResultData.ObjectResultData("order", "Order", [
+            new ResultData.ScalarResultData("id", "String", "1")
+    ])
+    def item = new AuditLogItem(
+            "item-1",
+            [
+                    new AuditLogItem.Operation(AuditLogItem.OperationType.QUERY, "user", [:]),
+                    new AuditLogItem.Operation(AuditLogItem.OperationType.QUERY, "order", [:])
+            ],
+            [user, order],
+            [],
+            UserId.ANONYMOUS,
+            Instant.EPOCH)
+
+    def "Should copy only nodes on the path to anonymized fields"() {
+        given:
+        def anonymizer = new AuditLogAnonymizer(
+                new DefaultAnonymizedFieldsSetupPreconditions([new FieldSetup("email", "User")]))
+
+        when:
+        def anonymized = anonymizer.anonymizeActionLogItem(item)
+
+        then:
+        def anonymizedUser = anonymized.resultData()[0] as ResultData.ObjectResultData
+        !anonymizedUser.is(user)
+        anonymizedUser.fields[0].is(user.fields[0])
+        anonymizedUser.fields[1] == new ResultData.AnonymizedResultData("email", "String")
+        anonymizedUser.fields[2].is(address)
+        anonymizedUser.fields[3].is(roles)
+        anonymized.resultData()[1].is(order)
+    }
+
+    def "Should share the whole tree when nothing is anonymized"() {
+        given:
+        def anonymizer = new AuditLogAnonymizer(new DefaultAnonymizedFieldsSetupPreconditions([]))
+
+        when:
+        def anonymized = anonymizer.anonymizeActionLogItem(item)
+
+        then:
+        anonymized.id() != item.id()
+        anonymized.resultData() == item.resultData()
+        anonymized.resultData()[0].is(user)
+        anonymized.resultData()[1].is(order)
+    }
+}
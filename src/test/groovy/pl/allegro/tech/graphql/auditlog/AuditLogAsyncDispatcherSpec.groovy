@@ -0,0 +1,96 @@
+package pl.allegro.tech.graphql.auditlog
+
+import spock.lang.Specification
+
+import java.time.Duration
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+import static pl.allegro.tech.graphql.auditlog.AuditLogAsyncDispatcher.OverflowPolicy.BLOCK_WITH_TIMEOUT
+import static pl.allegro.tech.graphql.auditlog.AuditLogAsyncDispatcher.OverflowPolicy.CALLER_RUNS
+import static pl.allegro.tech.graphql.auditlog.AuditLogAsyncDispatcher.OverflowPolicy.DROP_NEWEST
+import static pl.allegro.tech.graphql.auditlog.AuditLogAsyncDispatcher.OverflowPolicy.DROP_OLDEST
+
+class AuditLogAsyncDispatcherSpec extends Specification {
+
+    CountDownLatch workerReleased = new CountDownLatch(1)
+    CountDownLatch workerBlocked = new CountDownLatch(1)
+    List<String> processed = new CopyOnWriteArrayList<>()
+
+    def "Should apply overflow policy when queue is full"() {
+        given: "dispatcher with one worker and queue for one task"
+        def dispatcher = new AuditLogAsyncDispatcher(1, 1, policy, Duration.ofMillis(50))
+
+        when: "worker is busy and two more tasks are dispatched"
+        dispatcher.dispatch(blockingTask())
+        workerBlocked.await(1, TimeUnit.SECONDS)
+        dispatcher.dispatch(task("first"))
+        dispatcher.dispatch(task("second"))
+        workerReleased.countDown()
+        dispatcher.close()
+
+        then: "tasks are processed according to the policy"
+        processed as Set == expectedProcessed as Set
+        dispatcher.submittedCount() == 3
+        dispatcher.droppedNewestCount() == droppedNewest
+        dispatcher.droppedOldestCount() == droppedOldest
+        dispatcher.timedOutCount() == timedOut
+        dispatcher.callerRunsCount() == callerRuns
+
+        where:
+        policy             || expectedProcessed   | droppedNewest | droppedOldest | timedOut | callerRuns
+        DROP_NEWEST        || ["first"]           | 1             | 0             | 0        | 0
+        DROP_OLDEST        || ["second"]          | 0             | 1             | 0        | 0
+        BLOCK_WITH_TIMEOUT || ["first"]           | 0             | 0             | 1        | 0
+        CALLER_RUNS        || ["first", "second"] | 0             | 0             | 0        | 1
+    }
+
+    def "Should count failed tasks and keep processing"() {
+        given:
+        def dispatcher = new AuditLogAsyncDispatcher(10, 2, DROP_NEWEST, Duration.ZERO)
+
+        when:
+        dispatcher.dispatch({ throw new IllegalStateException("sender failure") })
+        dispatcher.dispatch(task("next"))
+        dispatcher.close()
+
+        then:
+        processed == ["next"]
+        dispatcher.failedCount() == 1
+        dispatcher.completedCount() == 1
+    }
+
+    def "Should run every task dispatched while closing"() {
+        given:
+        def dispatcher = new AuditLogAsyncDispatcher(10_000, 2, DROP_NEWEST, Duration.ZERO)
+        def producersStarted = new CountDownLatch(4)
+        def producers = (1..4).collect { producer ->
+            Thread.start {
+                producersStarted.countDown()
+                (1..500).each { dispatcher.dispatch(task("$producer-$it")) }
+            }
+        }
+
+        when: "dispatcher is closed while producers are dispatching"
+        producersStarted.await(1, TimeUnit.SECONDS)
+        dispatcher.close()
+        producers*.join()
+
+        then: "no task is left in the queue"
+        dispatcher.queueSize() == 0
+        processed.size() == 2000
+        dispatcher.completedCount() == 2000
+    }
+
+    private Runnable blockingTask() {
+        return {
+            workerBlocked.countDown()
+            workerReleased.await(1, TimeUnit.SECONDS)
+        }
+    }
+
+    private Runnable task(String name) {
+        return { processed.add(name) }
+    }
+}
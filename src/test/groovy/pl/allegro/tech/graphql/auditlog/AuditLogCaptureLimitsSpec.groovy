@@ -0,0 +1,122 @@
+package pl.allegro.tech.graphql.auditlog
+
+import graphql.GraphQL
+import graphql.schema.idl.RuntimeWiring
+import pl.allegro.tech.graphql.auditlog.model.ResultData
+import pl.allegro.tech.graphql.auditlog.root.InMemoryAuditLogSender
+import spock.lang.Specification
+
+import static pl.allegro.tech.graphql.auditlog.fixture.GraphQLFixture.graphQL
+import static pl.allegro.tech.graphql.auditlog.fixture.GraphQLFixture.schema
+
+class AuditLogCaptureLimitsSpec extends Specification {
+
+    static String SDL = """
+            type Query {
+                users: [User]
+            }
+
+            type User {
+                login: String
+                email: String
+                friend: User
+            }
+            """
+
+    static List<Map> USERS = (0..<5).collect {
+        [login: "user" + it, email: "user" + it + "@example.com", friend: [login: "friend" + it, email: null, friend: null]]
+    }
+
+    InMemoryAuditLogSender sender = new InMemoryAuditLogSender()
+
+    def "Should capture at most max list items"() {
+        given:
+        def graphQL = engine(AuditLogCaptureLimits.unlimited().withMaxListItems(2), lazy)
+
+        when:
+        graphQL.execute("{ users { login } }")
+
+        then:
+        def users = sender.sendAuditLogItems()[0].resultData()[0] as ResultData.ArrayResultData
+        users.items.size() == 3
+        users.items[1] == new ResultData.ObjectResultData("1", "LinkedHashMap", [new ResultData.ScalarResultData("login", "String", "user1")])
+        users.items[2] == new ResultData.TruncatedResultData("2", 3)
+        sender.sendAnonymizedAuditLogItems()[0].resultData()[0].items[2] == new ResultData.TruncatedResultData("2", 3)
+
+        where:
+        lazy << [false, true]
+    }
+
+    def "Should replace objects nested deeper than max depth with truncation marker"() {
+        given:
+        def graphQL = engine(AuditLogCaptureLimits.unlimited().withMaxDepth(2), lazy)
+
+        when:
+        graphQL.execute("{ users { login friend { login email } } }")
+
+        then:
+        def user = (sender.sendAuditLogItems()[0].resultData()[0] as ResultData.ArrayResultData).items[0] as ResultData.ObjectResultData
+        user.fields == [
+                new ResultData.ScalarResultData("login", "String", "user0"),
+                new ResultData.TruncatedResultData("friend", 2)
+        ]
+
+        where:
+        lazy << [false, true]
+    }
+
+    def "Should stop building result data when node budget is spent"() {
+        given:
+        def graphQL = engine(AuditLogCaptureLimits.unlimited().withMaxNodes(3), false)
+
+        when:
+        graphQL.execute("{ users { login email } }")
+
+        then:
+        def users = sender.sendAuditLogItems()[0].resultData()[0] as ResultData.ArrayResultData
+        users.items == [
+                new ResultData.ObjectResultData("0", "LinkedHashMap", [
+                        new ResultData.ScalarResultData("login", "String", "user0"),
+                        new ResultData.TruncatedResultData("email", 1)
+                ]),
+                new ResultData.TruncatedResultData("1", 4)
+        ]
+
+        and:
+        new AuditLogItemJsonSerializer().writeAsString(sender.sendAuditLogItems()[0])
+                .contains('{"type":"truncated","name":"1","omitted":4}')
+    }
+
+    def "Should stop building result data when byte budget is spent"() {
+        given:
+        def graphQL = engine(AuditLogCaptureLimits.unlimited().withMaxBytes(100), false)
+
+        when:
+        graphQL.execute("{ users { login email } }")
+
+        then:
+        def users = sender.sendAuditLogItems()[0].resultData()[0] as ResultData.ArrayResultData
+        users.items.last() instanceof ResultData.TruncatedResultData
+        users.items.size() < USERS.size()
+    }
+
+    def "Should reject invalid limits"() {
+        when:
+        AuditLogCaptureLimits.unlimited().withMaxDepth(0)
+
+        then:
+        thrown(IllegalArgumentException)
+    }
+
+    private GraphQL engine(AuditLogCaptureLimits captureLimits, boolean lazyResultData) {
+        return graphQL(
+                schema(SDL, RuntimeWiring.newRuntimeWiring()
+                        .type("Query", { it.dataFetcher("users", { env -> USERS }) })
+                        .build()),
+                new AuditLogInstrumentationBuilder()
+                        .withActionLogSender(sender)
+                        .withCaptureLimits(captureLimits)
+                        .withLazyResultData(lazyResultData)
+                        .build())
+    }
+}
@@ -0,0 +1,92 @@
+package pl.allegro.tech.graphql.auditlog
+
+import pl.allegro.tech.graphql.auditlog.model.ResultData
+import pl.allegro.tech.graphql.auditlog.model.UserId
+import spock.lang.Specification
+
+import java.nio.charset.StandardCharsets
+import java.time.Instant
+
+class AuditLogItemBinaryCodecSpec extends Specification {
+
+    def codec = new AuditLogItemBinaryCodec()
+
+    def auditLogItem = new AuditLogItem(
+            "item-1",
+            [new AuditLogItem.Operation(AuditLogItem.OperationType.QUERY, "users",
+                    ["id": "12345", "limit": 10, "offset": 5L, "ratio": 0.5d, "total": BigInteger.TEN,
+                     "price": new BigDecimal("12.50"), "active": true, "filter": null, "tags": ["a", "b"],
+                     "nested": ["since": -3]])],
+            [new ResultData.ArrayResultData("users", (0..<20).collect {
+                new ResultData.ObjectResultData(String.valueOf(it), "User", [
+                        new ResultData.ScalarResultData("login", "String", "user" + it),
+                        new ResultData.AnonymizedResultData("email", "String"),
+                        new ResultData.NullResultData("address"),
+                        new ResultData.IntrospectionResultData("__typename", "String"),
+                        new ResultData.TimeoutResultData("id")
+                ])
+            } + [new ResultData.TruncatedResultData("20", 80)])],
+            [["message": "partial failure", "path": ["users", 1, "address"]]],
+            new UserId("user-1"),
+            Instant.parse("2021-10-01T10:15:30.123456789Z"))
+
+    def "Should decode encoded item"() {
+        expect:
+        codec.decode(codec.encode(auditLogItem)) == auditLogItem
+    }
+
+    def "Should decode item with null fields"() {
+        given:
+        def item = new AuditLogItem(null, [new AuditLogItem.Operation(null, null, null)],
+                [new ResultData.NullResultData(null)], null, null, null)
+
+        expect:
+        codec.decode(codec.encode(item)) == item
+    }
+
+    def "Should write the same bytes to a stream"() {
+        given:
+        def buffer = new ByteArrayOutputStream()
+
+        when:
+        codec.encode(auditLogItem, buffer)
+
+        then:
+        buffer.toByteArray() == codec.encode(auditLogItem)
+    }
+
+    def "Should decode batch sharing one dictionary"() {
+        given:
+        def batch = [auditLogItem, auditLogItem, auditLogItem]
+
+        when:
+        def encoded = codec.encodeBatch(batch)
+
+        then:
+        codec.decodeBatch(encoded) == batch
+        encoded.length < 3 * codec.encode(auditLogItem).length
+    }
+
+    def "Should be smaller than JSON"() {
+        expect:
+        codec.encode(auditLogItem).length * 2 < new AuditLogItemJsonSerializer().writeAsString(auditLogItem)
+                .getBytes(StandardCharsets.UTF_8).length
+    }
+
+    def "Should reject unknown version and truncated input"() {
+        given:
+        def encoded = codec.encode(auditLogItem)
+
+        when:
+        codec.decode([2, 0] as byte[])
+
+        then:
+        thrown(IllegalStateException)
+
+        when:
+        codec.decode(Arrays.copyOf(encoded, encoded.length - 1))
+
+        then:
+        thrown(IllegalStateException)
+    }
+}
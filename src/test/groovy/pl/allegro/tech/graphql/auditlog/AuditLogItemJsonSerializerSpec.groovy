@@ -0,0 +1,73 @@
+package pl.allegro.tech.graphql.auditlog
+
+import groovy.json.JsonSlurper
+import pl.allegro.tech.graphql.auditlog.model.ResultData
+import pl.allegro.tech.graphql.auditlog.model.UserId
+import spock.lang.Specification
+
+import java.nio.charset.StandardCharsets
+import java.time.Instant
+
+class AuditLogItemJsonSerializerSpec extends Specification {
+
+    def serializer = new AuditLogItemJsonSerializer()
+
+    def auditLogItem = new AuditLogItem(
+            "item-1",
+            [new AuditLogItem.Operation(AuditLogItem.OperationType.QUERY, "user",
+                    ["id": "12345", "limit": BigInteger.TEN, "filter": Optional.empty(), "tags": ["a", "b"]])],
+            [new ResultData.ObjectResultData("user", "User", [
+                    new ResultData.ScalarResultData("login", "String", "john"),
+                    new ResultData.AnonymizedResultData("email", "String"),
+                    new ResultData.NullResultData("address"),
+                    new ResultData.ArrayResultData("roles", [new ResultData.ScalarResultData("roles", "String", "ADMIN")])
+            ])],
+            [["message": "partial failure", "path": ["user", "address"]]],
+            new UserId("user-1"),
+            Instant.parse("2021-10-01T10:15:30Z"))
+
+    def "Should write audit log item as JSON"() {
+        when:
+        def json = new JsonSlurper().parseText(serializer.writeAsString(auditLogItem))
+
+        then:
+        json == [
+                "id"           : "item-1",
+                "userId"       : "user-1",
+                "executionDate": "2021-10-01T10:15:30Z",
+                "operations"   : [[
+                                          "operationType": "QUERY",
+                                          "operationName": "user",
+                                          "arguments"    : ["id": "12345", "limit": 10, "filter": null, "tags": ["a", "b"]]
+                                  ]],
+                "resultData"   : [[
+                                          "type"    : "object",
+                                          "name"    : "user",
+                                          "typeName": "User",
+                                          "fields"  : [
+                                                  ["type": "scalar", "name": "login", "typeName": "String", "value": "john"],
+                                                  ["type": "anonymized", "name": "email", "typeName": "String"],
+                                                  ["type": "null", "name": "address", "typeName": "null"],
+                                                  ["type" : "array", "name": "roles",
+                                                   "items": [["type": "scalar", "name": "roles", "typeName": "String", "value": "ADMIN"]]]
+                                          ]
+                                  ]],
+                "errors"       : [["message": "partial failure", "path": ["user", "address"]]]
+        ]
+    }
+
+    def "Should write the same JSON to a reusable stream without closing it"() {
+        given:
+        def buffer = new ByteArrayOutputStream()
+
+        when:
+        serializer.write(auditLogItem, buffer)
+        def first = buffer.toString(StandardCharsets.UTF_8)
+        buffer.reset()
+        serializer.write(auditLogItem, buffer)
+
+        then:
+        first == serializer.writeAsString(auditLogItem)
+        buffer.toString(StandardCharsets.UTF_8) == first
+    }
+}
@@ -0,0 +1,116 @@
+package pl.allegro.tech.graphql.auditlog
+
+import graphql.GraphQL
+import graphql.schema.idl.RuntimeWiring
+import pl.allegro.tech.graphql.auditlog.model.ResultData
+import pl.allegro.tech.graphql.auditlog.root.InMemoryAuditLogSender
+import spock.lang.Specification
+
+import static pl.allegro.tech.graphql.auditlog.fixture.GraphQLFixture.graphQL
+import static pl.allegro.tech.graphql.auditlog.fixture.GraphQLFixture.schema
+
+class AuditLogLazyResultDataSpec extends Specification {
+
+    static String SDL = """
+            type Query {
+                users: [User]
+                me: User
+            }
+
+            type User {
+                id: ID
+                login: String
+                email: String
+                friends: [User]
+            }
+            """
+
+    static List<Map> USERS = [
+            [id: "1", login: "john", email: "john@example.com",
+             friends: [[id: "2", login: "jane", email: null, friends: []]]],
+            [id: "3", login: "jack", email: "jack@example.com", friends: null]
+    ]
+
+    InMemoryAuditLogSender eagerSender = new InMemoryAuditLogSender()
+    InMemoryAuditLogSender lazySender = new InMemoryAuditLogSender()
+
+    def "Should pass lazy items equal to eagerly built ones"() {
+        given:
+        def eager = engine(eagerSender, false)
+        def lazy = engine(lazySender, true)
+        def query = "{ users { login email friends { login email } } me { login } }"
+        def serializer = new AuditLogItemJsonSerializer()
+
+        when:
+        eager.execute(query)
+        lazy.execute(query)
+
+        then:
+        lazySender.sendAuditLogItems()[0].resultData()[0] instanceof LazyResultData.LazyArrayResultData
+        lazySender.sendAuditLogItems()[0].resultData() == eagerSender.sendAuditLogItems()[0].resultData()
+        lazySender.sendAnonymizedAuditLogItems()[0].resultData() == eagerSender.sendAnonymizedAuditLogItems()[0].resultData()
+
+        and:
+        serializer.writeAsString(lazySender.sendAnonymizedAuditLogItems()[0]).contains('"type":"anonymized","name":"email"')
+    }
+
+    def "Should convert object fields once on first access"() {
+        given:
+        int conversions = 0
+        def fields = [new ResultData.ScalarResultData("login", "String", "john")]
+        def lazy = new LazyResultData.LazyObjectResultData("me", "User", { conversions++; fields })
+
+        expect:
+        conversions == 0
+
+        when:
+        lazy.fields
+        lazy.fields
+
+        then:
+        conversions == 1
+        lazy == new ResultData.ObjectResultData("me", "User", fields)
+    }
+
+    def "Should convert array items on every access without keeping them"() {
+        given:
+        int conversions = 0
+        def lazy = new LazyResultData.LazyArrayResultData("users", 3, { index ->
+            conversions++
+            new ResultData.ScalarResultData(String.valueOf(index), "String", "user" + index)
+        })
+
+        when:
+        def anonymized = lazy.anonymize()
+
+        then:
+        conversions == 0
+        lazy.items.size() == 3
+
+        when:
+        lazy.items.each {}
+        anonymized.items.each {}
+
+        then:
+        conversions == 6
+        anonymized.items[1] == new ResultData.AnonymizedResultData("1", "String")
+    }
+
+    private static GraphQL engine(InMemoryAuditLogSender sender, boolean lazyResultData) {
+        return graphQL(
+                schema(SDL, RuntimeWiring.newRuntimeWiring()
+                        .type("Query", {
+                            it.dataFetcher("users", { env -> USERS })
+                                    .dataFetcher("me", { env -> USERS[0] })
+                        })
+                        .build()),
+                new AuditLogInstrumentationBuilder()
+                        .withActionLogSender(sender)
+                        .withAuditLogAnonymizer(new AuditLogAnonymizer(
+                                new DefaultAnonymizedFieldsSetupPreconditions([new FieldSetup("email", "*")])))
+                        .withAuditLogAdditionalFieldFetcher(new AuditLogAdditionalFieldFetcher(
+                                new DefaultAdditionalFieldsSetupPreconditions([new FieldSetup("User", "id")])))
+                        .withLazyResultData(lazyResultData)
+                        .build())
+    }
+}
@@ -0,0 +1,138 @@
+package pl.allegro.tech.graphql.auditlog
+
+import graphql.GraphQL
+import graphql.schema.idl.RuntimeWiring
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import pl.allegro.tech.graphql.auditlog.root.InMemoryAuditLogSender
+import spock.lang.Specification
+
+import java.time.Duration
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+import static pl.allegro.tech.graphql.auditlog.AuditLogAsyncDispatcher.OverflowPolicy.DROP_NEWEST
+import static pl.allegro.tech.graphql.auditlog.AuditLogMetrics.Stage
+import static pl.allegro.tech.graphql.auditlog.fixture.GraphQLFixture.graphQL
+import static pl.allegro.tech.graphql.auditlog.fixture.GraphQLFixture.schema
+
+class AuditLogMetricsSpec extends Specification {
+
+    static String SDL = """
+            type Query {
+                users: [User]
+            }
+
+            type User {
+                id: ID
+                login: String
+            }
+            """
+
+    StripedAuditLogMetrics metrics = new StripedAuditLogMetrics()
+
+    def "Should record latency of every stage and size of the item"() {
+        given:
+        def graphQL = meteredGraphQL(new InMemoryAuditLogSender(), metrics)
+
+        when:
+        def result = graphQL.execute("""{ users { id login } }""")
+
+        then:
+        result.errors.isEmpty()
+        [Stage.REGISTER_ACTION, Stage.REGISTER_TYPE, Stage.REGISTER_ADDITIONAL_FIELD, Stage.DISPATCH,
+         Stage.ASSEMBLE, Stage.ANONYMIZE].every { metrics.latency(it).count() > 0 }
+        metrics.latency(Stage.SEND).count() == 2
+        metrics.itemNodes().count() == 1
+        metrics.itemNodes().sum() == 7
+        metrics.itemBytes().sum() > 0
+        Stage.values().every { metrics.errorCount(it) == 0 }
+    }
+
+    def "Should record errors of the stage that failed"() {
+        given:
+        def graphQL = meteredGraphQL(new AuditLogSender() {
+            @Override
+            void send(AuditLogItem auditLogItem) {
+                throw new IllegalStateException("sink unavailable")
+            }
+        }, metrics)
+
+        when:
+        graphQL.execute("""{ users { id } }""")
+
+        then:
+        metrics.errorCount(Stage.SEND) == 1
+        Stage.values().findAll { it != Stage.SEND }.every { metrics.errorCount(it) == 0 }
+        metrics.latency(Stage.ANONYMIZE).count() == 0
+        metrics.itemNodes().count() == 0
+    }
+
+    def "Should record queue depth and dropped tasks of async dispatcher"() {
+        given:
+        def dispatcher = new AuditLogAsyncDispatcher(1, 1, DROP_NEWEST, Duration.ZERO)
+        dispatcher.registerMetrics(metrics)
+        def workerBlocked = new CountDownLatch(1)
+        def workerReleased = new CountDownLatch(1)
+
+        when:
+        dispatcher.dispatch({
+            workerBlocked.countDown()
+            workerReleased.await(1, TimeUnit.SECONDS)
+        })
+        workerBlocked.await(1, TimeUnit.SECONDS)
+        dispatcher.dispatch({})
+        dispatcher.dispatch({})
+
+        then:
+        metrics.queueDepth() == 1
+        metrics.droppedCount() == 1
+
+        cleanup:
+        workerReleased.countDown()
+        dispatcher.close()
+    }
+
+    def "Should report percentiles as upper bounds of power of two buckets"() {
+        given:
+        def histogram = new StripedAuditLogMetrics.Histogram()
+
+        when:
+        (1..100).each { histogram.record(it) }
+
+        then:
+        histogram.count() == 100
+        histogram.sum() == 5050
+        histogram.max() == 100
+        histogram.percentile(0.5) == 63
+        histogram.percentile(0.99) == 100
+        histogram.percentile(0.01) == 1
+    }
+
+    def "Should publish measurements to Micrometer registry"() {
+        given:
+        def registry = new SimpleMeterRegistry()
+        def graphQL = meteredGraphQL(new InMemoryAuditLogSender(), new MicrometerAuditLogMetrics(registry))
+
+        when:
+        graphQL.execute("""{ users { id login } }""")
+
+        then:
+        registry.get("audit.log.stage").tag("stage", "send").timer().count() == 2
+        registry.get("audit.log.item.nodes").summary().totalAmount() == 7
+        registry.get("audit.log.stage.errors").tag("stage", "send").counter().count() == 0
+        registry.get("audit.log.queue.depth").gauge().value() == 0
+    }
+
+    private static GraphQL meteredGraphQL(AuditLogSender sender, AuditLogMetrics metrics) {
+        return graphQL(
+                schema(SDL, RuntimeWiring.newRuntimeWiring()
+                        .type("Query", {
+                            it.dataFetcher("users", { env -> [[id: "1", login: "first"], [id: "2", login: "second"]] })
+                        })
+                        .build()),
+                new AuditLogInstrumentationBuilder()
+                        .withActionLogSender(sender)
+                        .withMetrics(metrics)
+                        .build())
+    }
+}
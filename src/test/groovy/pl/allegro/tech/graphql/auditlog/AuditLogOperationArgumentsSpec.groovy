@@ -0,0 +1,124 @@
+package pl.allegro.tech.graphql.auditlog
+
+import graphql.ExecutionInput
+import graphql.GraphQL
+import graphql.schema.idl.RuntimeWiring
+import pl.allegro.tech.graphql.auditlog.root.InMemoryAuditLogSender
+import spock.lang.Specification
+
+import static pl.allegro.tech.graphql.auditlog.AuditLogItem.OperationType.MUTATION
+import static pl.allegro.tech.graphql.auditlog.fixture.GraphQLFixture.graphQL
+import static pl.allegro.tech.graphql.auditlog.fixture.GraphQLFixture.schema
+
+class AuditLogOperationArgumentsSpec extends Specification {
+
+    static String SDL = """
+            type Query {
+                ping: String
+            }
+
+            type Mutation {
+                save(input: Input, score: Float, tags: [String], note: String, kind: Kind): String
+            }
+
+            input Input {
+                name: String
+                size: Int
+                address: Address
+            }
+
+            input Address {
+                city: String
+                zip: String
+            }
+
+            enum Kind {
+                SMALL
+                LARGE
+            }
+            """
+
+    InMemoryAuditLogSender sender = new InMemoryAuditLogSender()
+
+    GraphQL graphQL = graphQL(
+            schema(SDL, RuntimeWiring.newRuntimeWiring()
+                    .type("Mutation", { it.dataFetcher("save", { env -> "saved" }) })
+                    .build()),
+            new AuditLogInstrumentationBuilder()
+                    .withActionLogSender(sender)
+                    .build())
+
+    def "Should capture literal arguments of every input type"() {
+        when:
+        def result = graphQL.execute("""mutation {
+                save(
+                    input: { name: "box", size: 3, address: { city: "Poznan", zip: null } },
+                    score: 1.5,
+                    tags: ["a", "b"],
+                    note: null,
+                    kind: LARGE)
+            }""")
+
+        then:
+        result.errors.isEmpty()
+        operation().arguments() == [
+                input: [name: "box", size: BigInteger.valueOf(3), address: [city: "Poznan", zip: null]],
+                score: new BigDecimal("1.5"),
+                tags : ["a", "b"],
+                note : Optional.empty(),
+                kind : "LARGE"
+        ]
+    }
+
+    def "Should capture variables nested in literal arguments"() {
+        when:
+        def result = graphQL.execute(ExecutionInput.newExecutionInput("""
+                mutation Save(\$city: String, \$tag: String) {
+                    save(input: { name: "box", address: { city: \$city } }, tags: [\$tag, "b"])
+                }""")
+                .variables([city: "Poznan", tag: "a"])
+                .build())
+
+        then:
+        result.errors.isEmpty()
+        operation().arguments() == [
+                input: [name: "box", address: [city: "Poznan"]],
+                tags : ["a", "b"]
+        ]
+    }
+
+    def "Should capture default values of variables left out of the request"() {
+        when:
+        def result = graphQL.execute("""
+                mutation Save(\$input: Input = { name: "default", size: 1 }, \$note: String) {
+                    save(input: \$input, note: \$note)
+                }""")
+
+        then:
+        result.errors.isEmpty()
+        operation() == new AuditLogItem.Operation(
+                MUTATION,
+                "save",
+                [input: [name: "default", size: BigInteger.ONE], note: Optional.empty()])
+    }
+
+    def "Should capture input object variables as sent"() {
+        given:
+        def input = [name: "box", size: 3, address: [city: "Poznan", zip: "60-001"]]
+
+        when:
+        def result = graphQL.execute(ExecutionInput.newExecutionInput(
+                'mutation Save($input: Input, $score: Float) { save(input: $input, score: $score) }')
+                .variables([input: input, score: 2.5d])
+                .build())
+
+        then:
+        result.errors.isEmpty()
+        operation().arguments() == [input: input, score: 2.5d]
+    }
+
+    private AuditLogItem.Operation operation() {
+        assert sender.sendAuditLogItems().size() == 1
+        return sender.sendAuditLogItems()[0].operations()[0]
+    }
+}
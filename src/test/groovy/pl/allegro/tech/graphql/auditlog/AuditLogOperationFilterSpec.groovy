@@ -0,0 +1,64 @@
+package pl.allegro.tech.graphql.auditlog
+
+import graphql.schema.idl.RuntimeWiring
+import pl.allegro.tech.graphql.auditlog.root.InMemoryAuditLogSender
+import spock.lang.Specification
+
+import static pl.allegro.tech.graphql.auditlog.AuditLogItem.OperationType.MUTATION
+import static pl.allegro.tech.graphql.auditlog.fixture.GraphQLFixture.graphQL
+import static pl.allegro.tech.graphql.auditlog.fixture.GraphQLFixture.schema
+
+class AuditLogOperationFilterSpec extends Specification {
+
+    static String SDL = """
+            type Query {
+                user(id: ID!): User
+                health: String
+            }
+
+            type Mutation {
+                updateUser(id: ID!): User
+            }
+
+            type User {
+                id: ID
+                login: String
+            }
+            """
+
+    InMemoryAuditLogSender sender = new InMemoryAuditLogSender()
+
+    def "Should audit only operations passing the filter"() {
+        given:
+        def graphQL = graphQL(
+                schema(SDL, RuntimeWiring.newRuntimeWiring()
+                        .type("Query", {
+                            it.dataFetcher("user", { env -> [id: env.getArgument("id"), login: "login"] })
+                                    .dataFetcher("health", { env -> "UP" })
+                        })
+                        .type("Mutation", { it.dataFetcher("updateUser", { env -> [id: env.getArgument("id"), login: "login"] }) })
+                        .build()),
+                new AuditLogInstrumentationBuilder()
+                        .withActionLogSender(sender)
+                        .withOperationFilter(filter)
+                        .build())
+
+        when:
+        def result = graphQL.execute(query)
+
+        then:
+        result.errors.isEmpty()
+        sender.sendAuditLogItems().size() == (audited ? 1 : 0)
+
+        where:
+        filter                                                                | query                                          || audited
+        AuditLogOperationFilter.allOperations()                               | '{ health }'                                   || true
+        AuditLogOperationFilter.allOperations().denyRootFields("health")      | '{ health }'                                   || false
+        AuditLogOperationFilter.allOperations().denyRootFields("health")      | '{ health user(id: "1") { login } }'           || true
+        AuditLogOperationFilter.allOperations().allowRootFields("user")       | '{ health }'                                   || false
+        AuditLogOperationFilter.allOperations().allowRootFields("user")       | '{ user(id: "1") { login } }'                  || true
+        AuditLogOperationFilter.allOperations().allowRootFields("user")       | '{ ... on Query { health } }'                  || true
+        AuditLogOperationFilter.operationTypes(MUTATION)                      | '{ user(id: "1") { login } }'                  || false
+        AuditLogOperationFilter.operationTypes(MUTATION)                      | 'mutation { updateUser(id: "1") { login } }'   || true
+    }
+}
@@ -0,0 +1,109 @@
+package pl.allegro.tech.graphql.auditlog
+
+import graphql.ExecutionInput
+import graphql.GraphQL
+import graphql.schema.idl.RuntimeWiring
+import pl.allegro.tech.graphql.auditlog.root.InMemoryAuditLogSender
+import spock.lang.Specification
+
+import static pl.allegro.tech.graphql.auditlog.fixture.GraphQLFixture.graphQL
+import static pl.allegro.tech.graphql.auditlog.fixture.GraphQLFixture.schema
+
+class AuditLogSamplingSpec extends Specification {
+
+    static String SDL = """
+            type Query {
+                user(id: ID!): User
+                users: [User]
+            }
+
+            type Mutation {
+                updateUser(id: ID!): User
+            }
+
+            type User {
+                id: ID
+                login: String
+            }
+            """
+
+    InMemoryAuditLogSender sender = new InMemoryAuditLogSender()
+
+    GraphQL graphQL = graphQL(
+            schema(SDL, RuntimeWiring.newRuntimeWiring()
+                    .type("Query", {
+                        it.dataFetcher("user", { env -> [id: env.getArgument("id"), login: "login"] })
+                                .dataFetcher("users", { env -> [[id: "1", login: "login"]] })
+                    })
+                    .type("Mutation", { it.dataFetcher("updateUser", { env -> [id: env.getArgument("id"), login: "login"] }) })
+                    .build()),
+            new AuditLogInstrumentationBuilder()
+                    .withActionLogSender(sender)
+                    .withSamplingPolicy(AuditLogSamplingPolicy.rate(0.0).withOperationRate("AuditedUser", 1.0))
+                    .build())
+
+    def "Should audit only sampled operations and every mutation"() {
+        when:
+        def results = [
+                graphQL.execute("""query NotAudited { user(id: "1") { login } }"""),
+                graphQL.execute("""{ users { id login } }"""),
+                graphQL.execute("""query AuditedUser { user(id: "2") { login } }"""),
+                graphQL.execute(ExecutionInput.newExecutionInput("""query AuditedUser { user(id: "3") { login } }
+                                                                    query Other { users { id } }""")
+                        .operationName("AuditedUser")),
+                graphQL.execute("""mutation { updateUser(id: "4") { login } }""")
+        ]
+
+        then:
+        results.every { it.errors.isEmpty() }
+        sender.sendAuditLogItems().collect { it.operations()[0].arguments() } ==
+                [["id": "2"], ["id": "3"], ["id": "4"]]
+    }
+
+    def "Should read operation name from the query header"() {
+        expect:
+        AuditLogSamplingPolicy.operationName(query) == operationName
+
+        where:
+        query                                         || operationName
+        "query User { user { id } }"                  || "User"
+        "  # comment\n query User(\$id: ID) { id }"   || "User"
+        "subscription Events { events }"              || "Events"
+        "fragment F on User { id } query User { ...F }" || "User"
+        "query { user { id } }"                       || null
+        "{ user { id } }"                             || null
+        ""                                            || null
+    }
+
+    def "Should always sample mutations only when the executed operation is a mutation"() {
+        given:
+        def policy = AuditLogSamplingPolicy.rate(0.0)
+
+        expect:
+        policy.shouldSample(ExecutionInput.newExecutionInput(query).operationName(operationName).build()) == sampled
+
+        where:
+        query                                                                 | operationName || sampled
+        "mutation { updateUser(id: \"1\") { id } }"                           | null          || true
+        "  # comment\n mutation Update { updateUser(id: \"1\") { id } }"      | null          || true
+        "{ user(id: \"1\") { lastMutationDate: login } }"                     | null          || false
+        "query User(\$id: ID = \"mutation\") { user(id: \$id) { id } }"        | null          || false
+        "query User { user(id: \"1\") { id } } # mutation"                    | null          || false
+        '{ user(id: """mutation { }""") { id } }'                             | null          || false
+        "query User { user(id: \"1\") { id } } mutation Update { x }"         | "User"        || false
+        "query User { user(id: \"1\") { id } } mutation Update { x }"         | "Update"      || true
+        "fragment F on User { id } mutation Update { updateUser { ...F } }"   | null          || true
+        "query User { user { id } }"                                          | "Missing"     || true
+    }
+
+    def "Should reject sampling rate out of range"() {
+        when:
+        AuditLogSamplingPolicy.rate(rate)
+
+        then:
+        thrown(IllegalArgumentException)
+
+        where:
+        rate << [-0.1, 1.1]
+    }
+}
@@ -0,0 +1,86 @@
+package pl.allegro.tech.graphql.auditlog
+
+import graphql.GraphQL
+import graphql.schema.idl.RuntimeWiring
+import pl.allegro.tech.graphql.auditlog.model.ResultData
+import pl.allegro.tech.graphql.auditlog.root.InMemoryAuditLogSender
+import spock.lang.Specification
+
+import static pl.allegro.tech.graphql.auditlog.fixture.GraphQLFixture.graphQL
+import static pl.allegro.tech.graphql.auditlog.fixture.GraphQLFixture.schema
+
+class AuditLogSinglePassAnonymizationSpec extends Specification {
+
+    static String SDL = """
+            type Query {
+                users: [User]
+                me: User
+            }
+
+            type User {
+                id: ID
+                login: String
+                email: String
+                address: Address
+                friends: [User]
+            }
+
+            type Address {
+                city: String
+                street: String
+            }
+            """
+
+    static List<FieldSetup> ANONYMIZED_FIELDS = [
+            new FieldSetup("email", "*"),
+            new FieldSetup("address", "*"),
+            new FieldSetup("id", "*")
+    ]
+
+    static List<Map> USERS = [
+            [id: "1", login: "john", email: "john@example.com", address: [city: "Poznan", street: "Grunwaldzka"],
+             friends: [[id: "2", login: "jane", email: null, address: null, friends: []]]],
+            [id: "3", login: "jack", email: "jack@example.com", address: null, friends: null]
+    ]
+
+    InMemoryAuditLogSender twoPassSender = new InMemoryAuditLogSender()
+    InMemoryAuditLogSender singlePassSender = new InMemoryAuditLogSender()
+
+    def "Should build the same anonymized item in a single traversal"() {
+        given:
+        def twoPass = engine(twoPassSender, false)
+        def singlePass = engine(singlePassSender, true)
+        def query = "{ users { login email address { city street } friends { login email address { city } } } me { login } }"
+
+        when:
+        twoPass.execute(query)
+        singlePass.execute(query)
+
+        then:
+        singlePassSender.sendAuditLogItems()[0].resultData() == twoPassSender.sendAuditLogItems()[0].resultData()
+        singlePassSender.sendAnonymizedAuditLogItems()[0].resultData() == twoPassSender.sendAnonymizedAuditLogItems()[0].resultData()
+        singlePassSender.sendAnonymizedAuditLogItems()[0].resultData() != singlePassSender.sendAuditLogItems()[0].resultData()
+
+        and: "additional fields are anonymized by the same rules"
+        def anonymizedMe = singlePassSender.sendAnonymizedAuditLogItems()[0].resultData()[1] as ResultData.ObjectResultData
+        anonymizedMe.fields.find { it.name == "id" } == new ResultData.AnonymizedResultData("id", "String")
+    }
+
+    private static GraphQL engine(InMemoryAuditLogSender sender, boolean singlePassAnonymization) {
+        return graphQL(
+                schema(SDL, RuntimeWiring.newRuntimeWiring()
+                        .type("Query", {
+                            it.dataFetcher("users", { env -> USERS })
+                                    .dataFetcher("me", { env -> USERS[0] })
+                        })
+                        .build()),
+                new AuditLogInstrumentationBuilder()
+                        .withActionLogSender(sender)
+                        .withAuditLogAnonymizer(new AuditLogAnonymizer(
+                                new DefaultAnonymizedFieldsSetupPreconditions(ANONYMIZED_FIELDS)))
+                        .withAuditLogAdditionalFieldFetcher(new AuditLogAdditionalFieldFetcher(
+                                new DefaultAdditionalFieldsSetupPreconditions([new FieldSetup("User", "id")])))
+                        .withSinglePassAnonymization(singlePassAnonymization)
+                        .build())
+    }
+}
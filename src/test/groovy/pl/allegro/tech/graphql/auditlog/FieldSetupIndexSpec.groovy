@@ -0,0 +1,27 @@
+package pl.allegro.tech.graphql.auditlog
+
+import spock.lang.Specification
+
+class FieldSetupIndexSpec extends Specification {
+
+    def "Should match field setup with wildcards"() {
+        given:
+        def index = FieldSetupIndex.compile(setups.collect { new FieldSetup(it[0], it[1]) })
+
+        expect:
+        index.matches(objectName, fieldName) == expected
+
+        where:
+        setups                              | objectName | fieldName || expected
+        []                                  | "User"     | "email"   || false
+        [["User", "email"]]                 | "User"     | "email"   || true
+        [["User", "email"]]                 | "User"     | "login"   || false
+        [["User", "email"]]                 | "Order"    | "email"   || false
+        [["User", "*"]]                     | "User"     | "login"   || true
+        [["User", "*"]]                     | "Order"    | "login"   || false
+        [["*", "email"]]                    | "Order"    | "email"   || true
+        [["*", "email"]]                    | "Order"    | "login"   || false
+        [["*", "*"]]                        | "Order"    | "login"   || true
+        [["User", "email"], ["Order", "*"]] | "Order"    | "id"      || true
+    }
+}
@@ -0,0 +1,83 @@
+package pl.allegro.tech.graphql.auditlog
+
+import pl.allegro.tech.graphql.auditlog.model.ResultData
+import pl.allegro.tech.graphql.auditlog.model.UserId
+import spock.lang.Specification
+import spock.util.concurrent.PollingConditions
+
+import java.time.Duration
+import java.time.Instant
+import java.util.concurrent.CopyOnWriteArrayList
+
+class MicroBatchingAuditLogSenderSpec extends Specification {
+
+    BatchRecordingSender batchSink = new BatchRecordingSender()
+
+    def "Should flush batch when it reaches maximum size"() {
+        given:
+        def sender = new MicroBatchingAuditLogSender(batchSink, 3, Long.MAX_VALUE, Duration.ofHours(1))
+
+        when:
+        (1..7).each { sender.send(item("$it")) }
+
+        then:
+        batchSink.batches*.size() == [3, 3]
+
+        when:
+        sender.close()
+
+        then:
+        batchSink.batches*.size() == [3, 3, 1]
+    }
+
+    def "Should flush batch when it reaches maximum size in bytes"() {
+        given:
+        def sender = new MicroBatchingAuditLogSender(batchSink, 100, 10, Duration.ofHours(1), { 4L })
+
+        when:
+        (1..6).each { sender.sendAnonymized(item("$it")) }
+
+        then:
+        batchSink.anonymizedBatches*.size() == [3, 3]
+        batchSink.batches.isEmpty()
+    }
+
+    def "Should flush batch after maximum linger time"() {
+        given:
+        def sender = new MicroBatchingAuditLogSender(batchSink, 100, Long.MAX_VALUE, Duration.ofMillis(50))
+
+        when:
+        sender.send(item("1"))
+        sender.send(item("2"))
+
+        then:
+        new PollingConditions(timeout: 2).eventually {
+            assert batchSink.batches*.size() == [2]
+        }
+    }
+
+    private static AuditLogItem item(String id) {
+        return new AuditLogItem(
+                id,
+                [new AuditLogItem.Operation(AuditLogItem.OperationType.QUERY, "user", [:])],
+                [new ResultData.ScalarResultData("user", "String", id)],
+                [],
+                UserId.ANONYMOUS,
+                Instant.now())
+    }
+
+    static class BatchRecordingSender implements AuditLogSender {
+        List<List<AuditLogItem>> batches = new CopyOnWriteArrayList<>()
+        List<List<AuditLogItem>> anonymizedBatches = new CopyOnWriteArrayList<>()
+
+        @Override
+        void sendBatch(List<AuditLogItem> auditLogItems) {
+            batches.add(auditLogItems)
+        }
+
+        @Override
+        void sendAnonymizedBatch(List<AuditLogItem> auditLogItems) {
+            anonymizedBatches.add(auditLogItems)
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package pl.allegro.tech.graphql.auditlog
+
+import pl.allegro.tech.graphql.auditlog.model.ResultData
+import pl.allegro.tech.graphql.auditlog.model.UserId
+import spock.lang.Specification
+
+import java.time.Instant
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+import static pl.allegro.tech.graphql.auditlog.RingBufferAuditLogSender.WaitStrategy
+
+class RingBufferAuditLogSenderSpec extends Specification {
+
+    RecordingSender sink = new RecordingSender()
+
+    def "Should pass every item from concurrent producers exactly once with #waitStrategy"() {
+        given:
+        def sender = new RingBufferAuditLogSender(sink, 8, 3, waitStrategy)
+        def producers = Executors.newFixedThreadPool(8)
+        def start = new CountDownLatch(1)
+
+        when:
+        (0..<8).each { producer ->
+            producers.submit {
+                start.await()
+                (0..<500).each {
+                    def id = "$producer-$it"
+                    it % 2 == 0 ? sender.send(item(id)) : sender.sendAnonymized(item(id))
+                }
+            }
+        }
+        start.countDown()
+        producers.shutdown()
+        producers.awaitTermination(10, TimeUnit.SECONDS)
+        sender.close()
+
+        then:
+        sink.counts.size() == 4000
+        sink.counts.values().every { it == 1 }
+        sink.anonymized.size() == 2000
+        sender.pendingCount() == 0
+
+        where:
+        waitStrategy << WaitStrategy.values()
+    }
+
+    def "Should send items on the calling thread after closing"() {
+        given:
+        def sender = new RingBufferAuditLogSender(sink, 4, 1, WaitStrategy.BLOCKING)
+        sender.close()
+
+        when:
+        sender.send(item("1"))
+
+        then:
+        sink.threads["1"] == Thread.currentThread().name
+    }
+
+    def "Should send every item published while closing"() {
+        given: "small buffer, so producers wait for free slots while the sender closes"
+        def sender = new RingBufferAuditLogSender(sink, 4, 1, WaitStrategy.YIELDING)
+        def producersStarted = new CountDownLatch(4)
+        def producers = (0..<4).collect { producer ->
+            Thread.start {
+                producersStarted.countDown()
+                (0..<500).each { sender.send(item("$producer-$it")) }
+            }
+        }
+
+        when:
+        producersStarted.await(1, TimeUnit.SECONDS)
+        sender.close()
+        producers*.join(10_000)
+
+        then: "no producer is stuck and no item is lost"
+        producers.every { !it.alive }
+        sink.counts.size() == 2000
+        sender.pendingCount() == 0
+    }
+
+    def "Should count items the delegate failed to send"() {
+        given:
+        def sender = new RingBufferAuditLogSender(new AuditLogSender() {
+            @Override
+            void send(AuditLogItem auditLogItem) {
+                throw new IllegalStateException("sink unavailable")
+            }
+        }, 4, 1, WaitStrategy.SLEEPING)
+
+        when:
+        (1..3).each { sender.send(item("$it")) }
+        sender.close()
+
+        then:
+        sender.failedCount() == 3
+    }
+
+    def "Should reject buffer size which is not a power of two"() {
+        when:
+        new RingBufferAuditLogSender(sink, 6, 1, WaitStrategy.YIELDING)
+
+        then:
+        thrown(IllegalArgumentException)
+    }
+
+    private static AuditLogItem item(String id) {
+        return new AuditLogItem(
+                id,
+                [new AuditLogItem.Operation(AuditLogItem.OperationType.QUERY, "user", [:])],
+                [new ResultData.ScalarResultData("user", "String", id)],
+                [],
+                UserId.ANONYMOUS,
+                Instant.now())
+    }
+
+    static class RecordingSender implements AuditLogSender {
+        Map<String, Integer> counts = new ConcurrentHashMap<>()
+        Set<String> anonymized = ConcurrentHashMap.newKeySet()
+        Map<String, String> threads = new ConcurrentHashMap<>()
+
+        @Override
+        void send(AuditLogItem auditLogItem) {
+            counts.merge(auditLogItem.id(), 1, Integer::sum)
+            threads.put(auditLogItem.id(), Thread.currentThread().name)
+        }
+
+        @Override
+        void sendAnonymized(AuditLogItem auditLogItem) {
+            counts.merge(auditLogItem.id(), 1, Integer::sum)
+            anonymized.add(auditLogItem.id())
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package pl.allegro.tech.graphql.auditlog
+
+import pl.allegro.tech.graphql.auditlog.model.ResultData
+import pl.allegro.tech.graphql.auditlog.model.UserId
+import spock.lang.Specification
+import spock.util.concurrent.PollingConditions
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.time.Duration
+import java.time.Instant
+import java.util.concurrent.CopyOnWriteArrayList
+
+class SpoolingAuditLogSenderSpec extends Specification {
+
+    static final int SEGMENT_BYTES = 1024
+
+    Path directory = Files.createTempDirectory("audit-log-spool")
+    RecordingSender sink = new RecordingSender()
+
+    def cleanup() {
+        directory.toFile().deleteDir()
+    }
+
+    def "Should forward spooled items to the delegate"() {
+        given:
+        def sender = spool(Duration.ofMillis(20))
+
+        when:
+        sender.send(item("1"))
+        sender.sendAnonymized(item("2"))
+
+        then:
+        new PollingConditions(timeout: 2).eventually {
+            assert sink.items*.id() == ["1"]
+            assert sink.anonymizedItems*.id() == ["2"]
+        }
+
+        cleanup:
+        sender.close()
+    }
+
+    def "Should keep items until the delegate recovers"() {
+        given:
+        def sender = spool()
+        sink.failing = true
+
+        when:
+        (1..3).each { sender.send(item("$it")) }
+
+        then:
+        sender.replay() == 0
+        sink.items.isEmpty()
+
+        when:
+        sink.failing = false
+
+        then:
+        sender.replay() == 3
+        sink.items*.id() == ["1", "2", "3"]
+        sender.replay() == 0
+
+        cleanup:
+        sender.close()
+    }
+
+    def "Should roll segments and delete forwarded ones"() {
+        given:
+        def sender = spool()
+
+        when:
+        (1..20).each { sender.send(item("$it")) }
+
+        then:
+        segments().size() > 1
+
+        when:
+        sender.replay()
+
+        then:
+        sink.items*.id() == (1..20).collect { "$it" }
+        segments().size() == 1
+
+        cleanup:
+        sender.close()
+    }
+
+    def "Should drop items when the spool is full"() {
+        given:
+        def sender = new SpoolingAuditLogSender(sink, directory, SEGMENT_BYTES, 2, Duration.ofHours(1))
+
+        when:
+        (1..40).each { sender.send(item("$it")) }
+
+        then:
+        sender.droppedCount() > 0
+
+        when:
+        sender.replay()
+        sender.send(item("41"))
+        sender.replay()
+
+        then:
+        sink.items*.id().last() == "41"
+
+        cleanup:
+        sender.close()
+    }
+
+    def "Should not forward again items forwarded before restart"() {
+        given:
+        def sender = spool()
+        (1..3).each { sender.send(item("$it")) }
+        sender.replay()
+        sender.send(item("4"))
+        sender.close()
+
+        when:
+        def reopened = spool()
+        reopened.replay()
+
+        then:
+        sink.items*.id() == ["1", "2", "3", "4"]
+
+        cleanup:
+        reopened.close()
+    }
+
+    def "Should recover records before a segment truncated mid-write"() {
+        given:
+        def sender = spool()
+        (1..3).each { sender.send(item("$it")) }
+        sender.close()
+        def segment = segments().last()
+        long recordBytes = validBytes(segment) / 3
+
+        when: "the last record is torn"
+        truncate(segment, 2 * recordBytes + recordBytes.intdiv(2))
+        def reopened = spool()
+        reopened.send(item("4"))
+        reopened.replay()
+
+        then:
+        sink.items*.id() == ["1", "2", "4"]
+
+        cleanup:
+        reopened.close()
+    }
+
+    def "Should recover records before a segment truncated inside the record header"() {
+        given:
+        def sender = spool()
+        (1..2).each { sender.send(item("$it")) }
+        sender.close()
+        def segment = segments().last()
+        long recordBytes = validBytes(segment) / 2
+
+        when:
+        truncate(segment, recordBytes + 3)
+        def reopened = spool()
+        reopened.send(item("3"))
+        reopened.replay()
+
+        then:
+        sink.items*.id() == ["1", "3"]
+
+        cleanup:
+        reopened.close()
+    }
+
+    def "Should skip the rest of a segment after a corrupted record"() {
+        given:
+        def sender = spool()
+        (1..20).each { sender.send(item("$it")) }
+        sender.close()
+        def first = segments().first()
+        long recordBytes = validBytes(first).intdiv(recordsIn(first))
+
+        when: "a payload byte of the second record is flipped"
+        def bytes = Files.readAllBytes(first)
+        bytes[(int) (recordBytes + 20)] ^= 0xFF
+        Files.write(first, bytes)
+        def reopened = spool()
+        reopened.replay()
+
+        then:
+        sink.items*.id().first() == "1"
+        !sink.items*.id().contains("2")
+        sink.items*.id().last() == "20"
+
+        cleanup:
+        reopened.close()
+    }
+
+    def "Should start from the first segment when the checkpoint is corrupted"() {
+        given:
+        def sender = spool()
+        (1..2).each { sender.send(item("$it")) }
+        sender.replay()
+        sender.close()
+        Files.write(directory.resolve("checkpoint"), [1, 2, 3] as byte[])
+
+        when:
+        def reopened = spool()
+        reopened.replay()
+
+        then: "items are delivered at least once"
+        sink.items*.id() == ["1", "2", "1", "2"]
+
+        cleanup:
+        reopened.close()
+    }
+
+    private SpoolingAuditLogSender spool(Duration replayInterval = Duration.ofHours(1)) {
+        return new SpoolingAuditLogSender(sink, directory, SEGMENT_BYTES, 100, replayInterval)
+    }
+
+    private List<Path> segments() {
+        return Files.list(directory).withCloseable { files ->
+            files.filter { it.fileName.toString().endsWith(".segment") }.sorted().collect()
+        } as List<Path>
+    }
+
+    private static long validBytes(Path segment) {
+        def bytes = Files.readAllBytes(segment)
+        int end = bytes.length
+        while (end > 0 && bytes[end - 1] == 0) {
+            end--
+        }
+        return end
+    }
+
+    private static int recordsIn(Path segment) {
+        def buffer = java.nio.ByteBuffer.wrap(Files.readAllBytes(segment))
+        int records = 0
+        int offset = 0
+        while (offset + 9 <= buffer.limit() && buffer.getInt(offset) > 0) {
+            offset += 9 + buffer.getInt(offset)
+            records++
+        }
+        return records
+    }
+
+    private static void truncate(Path segment, long size) {
+        new RandomAccessFile(segment.toFile(), "rw").withCloseable { it.setLength(size) }
+    }
+
+    private static AuditLogItem item(String id) {
+        return new AuditLogItem(
+                id,
+                [new AuditLogItem.Operation(AuditLogItem.OperationType.QUERY, "user", [:])],
+                [new ResultData.ScalarResultData("user", "String", id)],
+                [],
+                UserId.ANONYMOUS,
+                Instant.parse("2021-10-01T10:15:30Z"))
+    }
+
+    static class RecordingSender implements AuditLogSender {
+        List<AuditLogItem> items = new CopyOnWriteArrayList<>()
+        List<AuditLogItem> anonymizedItems = new CopyOnWriteArrayList<>()
+        volatile boolean failing
+
+        @Override
+        void send(AuditLogItem auditLogItem) {
+            if (failing) {
+                throw new IllegalStateException("sink unavailable")
+            }
+            items.add(auditLogItem)
+        }
+
+        @Override
+        void sendAnonymized(AuditLogItem auditLogItem) {
+            anonymizedItems.add(auditLogItem)
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package pl.allegro.tech.graphql.auditlog.fixture
+
+import graphql.GraphQL
+import graphql.execution.instrumentation.Instrumentation
+import graphql.schema.GraphQLSchema
+import graphql.schema.idl.RuntimeWiring
+import graphql.schema.idl.SchemaGenerator
+import graphql.schema.idl.SchemaParser
+
+class GraphQLFixture {
+
+    static GraphQLSchema schema(String sdl, RuntimeWiring runtimeWiring) {
+        return new SchemaGenerator().makeExecutableSchema(new SchemaParser().parse(sdl), runtimeWiring)
+    }
+
+    static GraphQL graphQL(GraphQLSchema schema, Instrumentation instrumentation) {
+        return GraphQL.newGraphQL(schema)
+                .instrumentation(instrumentation)
+                .build()
+    }
+}